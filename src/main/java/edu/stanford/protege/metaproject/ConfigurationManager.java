@@ -4,8 +4,10 @@ import edu.stanford.protege.metaproject.api.ConfigurationLoader;
 import edu.stanford.protege.metaproject.api.ConfigurationWriter;
 import edu.stanford.protege.metaproject.api.PolicyFactory;
 import edu.stanford.protege.metaproject.api.Serializer;
+import edu.stanford.protege.metaproject.api.ServerConfiguration;
 import edu.stanford.protege.metaproject.impl.ConfigurationLoaderImpl;
 import edu.stanford.protege.metaproject.impl.ConfigurationWriterImpl;
+import edu.stanford.protege.metaproject.impl.LiveConfiguration;
 import edu.stanford.protege.metaproject.impl.PolicyFactoryImpl;
 import edu.stanford.protege.metaproject.serialization.DefaultJsonSerializer;
 
@@ -56,4 +58,15 @@ public final class ConfigurationManager {
     public static ConfigurationWriter getConfigurationWriter() {
         return new ConfigurationWriterImpl(getSerializer());
     }
+
+    /**
+     * Get a holder of the server configuration in effect, through which new configurations are published to the
+     * threads that read it
+     *
+     * @param config    Initial server configuration
+     * @return Live configuration
+     */
+    public static LiveConfiguration getLiveConfiguration(ServerConfiguration config) {
+        return new LiveConfiguration(config);
+    }
 }
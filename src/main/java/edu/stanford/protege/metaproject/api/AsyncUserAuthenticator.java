@@ -0,0 +1,28 @@
+package edu.stanford.protege.metaproject.api;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A user authenticator that verifies credentials asynchronously, so that the (deliberately costly) password hashing
+ * does not run on the threads that request it
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public interface AsyncUserAuthenticator {
+
+    /**
+     * Verify whether the given user and password are valid. The returned future completes exceptionally with a
+     * {@link java.util.concurrent.RejectedExecutionException} if the authenticator is too busy to accept the
+     * verification, in which case the caller may retry later
+     *
+     * @param userId    User identifier
+     * @param password  Password
+     * @return Future authorisation token that represents the state of user credential verification
+     */
+    @Nonnull
+    CompletableFuture<AuthToken> hasValidCredentials(@Nonnull UserId userId, @Nonnull PlainPassword password);
+
+}
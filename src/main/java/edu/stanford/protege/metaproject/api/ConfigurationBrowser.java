@@ -5,7 +5,9 @@ import com.google.common.collect.ImmutableSet;
 import edu.stanford.protege.metaproject.api.exception.*;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -27,6 +29,21 @@ public interface ConfigurationBrowser {
     @Nonnull
     User getUser(@Nonnull UserId userId) throws UnknownUserIdException;
 
+    /**
+     * Find the user with the specified user identifier
+     *
+     * @param userId    User identifier
+     * @return User instance, or an empty optional if the user identifier does not exist in the configuration
+     */
+    @Nonnull
+    default Optional<User> findUser(@Nonnull UserId userId) {
+        try {
+            return Optional.of(getUser(userId));
+        } catch (UnknownUserIdException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Get the set of user in the configuration
      *
@@ -45,7 +62,7 @@ public interface ConfigurationBrowser {
     Set<User> getUsers(@Nonnull Name userName);
 
     /**
-     * Get the user(s) registered with the specified email address
+     * Get the user(s) registered with the specified email address. Email addresses are compared case-insensitively
      *
      * @param emailAddress  Email address
      * @return Set of users
@@ -79,7 +96,8 @@ public interface ConfigurationBrowser {
     boolean containsUser(@Nonnull UserId userId);
 
     /**
-     * Verify whether the email address of the given user is already being used by another user
+     * Verify whether the email address of the given user is already being used by another user. Email addresses are
+     * compared case-insensitively
      *
      * @param address   User address
      * @return true if email address is used by some other user, false otherwise
@@ -100,6 +118,21 @@ public interface ConfigurationBrowser {
     @Nonnull
     Project getProject(@Nonnull ProjectId projectId) throws UnknownProjectIdException;
 
+    /**
+     * Find the project with the given identifier
+     *
+     * @param projectId Project identifier
+     * @return Project, or an empty optional if the project identifier does not exist in the configuration
+     */
+    @Nonnull
+    default Optional<Project> findProject(@Nonnull ProjectId projectId) {
+        try {
+            return Optional.of(getProject(projectId));
+        } catch (UnknownProjectIdException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Get the set of projects in the configuration
      *
@@ -165,6 +198,21 @@ public interface ConfigurationBrowser {
     @Nonnull
     Role getRole(@Nonnull RoleId roleId) throws UnknownRoleIdException;
 
+    /**
+     * Find the role with the given identifier
+     *
+     * @param roleId    Role identifier
+     * @return Role instance, or an empty optional if the role identifier does not exist in the configuration
+     */
+    @Nonnull
+    default Optional<Role> findRole(@Nonnull RoleId roleId) {
+        try {
+            return Optional.of(getRole(roleId));
+        } catch (UnknownRoleIdException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Get the set of roles in the configuration
      *
@@ -246,6 +294,21 @@ public interface ConfigurationBrowser {
     @Nonnull
     Operation getOperation(@Nonnull OperationId operationId) throws UnknownOperationIdException;
 
+    /**
+     * Find the operation with the specified operation identifier
+     *
+     * @param operationId   Operation identifier
+     * @return Operation instance, or an empty optional if the operation identifier does not exist in the configuration
+     */
+    @Nonnull
+    default Optional<Operation> findOperation(@Nonnull OperationId operationId) {
+        try {
+            return Optional.of(getOperation(operationId));
+        } catch (UnknownOperationIdException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Get the set of operations in the configuration
      *
@@ -330,6 +393,21 @@ public interface ConfigurationBrowser {
     @Nonnull
     AuthenticationDetails getAuthenticationDetails(@Nonnull UserId userId) throws UserNotRegisteredException;
 
+    /**
+     * Find the authentication details for a user with the given identifier
+     *
+     * @param userId    User identifier
+     * @return Authentication details, or an empty optional if the user is not registered
+     */
+    @Nonnull
+    default Optional<AuthenticationDetails> findAuthenticationDetails(@Nonnull UserId userId) {
+        try {
+            return Optional.of(getAuthenticationDetails(userId));
+        } catch (UserNotRegisteredException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Get the cryptographic salt used for hashing the given user's password
      *
@@ -371,6 +449,35 @@ public interface ConfigurationBrowser {
      */
     boolean isOperationAllowed(@Nonnull OperationId operationId, @Nonnull ProjectId projectId, @Nonnull UserId userId);
 
+    /**
+     * Get the set of operations that the given user is allowed to perform within the project, taking into account the
+     * user's global permissions. The permission set is an immutable snapshot of this configuration, and can be reused
+     * for any number of checks, e.g., for the duration of a user's session in the project. The default implementation
+     * collects the operations of the roles given by {@link #getRoles(UserId, ProjectId, GlobalPermissions)}
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @return Permission set
+     */
+    @Nonnull
+    default PermissionSet getEffectivePermissions(@Nonnull UserId userId, @Nonnull ProjectId projectId) {
+        return new RolePermissionSet(getRoles(userId, projectId, GlobalPermissions.INCLUDED), this);
+    }
+
+    /**
+     * Get the operations, among the given ones, that the given user is not allowed to perform within the project,
+     * taking into account the user's global permissions. The user's roles are resolved once for the whole collection
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @param operationIds  Operation identifiers, e.g., one per change in a commit
+     * @return Set of identifiers of the given operations that are not allowed, which is empty if all are allowed
+     */
+    @Nonnull
+    default Set<OperationId> getDeniedOperations(@Nonnull UserId userId, @Nonnull ProjectId projectId, @Nonnull Collection<OperationId> operationIds) {
+        return getEffectivePermissions(userId, projectId).getDeniedOperations(operationIds);
+    }
+
     /**
      * Check whether the specified operation is allowed for the given user
      *
@@ -409,7 +516,8 @@ public interface ConfigurationBrowser {
     boolean hasRole(@Nonnull UserId userId);
 
     /**
-     * Get a map of user identifiers to their project-roles assignments
+     * Get a map of user identifiers to their project-roles assignments. Users with no role assignments, and projects
+     * in which a user has no roles, are not included
      *
      * @return Map of users to their project-role mappings
      */
@@ -0,0 +1,63 @@
+package edu.stanford.protege.metaproject.api;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The key derivation functions that can be used to hash passwords
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public enum PasswordHashAlgorithm {
+
+    PBKDF2_HMAC_SHA1("PBKDF2WithHmacSHA1"),
+
+    PBKDF2_HMAC_SHA256("PBKDF2WithHmacSHA256"),
+
+    PBKDF2_HMAC_SHA512("PBKDF2WithHmacSHA512");
+
+    // parameters of the digests stored before digests carried their hashing parameters
+    private static final PasswordHashAlgorithm LEGACY_ALGORITHM = PBKDF2_HMAC_SHA1;
+    private static final int LEGACY_ITERATIONS = 20000;
+
+    private final String jcaName;
+
+    PasswordHashAlgorithm(@Nonnull String jcaName) {
+        this.jcaName = checkNotNull(jcaName);
+    }
+
+    /**
+     * Get the standard name of the algorithm, as understood by {@link javax.crypto.SecretKeyFactory}
+     *
+     * @return Algorithm name
+     */
+    @Nonnull
+    public String getJcaName() {
+        return jcaName;
+    }
+
+    /**
+     * Get the password hashing algorithm assumed for password digests that do not record it, i.e., those stored
+     * before digests carried their hashing parameters
+     *
+     * @return Password hashing algorithm
+     */
+    @Nonnull
+    public static PasswordHashAlgorithm getLegacyAlgorithm() {
+        return LEGACY_ALGORITHM;
+    }
+
+    /**
+     * Get the number of key-stretching iterations assumed for password digests that do not record it, i.e., those
+     * stored before digests carried their hashing parameters
+     *
+     * @return Number of iterations
+     */
+    public static int getLegacyNumberOfIterations() {
+        return LEGACY_ITERATIONS;
+    }
+
+}
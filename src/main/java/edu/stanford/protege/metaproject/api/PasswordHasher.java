@@ -1,6 +1,9 @@
 package edu.stanford.protege.metaproject.api;
 
 import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
 
 /**
  * A representation of a salt-based password hashing function
@@ -21,4 +24,65 @@ public interface PasswordHasher {
     @Nonnull
     SaltedPasswordDigest hash(@Nonnull PlainPassword password, @Nonnull Salt salt);
 
+    /**
+     * Create a salted hash of the password with the given salt. Implementations should not copy the password
+     * characters into any intermediate string, so that the caller may clear the array afterwards. The default
+     * implementation copies them into a plain password and delegates to {@link #hash(PlainPassword, Salt)}
+     *
+     * @param password  Plain password characters to hash
+     * @param salt  Salt
+     * @return Salted hash of the password
+     */
+    @Nonnull
+    default SaltedPasswordDigest hash(@Nonnull char[] password, @Nonnull Salt salt) {
+        String plainPassword = new String(password);
+        return hash(() -> plainPassword, salt);
+    }
+
+    /**
+     * Check whether the password matches the given digest. Implementations should hash the password with the salt,
+     * algorithm and number of iterations recorded in the digest, rather than with the parameters of this hasher, and
+     * compare the resulting hashes in constant time. The default implementation hashes the password with the salt of
+     * the digest and the parameters of this hasher, and compares the result with the digest in constant time
+     *
+     * @param password  Plain password characters
+     * @param digest    Salted password digest
+     * @return true if the password hashes to the given digest, false otherwise
+     */
+    default boolean matches(@Nonnull char[] password, @Nonnull SaltedPasswordDigest digest) {
+        byte[] actual = hash(password, digest.getSalt()).getPassword().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(actual, digest.getPassword().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Check whether the given digest was produced with parameters other than those of this hasher (algorithm, hash
+     * size) or with fewer key-stretching iterations, and should therefore be replaced by a new digest. The default
+     * implementation does not know the parameters of this hasher, and never asks for a digest to be replaced
+     *
+     * @param digest    Salted password digest
+     * @return true if the digest should be recomputed with this hasher, false otherwise
+     */
+    default boolean needsRehash(@Nonnull SaltedPasswordDigest digest) {
+        return false;
+    }
+
+    /**
+     * Get an upgraded digest of the password, meant to be called when a user logs in. If the password matches the
+     * given digest and the digest needs to be rehashed, the password is hashed again with the parameters of this
+     * hasher and a freshly generated salt. Callers are responsible for storing the upgraded digest in place of the
+     * given one. The default implementation hashes the password again with the salt of the given digest, since this
+     * interface has no means to generate one
+     *
+     * @param password  Plain password characters
+     * @param digest    Salted password digest currently stored for the user
+     * @return Upgraded digest, or an empty optional if the password does not match or the digest is up to date
+     */
+    @Nonnull
+    default Optional<SaltedPasswordDigest> upgrade(@Nonnull char[] password, @Nonnull SaltedPasswordDigest digest) {
+        if (needsRehash(digest) && matches(password, digest)) {
+            return Optional.of(hash(password, digest.getSalt()));
+        }
+        return Optional.empty();
+    }
+
 }
@@ -0,0 +1,67 @@
+package edu.stanford.protege.metaproject.api;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * A representation of the set of operations that a user is allowed to perform, e.g., within some project. Permission
+ * sets are immutable snapshots derived from a server configuration, so they can be obtained once (say, when a user
+ * opens a project) and checked against repeatedly
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public interface PermissionSet {
+
+    /**
+     * Check whether the operation with the given identifier is allowed
+     *
+     * @param operationId   Operation identifier
+     * @return true if the operation is allowed, false otherwise
+     */
+    boolean allows(@Nonnull OperationId operationId);
+
+    /**
+     * Check whether some operation of the given type is allowed
+     *
+     * @param operationType Operation type
+     * @return true if at least one operation of the given type is allowed, false otherwise
+     */
+    boolean allowsAny(@Nonnull OperationType operationType);
+
+    /**
+     * Check whether some operation with the given scope is allowed
+     *
+     * @param scope Operation scope
+     * @return true if at least one operation with the given scope is allowed, false otherwise
+     */
+    boolean allowsAny(@Nonnull Operation.Scope scope);
+
+    /**
+     * Get the operations, among the given ones, that are not allowed. Each distinct operation is checked only once,
+     * so this is suitable for authorizing whole lists of changes, where the same few operations recur many times
+     *
+     * @param operationIds  Operation identifiers
+     * @return Set of identifiers of the given operations that are not allowed, which is empty if all are allowed
+     */
+    @Nonnull
+    Set<OperationId> getDeniedOperations(@Nonnull Collection<OperationId> operationIds);
+
+    /**
+     * Check whether no operation at all is allowed
+     *
+     * @return true if no operation is allowed, false otherwise
+     */
+    boolean isEmpty();
+
+    /**
+     * Get the identifiers of all allowed operations
+     *
+     * @return Set of operation identifiers
+     */
+    @Nonnull
+    Set<OperationId> getOperationIds();
+
+}
@@ -116,6 +116,30 @@ public interface PolicyFactory {
     @Nonnull
     SaltedPasswordDigest getSaltedPasswordDigest(@Nonnull String password, @Nonnull Salt salt);
 
+    /**
+     * Get a salted password digest along with the parameters of the hash function that produced it. The default
+     * implementation only supports the parameters of digests that do not record them (see
+     * {@link PasswordHashAlgorithm#getLegacyAlgorithm()} and
+     * {@link PasswordHashAlgorithm#getLegacyNumberOfIterations()}), for which it delegates to
+     * {@link #getSaltedPasswordDigest(String, Salt)}
+     *
+     * @param password  Password hash
+     * @param salt  Salt
+     * @param algorithm Password hashing algorithm
+     * @param nrIterations  Number of key-stretching iterations
+     * @return Salted password digest
+     * @throws UnsupportedOperationException    The factory does not support the given hashing parameters
+     */
+    @Nonnull
+    default SaltedPasswordDigest getSaltedPasswordDigest(@Nonnull String password, @Nonnull Salt salt, @Nonnull PasswordHashAlgorithm algorithm, int nrIterations) {
+        if (algorithm != PasswordHashAlgorithm.getLegacyAlgorithm() ||
+                nrIterations != PasswordHashAlgorithm.getLegacyNumberOfIterations()) {
+            throw new UnsupportedOperationException("Digests hashed with " + algorithm + " at " + nrIterations +
+                    " iterations are not supported");
+        }
+        return getSaltedPasswordDigest(password, salt);
+    }
+
     /**
      * Create a name for an access control object
      *
@@ -267,6 +291,43 @@ public interface PolicyFactory {
     @Nonnull
     PasswordHasher getPasswordHasher(int hashByteSize, int nrIterations);
 
+    /**
+     * Create an instance of a password hasher with the given algorithm, hash byte size
+     * and number of key-stretching iterations. The default implementation only supports the
+     * algorithm of digests that do not record it (see {@link PasswordHashAlgorithm#getLegacyAlgorithm()}),
+     * for which it delegates to {@link #getPasswordHasher(int, int)}
+     *
+     * @param algorithm Password hashing algorithm
+     * @param hashByteSize  Hash byte size
+     * @param nrIterations  Number of key-stretching iterations
+     * @return Password hasher
+     * @throws UnsupportedOperationException    The factory does not support the given algorithm
+     */
+    @Nonnull
+    default PasswordHasher getPasswordHasher(@Nonnull PasswordHashAlgorithm algorithm, int hashByteSize, int nrIterations) {
+        if (algorithm != PasswordHashAlgorithm.getLegacyAlgorithm()) {
+            throw new UnsupportedOperationException("Password hashing algorithm " + algorithm + " is not supported");
+        }
+        return getPasswordHasher(hashByteSize, nrIterations);
+    }
+
+    /**
+     * Create an instance of a password hasher with the given algorithm and hash byte size, whose number of
+     * key-stretching iterations is calibrated on this host so that hashing a password takes roughly the given
+     * time. Calibration runs a few hashes, so it is meant to be done once, e.g., at server startup. The default
+     * implementation does not know how to calibrate a password hasher, and does not support calibration
+     *
+     * @param algorithm Password hashing algorithm
+     * @param hashByteSize  Hash byte size
+     * @param targetMillis  Target time to hash a password, in milliseconds
+     * @return Password hasher
+     * @throws UnsupportedOperationException    The factory does not support calibration
+     */
+    @Nonnull
+    default PasswordHasher getCalibratedPasswordHasher(@Nonnull PasswordHashAlgorithm algorithm, int hashByteSize, long targetMillis) {
+        throw new UnsupportedOperationException("Calibrating the password hasher is not supported");
+    }
+
     /**
      * Get an authentication token that reflects a successful authentication attempt
      *
@@ -0,0 +1,120 @@
+package edu.stanford.protege.metaproject.api;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A permission set made up of the operations of a set of roles, as computed by the default implementation of
+ * {@link ConfigurationBrowser#getEffectivePermissions(UserId, ProjectId)}. Operation types and scopes are those of the
+ * operations that the configuration browser knows of
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+final class RolePermissionSet implements PermissionSet {
+    @Nonnull private final ImmutableSet<OperationId> operationIds;
+    @Nonnull private final ImmutableSet<OperationType> types;
+    @Nonnull private final ImmutableSet<Operation.Scope> scopes;
+
+    /**
+     * Package-private constructor
+     *
+     * @param roles Set of roles
+     * @param browser   Configuration browser with which to look up the roles' operations
+     */
+    RolePermissionSet(@Nonnull Set<Role> roles, @Nonnull ConfigurationBrowser browser) {
+        checkNotNull(roles);
+        checkNotNull(browser);
+        Set<OperationId> operationIds = new HashSet<>();
+        for (Role role : roles) {
+            operationIds.addAll(role.getOperations());
+        }
+        Set<OperationType> types = EnumSet.noneOf(OperationType.class);
+        Set<Operation.Scope> scopes = EnumSet.noneOf(Operation.Scope.class);
+        for (OperationId operationId : operationIds) {
+            browser.findOperation(operationId).ifPresent(operation -> {
+                types.add(operation.getType());
+                scopes.add(operation.getScope());
+            });
+        }
+        this.operationIds = ImmutableSet.copyOf(operationIds);
+        this.types = ImmutableSet.copyOf(types);
+        this.scopes = ImmutableSet.copyOf(scopes);
+    }
+
+    @Override
+    public boolean allows(@Nonnull OperationId operationId) {
+        return operationIds.contains(checkNotNull(operationId));
+    }
+
+    @Override
+    public boolean allowsAny(@Nonnull OperationType operationType) {
+        return types.contains(checkNotNull(operationType));
+    }
+
+    @Override
+    public boolean allowsAny(@Nonnull Operation.Scope scope) {
+        return scopes.contains(checkNotNull(scope));
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableSet<OperationId> getDeniedOperations(@Nonnull Collection<OperationId> operationIds) {
+        ImmutableSet.Builder<OperationId> denied = ImmutableSet.builder();
+        for (OperationId operationId : checkNotNull(operationIds)) {
+            if (!allows(operationId)) {
+                denied.add(operationId);
+            }
+        }
+        return denied.build();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return operationIds.isEmpty();
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableSet<OperationId> getOperationIds() {
+        return operationIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PermissionSet)) {
+            return false;
+        }
+        PermissionSet that = (PermissionSet) o;
+        return Objects.equal(operationIds, that.getOperationIds());
+    }
+
+    @Override
+    public int hashCode() {
+        return operationIds.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("operationIds", operationIds)
+                .toString();
+    }
+}
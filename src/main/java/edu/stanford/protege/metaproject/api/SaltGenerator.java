@@ -1,6 +1,11 @@
 package edu.stanford.protege.metaproject.api;
 
+import com.google.common.collect.ImmutableList;
+
 import javax.annotation.Nonnull;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * A representation of a generator of cryptographic salt
@@ -28,6 +33,24 @@ public interface SaltGenerator {
     @Nonnull
     Salt generate(int nrBytes);
 
+    /**
+     * Generate the given number of salts using the specified byte length, e.g., when provisioning users in bulk. The
+     * default implementation generates each salt with {@link #generate(int)}
+     *
+     * @param count Number of salts
+     * @param nrBytes   Byte length of each salt
+     * @return List of salts
+     */
+    @Nonnull
+    default List<Salt> generate(int count, int nrBytes) {
+        checkArgument(count >= 0, "The number of salts cannot be negative");
+        ImmutableList.Builder<Salt> salts = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            salts.add(generate(nrBytes));
+        }
+        return salts.build();
+    }
+
     /**
      * Get the default byte length used for generating a salt
      *
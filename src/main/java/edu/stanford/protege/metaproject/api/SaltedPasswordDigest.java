@@ -3,7 +3,9 @@ package edu.stanford.protege.metaproject.api;
 import javax.annotation.Nonnull;
 
 /**
- * A representation of a salted password digest, consisting of the password and the salt used to hash it
+ * A representation of a salted password digest, consisting of the password and the salt used to hash it, along with
+ * the parameters of the hash function that produced it, so that digests produced with different parameters can be
+ * verified side by side
  *
  * @author Rafael Gonçalves <br>
  * Center for Biomedical Informatics Research <br>
@@ -19,4 +21,26 @@ public interface SaltedPasswordDigest extends Password {
     @Nonnull
     Salt getSalt();
 
+    /**
+     * Get the algorithm used for hashing this password. The default implementation returns the algorithm of digests
+     * that do not record it (see {@link PasswordHashAlgorithm#getLegacyAlgorithm()})
+     *
+     * @return Password hashing algorithm
+     */
+    @Nonnull
+    default PasswordHashAlgorithm getAlgorithm() {
+        return PasswordHashAlgorithm.getLegacyAlgorithm();
+    }
+
+    /**
+     * Get the number of key-stretching iterations used for hashing this password. The default implementation returns
+     * the number of iterations of digests that do not record it (see
+     * {@link PasswordHashAlgorithm#getLegacyNumberOfIterations()})
+     *
+     * @return Number of iterations
+     */
+    default int getNumberOfIterations() {
+        return PasswordHashAlgorithm.getLegacyNumberOfIterations();
+    }
+
 }
@@ -0,0 +1,40 @@
+package edu.stanford.protege.metaproject.api.exception;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Exception thrown on a login attempt that is refused without verifying the credentials, because too many attempts
+ * were made by the same user or from the same source. Since a client that retries in a tight loop may cause many of
+ * these, they do not fill in their stack trace.
+ *
+ * Unlike the other exceptions of this package, it is unchecked: it is thrown from
+ * {@link edu.stanford.protege.metaproject.api.UserAuthenticator#hasValidCredentials}, whose signature declares no
+ * exceptions, by authenticators that throttle login attempts. Callers of such an authenticator should catch it, and
+ * tell the client to retry after {@link #getRetryAfter()}
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class LoginThrottledException extends RuntimeException {
+    private static final long serialVersionUID = 3140837012871946213L;
+    @Nonnull private final Duration retryAfter;
+
+    public LoginThrottledException(String message, @Nonnull Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = checkNotNull(retryAfter);
+    }
+
+    /**
+     * Get the time after which another login attempt may be made
+     *
+     * @return Time to wait before retrying
+     */
+    @Nonnull
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,6 +1,9 @@
 package edu.stanford.protege.metaproject.api.exception;
 
 /**
+ * Exception thrown on a lookup of an unknown policy object identifier. Since lookup misses are routine (e.g., when
+ * probing identifiers), exceptions created without a cause do not fill in their stack trace
+ *
  * @author Rafael Gonçalves <br>
  * Center for Biomedical Informatics Research <br>
  * Stanford University
@@ -18,14 +21,30 @@ public class UnknownPolicyObjectIdException extends ConfigurationException {
 
     public UnknownPolicyObjectIdException(String message, Throwable cause) {
         super(message, cause);
+        super.fillInStackTrace();
     }
 
     public UnknownPolicyObjectIdException(Throwable cause) {
         super(cause);
+        super.fillInStackTrace();
     }
 
     protected UnknownPolicyObjectIdException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
+        if (writableStackTrace) {
+            super.fillInStackTrace();
+        }
+    }
+
+    /**
+     * Does nothing, so that exceptions created without a cause carry no stack trace. The constructors that take a
+     * cause fill in the stack trace themselves
+     *
+     * @return This exception
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
     }
 
 }
@@ -0,0 +1,189 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import edu.stanford.protege.metaproject.api.AuthenticationDetails;
+import edu.stanford.protege.metaproject.api.SaltedPasswordDigest;
+import edu.stanford.protege.metaproject.api.UserId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A store of user authentication details keyed by user identifier. The hex-encoded password digests are decoded
+ * once, when the store is built, so that verifying credentials takes one hash lookup and a length-constant time
+ * comparison of the given digest against the stored bytes, without allocating. The store doubles as the index of
+ * authentication details by user identifier (see {@link #asMap()}), so that a configuration keeps a single map of
+ * them.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+final class AuthenticationStore {
+    @Nonnull private final ImmutableMap<UserId, Entry> entries;
+    @Nonnull private final Map<UserId, AuthenticationDetails> details;
+
+    /**
+     * Constructor. If several authentication details share the same user identifier, the first one found is stored
+     *
+     * @param authDetails   Collection of user authentication details
+     */
+    AuthenticationStore(@Nonnull Collection<AuthenticationDetails> authDetails) {
+        Map<UserId, Entry> entries = new LinkedHashMap<>();
+        for(AuthenticationDetails details : checkNotNull(authDetails)) {
+            entries.computeIfAbsent(details.getUserId(), userId -> new Entry(details));
+        }
+        this.entries = ImmutableMap.copyOf(entries);
+        this.details = Maps.transformValues(this.entries, entry -> entry.details);
+    }
+
+    /**
+     * Get an unmodifiable view of the stored authentication details, keyed by user identifier. The same view is
+     * returned on every call
+     *
+     * @return Map of user identifiers to authentication details
+     */
+    @Nonnull
+    Map<UserId, AuthenticationDetails> asMap() {
+        return details;
+    }
+
+    /**
+     * Get the authentication details of the given user, if registered
+     *
+     * @param userId    User identifier
+     * @return Optional authentication details
+     */
+    @Nonnull
+    Optional<AuthenticationDetails> find(@Nonnull UserId userId) {
+        Entry entry = entries.get(checkNotNull(userId));
+        return entry == null ? Optional.empty() : Optional.of(entry.details);
+    }
+
+    /**
+     * Check whether the given user is registered
+     *
+     * @param userId    User identifier
+     * @return true if the user is registered, false otherwise
+     */
+    boolean contains(@Nonnull UserId userId) {
+        return entries.containsKey(checkNotNull(userId));
+    }
+
+    /**
+     * Check whether the given password digest matches the one stored for the given user
+     *
+     * @param userId    User identifier
+     * @param password  Salted password digest
+     * @return true if the user is registered and the digests match, false otherwise
+     */
+    boolean hasValidCredentials(@Nonnull UserId userId, @Nonnull SaltedPasswordDigest password) {
+        Entry entry = entries.get(checkNotNull(userId));
+        return entry != null && entry.matches(checkNotNull(password).getPassword());
+    }
+
+    /**
+     * Get the number of registered users
+     *
+     * @return Number of registered users
+     */
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", entries.size())
+                .toString();
+    }
+
+    /**
+     * The authentication details of a user, along with the decoded bytes of the password digest. Digests that are
+     * not lowercase hex strings (which the password hashers never produce, but the policy factory accepts) are
+     * compared as strings instead
+     */
+    private static final class Entry {
+        private static final int[] DIGITS = new int[128];
+        static {
+            Arrays.fill(DIGITS, -1);
+            for(char c = '0'; c <= '9'; c++) {
+                DIGITS[c] = c - '0';
+            }
+            for(char c = 'a'; c <= 'f'; c++) {
+                DIGITS[c] = c - 'a' + 10;
+            }
+        }
+        @Nonnull private final AuthenticationDetails details;
+        @Nullable private final byte[] digest;
+
+        Entry(AuthenticationDetails details) {
+            this.details = details;
+            this.digest = decode(details.getPassword().getPassword());
+        }
+
+        boolean matches(String candidate) {
+            if(digest == null) {
+                return slowEquals(details.getPassword().getPassword(), candidate);
+            }
+            if(candidate.length() != digest.length * 2) {
+                return false; // the digest length is fixed by the hash parameters, so it reveals nothing
+            }
+            int diff = 0;
+            for(int i = 0; i < digest.length; i++) {
+                int value = (digit(candidate.charAt(2 * i)) << 4) | digit(candidate.charAt(2 * i + 1));
+                diff |= value ^ (digest[i] & 0xff);
+            }
+            return diff == 0;
+        }
+
+        @Nullable
+        private static byte[] decode(String hex) {
+            if(hex.isEmpty() || hex.length() % 2 != 0) {
+                return null;
+            }
+            byte[] bytes = new byte[hex.length() / 2];
+            for(int i = 0; i < bytes.length; i++) {
+                int hi = digit(hex.charAt(2 * i)), lo = digit(hex.charAt(2 * i + 1));
+                if(hi < 0 || lo < 0) {
+                    return null;
+                }
+                bytes[i] = (byte) ((hi << 4) | lo);
+            }
+            return bytes;
+        }
+
+        /**
+         * Get the value of a lowercase hex digit, or -1 if the character is not one, without branching on the
+         * character; a negative value makes any comparison against a stored byte fail
+         */
+        private static int digit(char c) {
+            return DIGITS[c & 0x7f] | ((0x7f - c) >> 31);
+        }
+
+        /**
+         * Compares two strings in length-constant time, so that password hashes cannot be extracted from an on-line
+         * system using a timing attack and then attacked off-line
+         */
+        private static boolean slowEquals(String a, String b) {
+            int diff = a.length() ^ b.length();
+            for(int i = 0; i < a.length() && i < b.length(); i++) {
+                diff |= a.charAt(i) ^ b.charAt(i);
+            }
+            return diff == 0;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import edu.stanford.protege.metaproject.api.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded cache of authorization decisions (whether an operation is allowed, whether a role is assigned) made by the
+ * configuration that a supplier currently provides. Each decision is tagged with the generation of the configuration
+ * that made it, and the generation is advanced whenever the supplier starts providing a different configuration
+ * instance, so swapping in a new configuration invalidates all earlier decisions without any explicit call.
+ *
+ * Hit, miss and eviction counts are recorded and available through {@link #stats()}, to help size the cache.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class AuthorizationDecisionCache {
+    @Nonnull private final Supplier<? extends ConfigurationBrowser> configurationSupplier;
+    @Nonnull private final Cache<Decision, Boolean> decisions;
+    @Nonnull private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(null, 0));
+
+    /**
+     * Constructor
+     *
+     * @param configurationSupplier Supplier of the current configuration, which is consulted on every lookup
+     * @param maximumSize   Maximum number of decisions to keep
+     */
+    public AuthorizationDecisionCache(@Nonnull Supplier<? extends ConfigurationBrowser> configurationSupplier, long maximumSize) {
+        checkArgument(maximumSize >= 0, "The maximum cache size cannot be negative");
+        this.configurationSupplier = checkNotNull(configurationSupplier);
+        this.decisions = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Check whether the specified operation is allowed for the given user within the project
+     *
+     * @param operationId   Operation identifier
+     * @param projectId Project identifier
+     * @param userId    User identifier
+     * @return true if user is allowed to carry out the specified operation within the project, false otherwise
+     * @see ConfigurationBrowser#isOperationAllowed(OperationId, ProjectId, UserId)
+     */
+    public boolean isOperationAllowed(@Nonnull OperationId operationId, @Nonnull ProjectId projectId, @Nonnull UserId userId) {
+        Generation current = getGeneration();
+        Decision decision = new Decision(current.number, DecisionType.OPERATION, userId, checkNotNull(projectId), checkNotNull(operationId));
+        Boolean allowed = decisions.getIfPresent(decision);
+        if (allowed == null) {
+            allowed = current.configuration.isOperationAllowed(operationId, projectId, userId);
+            decisions.put(decision, allowed);
+        }
+        return allowed;
+    }
+
+    /**
+     * Check whether the specified operation is allowed for the given user in some project
+     *
+     * @param operationId   Operation identifier
+     * @param userId    User identifier
+     * @return true if user is allowed to carry out the specified operation, false otherwise
+     * @see ConfigurationBrowser#isOperationAllowed(OperationId, UserId)
+     */
+    public boolean isOperationAllowed(@Nonnull OperationId operationId, @Nonnull UserId userId) {
+        Generation current = getGeneration();
+        Decision decision = new Decision(current.number, DecisionType.OPERATION, userId, null, checkNotNull(operationId));
+        Boolean allowed = decisions.getIfPresent(decision);
+        if (allowed == null) {
+            allowed = current.configuration.isOperationAllowed(operationId, userId);
+            decisions.put(decision, allowed);
+        }
+        return allowed;
+    }
+
+    /**
+     * Check whether the given user has the specified role within the project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @param roleId    Role identifier
+     * @return true if user has the specified role within the project, false otherwise
+     * @see ConfigurationBrowser#hasRole(UserId, ProjectId, RoleId)
+     */
+    public boolean hasRole(@Nonnull UserId userId, @Nonnull ProjectId projectId, @Nonnull RoleId roleId) {
+        Generation current = getGeneration();
+        Decision decision = new Decision(current.number, DecisionType.ROLE, userId, checkNotNull(projectId), checkNotNull(roleId));
+        Boolean hasRole = decisions.getIfPresent(decision);
+        if (hasRole == null) {
+            hasRole = current.configuration.hasRole(userId, projectId, roleId);
+            decisions.put(decision, hasRole);
+        }
+        return hasRole;
+    }
+
+    /**
+     * Check whether the given user has some role within the project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @return true if user has a role within the project, false otherwise
+     * @see ConfigurationBrowser#hasRole(UserId, ProjectId)
+     */
+    public boolean hasRole(@Nonnull UserId userId, @Nonnull ProjectId projectId) {
+        Generation current = getGeneration();
+        Decision decision = new Decision(current.number, DecisionType.ROLE, userId, checkNotNull(projectId), null);
+        Boolean hasRole = decisions.getIfPresent(decision);
+        if (hasRole == null) {
+            hasRole = current.configuration.hasRole(userId, projectId);
+            decisions.put(decision, hasRole);
+        }
+        return hasRole;
+    }
+
+    /**
+     * Get the statistics of this cache, i.e., hit, miss and eviction counts. Decisions discarded due to a change
+     * of configuration are not counted as evictions
+     *
+     * @return Cache statistics
+     */
+    @Nonnull
+    public CacheStats stats() {
+        return decisions.stats();
+    }
+
+    /**
+     * Get the number of decisions currently cached
+     *
+     * @return Number of cached decisions
+     */
+    public long size() {
+        return decisions.size();
+    }
+
+    /**
+     * Discard all cached decisions
+     */
+    public void invalidateAll() {
+        decisions.invalidateAll();
+    }
+
+    /**
+     * Get the generation of the configuration currently provided by the supplier, starting a new generation (and
+     * discarding the decisions of earlier ones) if the configuration instance has changed since the last lookup
+     *
+     * @return Current configuration generation
+     */
+    private Generation getGeneration() {
+        ConfigurationBrowser configuration = checkNotNull(configurationSupplier.get(), "The supplied configuration cannot be null");
+        Generation current = generation.get();
+        while (current.configuration != configuration) {
+            Generation next = new Generation(configuration, current.number + 1);
+            if (generation.compareAndSet(current, next)) {
+                decisions.invalidateAll();
+                return next;
+            }
+            current = generation.get();
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("generation", generation.get().number)
+                .add("size", decisions.size())
+                .add("stats", decisions.stats())
+                .toString();
+    }
+
+    /**
+     * A configuration instance paired with the generation number that tags the decisions it makes
+     */
+    @Immutable
+    private static final class Generation {
+        private final ConfigurationBrowser configuration;
+        private final long number;
+
+        Generation(@Nullable ConfigurationBrowser configuration, long number) {
+            this.configuration = configuration;
+            this.number = number;
+        }
+    }
+
+    private enum DecisionType {
+        OPERATION, ROLE
+    }
+
+    /**
+     * The key of a cached decision. The project is absent for decisions about any project, and the subject (an
+     * operation or role identifier) is absent for decisions about any role
+     */
+    @Immutable
+    private static final class Decision {
+        private final long generation;
+        @Nonnull private final DecisionType type;
+        @Nonnull private final UserId userId;
+        @Nullable private final ProjectId projectId;
+        @Nullable private final PolicyObjectId<?> subject;
+        private final int hashCode;
+
+        Decision(long generation, @Nonnull DecisionType type, @Nonnull UserId userId, @Nullable ProjectId projectId,
+                 @Nullable PolicyObjectId<?> subject) {
+            this.generation = generation;
+            this.type = checkNotNull(type);
+            this.userId = checkNotNull(userId);
+            this.projectId = projectId;
+            this.subject = subject;
+            this.hashCode = Objects.hashCode(generation, type, userId, projectId, subject);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Decision)) {
+                return false;
+            }
+            Decision that = (Decision) o;
+            return generation == that.generation && type == that.type && hashCode == that.hashCode &&
+                    userId.equals(that.userId) && Objects.equal(projectId, that.projectId) &&
+                    Objects.equal(subject, that.subject);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
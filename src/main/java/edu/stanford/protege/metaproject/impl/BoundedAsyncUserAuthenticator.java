@@ -0,0 +1,123 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.stanford.protege.metaproject.api.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An asynchronous user authenticator that runs a synchronous authenticator on a dedicated, fixed-size pool of
+ * threads with a bounded queue. During login spikes, at most the given number of credential verifications run at
+ * once, leaving the remaining cores to other server work; once the queue is full, further attempts are rejected
+ * rather than queued without bound. Attempts with the same credentials that arrive while an identical attempt is
+ * queued or running share its outcome, instead of hashing the password again; attempts are matched by
+ * {@link Credentials}, an HMAC of the password, so that plain passwords are not kept as keys of pending attempts.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class BoundedAsyncUserAuthenticator implements AsyncUserAuthenticator, AutoCloseable {
+    @Nonnull private final UserAuthenticator authenticator;
+    @Nonnull private final ThreadPoolExecutor executor;
+    @Nonnull private final Credentials.Factory credentials = new Credentials.Factory();
+    @Nonnull private final ConcurrentMap<Credentials, CompletableFuture<AuthToken>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param authenticator Synchronous user authenticator that verifies credentials
+     * @param nrThreads Number of threads that verify credentials
+     * @param queueCapacity Maximum number of verifications waiting for a thread
+     */
+    public BoundedAsyncUserAuthenticator(@Nonnull UserAuthenticator authenticator, int nrThreads, int queueCapacity) {
+        checkArgument(nrThreads > 0, "The number of threads must be positive");
+        checkArgument(queueCapacity >= 0, "The queue capacity cannot be negative");
+        this.authenticator = checkNotNull(authenticator);
+        BlockingQueue<Runnable> queue = (queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>());
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("user-authenticator-%d")
+                .setDaemon(true)
+                .build();
+        this.executor = new ThreadPoolExecutor(nrThreads, nrThreads, 0L, TimeUnit.MILLISECONDS, queue, threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    @Nonnull
+    public CompletableFuture<AuthToken> hasValidCredentials(@Nonnull UserId userId, @Nonnull PlainPassword password) {
+        Credentials attempt = credentials.create(userId, password);
+        CompletableFuture<AuthToken> outcome = new CompletableFuture<>();
+        CompletableFuture<AuthToken> existing = inFlight.putIfAbsent(attempt, outcome);
+        if (existing != null) {
+            return copy(existing);
+        }
+        try {
+            executor.execute(() -> verify(attempt, password, outcome));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(attempt, outcome);
+            outcome.completeExceptionally(e);
+        }
+        return copy(outcome);
+    }
+
+    private void verify(Credentials attempt, PlainPassword password, CompletableFuture<AuthToken> outcome) {
+        AuthToken token = null;
+        Throwable failure = null;
+        try {
+            token = authenticator.hasValidCredentials(attempt.getUserId(), password);
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            // later attempts must verify afresh, e.g., in case the password has since been changed
+            inFlight.remove(attempt, outcome);
+        }
+        if (failure != null) {
+            outcome.completeExceptionally(failure);
+        } else {
+            outcome.complete(token);
+        }
+    }
+
+    /**
+     * Callers that share an outcome each get their own future, so that one of them cancelling its future does not
+     * affect the others
+     */
+    private static CompletableFuture<AuthToken> copy(CompletableFuture<AuthToken> outcome) {
+        return outcome.thenApply(token -> token);
+    }
+
+    /**
+     * Get the number of credential verifications that are queued or running
+     *
+     * @return Number of pending verifications
+     */
+    public int getPendingCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Stop accepting credential verifications. Verifications already queued are still carried out
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("authenticator", authenticator)
+                .add("nrThreads", executor.getMaximumPoolSize())
+                .add("queued", executor.getQueue().size())
+                .add("pending", inFlight.size())
+                .toString();
+    }
+}
@@ -0,0 +1,216 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import edu.stanford.protege.metaproject.api.AuthToken;
+import edu.stanford.protege.metaproject.api.PlainPassword;
+import edu.stanford.protege.metaproject.api.UserAuthenticator;
+import edu.stanford.protege.metaproject.api.UserId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A user authenticator that caches the outcomes of another, typically external, user authenticator (e.g., one backed
+ * by an LDAP directory), so that repeated logins, such as those of reconnecting clients, do not each reach the
+ * backend. Successful verifications are cached for the given positive time to live, and failed ones for the (usually
+ * much shorter) negative time to live; concurrent attempts with the same credentials that miss the cache share a
+ * single call to the backend. Failures of the backend are not cached.
+ *
+ * The cache is keyed by {@link Credentials}, i.e., by the user identifier and an HMAC of the password under a key
+ * generated for, and held only by, this authenticator, so that plain passwords are not kept in memory for the lifetime
+ * of cache entries.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class CachingUserAuthenticator implements UserAuthenticator {
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    @Nonnull private final UserAuthenticator authenticator;
+    @Nonnull private final Cache<Credentials, Outcome> cache;
+    @Nonnull private final Ticker ticker;
+    private final long positiveTtlNanos, negativeTtlNanos;
+    @Nonnull private final Credentials.Factory credentials = new Credentials.Factory();
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), coalesced = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param authenticator User authenticator whose outcomes are cached
+     * @param positiveTtl   Time for which successful verifications are cached
+     * @param negativeTtl   Time for which failed verifications are cached
+     * @param maximumSize   Maximum number of cached outcomes
+     * @param ticker    Time source
+     */
+    public CachingUserAuthenticator(@Nonnull UserAuthenticator authenticator, @Nonnull Duration positiveTtl,
+                                    @Nonnull Duration negativeTtl, long maximumSize, @Nonnull Ticker ticker) {
+        checkArgument(!checkNotNull(positiveTtl).isNegative(), "The positive time to live cannot be negative");
+        checkArgument(!checkNotNull(negativeTtl).isNegative(), "The negative time to live cannot be negative");
+        checkArgument(maximumSize >= 0, "The maximum cache size cannot be negative");
+        this.authenticator = checkNotNull(authenticator);
+        this.ticker = checkNotNull(ticker);
+        this.positiveTtlNanos = positiveTtl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Math.max(positiveTtlNanos, negativeTtlNanos), TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Constructor for an authenticator that caches up to 10000 outcomes
+     *
+     * @param authenticator User authenticator whose outcomes are cached
+     * @param positiveTtl   Time for which successful verifications are cached
+     * @param negativeTtl   Time for which failed verifications are cached
+     */
+    public CachingUserAuthenticator(@Nonnull UserAuthenticator authenticator, @Nonnull Duration positiveTtl, @Nonnull Duration negativeTtl) {
+        this(authenticator, positiveTtl, negativeTtl, DEFAULT_MAXIMUM_SIZE, Ticker.systemTicker());
+    }
+
+    @Override
+    @Nonnull
+    public AuthToken hasValidCredentials(@Nonnull UserId userId, @Nonnull PlainPassword password) {
+        Credentials credentials = this.credentials.create(userId, password);
+        Outcome outcome = cache.getIfPresent(credentials);
+        if (outcome != null) {
+            if (!outcome.isExpired(ticker.read())) {
+                hits.increment();
+                return outcome.token;
+            }
+            cache.asMap().remove(credentials, outcome);
+        }
+        boolean[] loaded = new boolean[1];
+        try {
+            outcome = cache.get(credentials, () -> {
+                loaded[0] = true;
+                return verify(userId, password);
+            });
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwables.propagateIfPossible(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+        if (loaded[0]) {
+            misses.increment();
+        } else {
+            coalesced.increment();
+        }
+        return outcome.token;
+    }
+
+    private Outcome verify(UserId userId, PlainPassword password) {
+        AuthToken token = checkNotNull(authenticator.hasValidCredentials(userId, password));
+        return new Outcome(token, ticker.read() + (token.isAuthorized() ? positiveTtlNanos : negativeTtlNanos));
+    }
+
+    /**
+     * Discard the cached outcomes for the given user, e.g., after the user's password has been changed
+     *
+     * @param userId    User identifier
+     */
+    public void invalidate(@Nonnull UserId userId) {
+        checkNotNull(userId);
+        cache.asMap().keySet().removeIf(credentials -> credentials.getUserId().equals(userId));
+    }
+
+    /**
+     * Discard all cached outcomes
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Get the number of verifications answered from the cache
+     *
+     * @return Number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of verifications passed on to the backend authenticator
+     *
+     * @return Number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of verifications that missed the cache but shared the outcome of an identical verification
+     * already in progress, and so did not reach the backend authenticator
+     *
+     * @return Number of coalesced verifications
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Get the fraction of verifications that did not reach the backend authenticator, that is, that were either
+     * answered from the cache or coalesced, or 1.0 if there have been no verifications
+     *
+     * @return Hit rate
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum() + coalesced.sum(), requestCount = hitCount + misses.sum();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Get the number of cached outcomes, some of which may have expired
+     *
+     * @return Number of cached outcomes
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("authenticator", authenticator)
+                .add("positiveTtl", Duration.ofNanos(positiveTtlNanos))
+                .add("negativeTtl", Duration.ofNanos(negativeTtlNanos))
+                .add("hits", hits.sum())
+                .add("misses", misses.sum())
+                .add("coalesced", coalesced.sum())
+                .toString();
+    }
+
+    /**
+     * The outcome of a verification, along with the time at which it should no longer be used
+     */
+    @Immutable
+    private static final class Outcome {
+        @Nonnull private final AuthToken token;
+        private final long expiresAt;
+
+        Outcome(@Nonnull AuthToken token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
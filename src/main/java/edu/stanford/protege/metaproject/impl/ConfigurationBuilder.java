@@ -1,13 +1,19 @@
 package edu.stanford.protege.metaproject.impl;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
 import edu.stanford.protege.metaproject.ConfigurationManager;
 import edu.stanford.protege.metaproject.api.*;
 import edu.stanford.protege.metaproject.api.exception.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.*;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -22,35 +28,113 @@ public class ConfigurationBuilder {
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationBuilder.class.getName());
     private Host host = ConfigurationUtils.getServerHost();
     private File root = ConfigurationUtils.getServerRoot();
-    private Map<UserId, Map<ProjectId, Set<RoleId>>> policyMap = ConfigurationUtils.getDefaultPolicy();
-    private Set<Role> roles = ConfigurationUtils.getDefaultRoles();
-    private Set<Operation> operations = ConfigurationUtils.getDefaultOperations();
-    private Set<User> users = ConfigurationUtils.getDefaultUsers();
-    private Set<Project> projects = ConfigurationUtils.getDefaultProjects();
-    private Set<AuthenticationDetails> authDetails = ConfigurationUtils.getDefaultAuthenticationDetails();
+    // the policy is an immutable table, shared with configurations, overlaid with modifiable copies of the role
+    // assignments of the users whose assignments the builder changed
+    private PolicyTable policy = PolicyTable.EMPTY;
+    private Map<UserId, Map<ProjectId, Set<RoleId>>> policyChanges = new HashMap<>();
+    // registries of the configuration elements by identifier, in insertion order
+    private Map<RoleId, Role> roles = new LinkedHashMap<>();
+    private Map<OperationId, Operation> operations = new LinkedHashMap<>();
+    private Map<UserId, User> users = new LinkedHashMap<>();
+    private Map<ProjectId, Project> projects = new LinkedHashMap<>();
+    private Map<UserId, AuthenticationDetails> authDetails = new LinkedHashMap<>();
     private Map<String,String> properties = new HashMap<>();
     private PolicyFactory factory = ConfigurationManager.getFactory();
 
+    // the configuration this builder was derived from, whose indexes are reused for the collections left unchanged
+    private ServerConfigurationImpl base;
+
+    // reverse index of the roles' operations, built when first needed and then kept in sync by every mutator; the
+    // users assigned a project or a role are found through the indexes of the policy table instead
+    private SetMultimap<OperationId, RoleId> operationRoles;
+
+    /**
+     * No-arguments constructor; the builder starts out with the default users, projects, roles, operations,
+     * authentication details and policy
+     */
+    public ConfigurationBuilder() {
+        this(true);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param useDefaults   true if the builder should start out with the default configuration elements, false if
+     *                      it should start out with an empty configuration
+     */
+    private ConfigurationBuilder(boolean useDefaults) {
+        if(useDefaults) {
+            policy = PolicyTable.of(ConfigurationUtils.getDefaultPolicy());
+            roles = register(ConfigurationUtils.getDefaultRoles(), Role::getId);
+            operations = register(ConfigurationUtils.getDefaultOperations(), Operation::getId);
+            users = register(ConfigurationUtils.getDefaultUsers(), User::getId);
+            projects = register(ConfigurationUtils.getDefaultProjects(), Project::getId);
+            authDetails = register(ConfigurationUtils.getDefaultAuthenticationDetails(), AuthenticationDetails::getUserId);
+        }
+    }
+
     /**
-     * No-arguments constructor
+     * Get a builder that starts out with an empty configuration, that is, without the default users, projects, roles,
+     * operations, authentication details and policy. This is meant for loading or copying configurations, where all
+     * elements are set explicitly, so there is no point in computing the defaults
+     *
+     * @return ServerConfigurationBuilder
      */
-    public ConfigurationBuilder() { }
+    public static ConfigurationBuilder getEmptyBuilder() {
+        return new ConfigurationBuilder(false);
+    }
 
     /**
-     * Constructor that reuses the given server configuration
+     * Constructor that reuses the given server configuration. The builder shares the (immutable) collections of the
+     * configuration, and copies each one only when it is first modified; those left unchanged, along with their
+     * indexes, are shared in turn by the configurations the builder creates
      *
      * @param config   Server configuration
      */
     public ConfigurationBuilder(ServerConfiguration config) {
         this.host = checkNotNull(config.getHost());
         this.root = checkNotNull(config.getServerRoot());
-        this.policyMap = new HashMap<>(checkNotNull(config.getPolicyMap()));
-        this.roles = new HashSet<>(checkNotNull(config.getRoles()));
-        this.operations = new HashSet<>(checkNotNull(config.getOperations()));
-        this.users = new HashSet<>(checkNotNull(config.getUsers()));
-        this.projects = new HashSet<>(checkNotNull(config.getProjects()));
-        this.authDetails = new HashSet<>(checkNotNull(config.getAuthenticationDetails()));
-        this.properties = new HashMap<>(checkNotNull(config.getProperties()));
+        adopt(config);
+    }
+
+    private void adopt(ServerConfiguration config) {
+        if(!policyChanges.isEmpty()) {
+            policyChanges = new HashMap<>();
+        }
+        this.properties = checkNotNull(config.getProperties());
+        if(config instanceof ServerConfigurationImpl) {
+            base = (ServerConfigurationImpl) config;
+            policy = base.policy();
+            roles = base.roleIndex();
+            operations = base.operationIndex();
+            users = base.userIndex();
+            projects = base.projectIndex();
+            authDetails = base.authDetailsIndex();
+        } else {
+            base = null;
+            policy = PolicyTable.of(config.getPolicyMap());
+            roles = register(config.getRoles(), Role::getId);
+            operations = register(config.getOperations(), Operation::getId);
+            users = register(config.getUsers(), User::getId);
+            projects = register(config.getProjects(), Project::getId);
+            authDetails = register(config.getAuthenticationDetails(), AuthenticationDetails::getUserId);
+        }
+    }
+
+    /**
+     * Register the given elements by their identifiers. If two elements share the same identifier, the first one found
+     * is registered, as in the indexes of a server configuration
+     *
+     * @param elements  Collection of elements
+     * @param id    Function that obtains the identifier of an element
+     * @return Map of identifiers to elements
+     */
+    private static <K, V> Map<K, V> register(Collection<V> elements, Function<V, K> id) {
+        Map<K, V> registry = new LinkedHashMap<>();
+        for(V element : checkNotNull(elements)) {
+            registry.putIfAbsent(id.apply(element), element);
+        }
+        return registry;
     }
 
     /**
@@ -82,7 +166,8 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder setPolicyMap(Map<UserId, Map<ProjectId, Set<RoleId>>> policyMap) {
-        this.policyMap = new HashMap<>(policyMap);
+        this.policy = PolicyTable.of(policyMap);
+        this.policyChanges = new HashMap<>();
         return this;
     }
 
@@ -93,7 +178,8 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder setRoles(Set<Role> roles) {
-        this.roles = new HashSet<>(roles);
+        this.roles = register(roles, Role::getId);
+        operationRoles = null;
         return this;
     }
 
@@ -104,7 +190,7 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder setOperations(Set<Operation> operations) {
-        this.operations = new HashSet<>(operations);
+        this.operations = register(operations, Operation::getId);
         return this;
     }
 
@@ -115,7 +201,7 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder setUsers(Set<User> users) {
-        this.users = new HashSet<>(users);
+        this.users = register(users, User::getId);
         return this;
     }
 
@@ -126,7 +212,7 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder setProjects(Set<Project> projects) {
-        this.projects = new HashSet<>(projects);
+        this.projects = register(projects, Project::getId);
         return this;
     }
 
@@ -137,7 +223,7 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder setAuthenticationDetails(Set<AuthenticationDetails> authDetails) {
-        this.authDetails = new HashSet<>(authDetails);
+        this.authDetails = register(authDetails, AuthenticationDetails::getUserId);
         return this;
     }
 
@@ -165,7 +251,7 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder addProperty(String key, String value) {
         checkNotNull(key);
         checkNotNull(value);
-        properties.put(key, value);
+        writableProperties().put(key, value);
         return this;
     }
 
@@ -177,7 +263,7 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder removeProperty(String key) {
         checkNotNull(key);
-        properties.remove(key);
+        writableProperties().remove(key);
         return this;
     }
 
@@ -193,10 +279,10 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder addUser(User user) throws IdAlreadyInUseException {
         checkNotNull(user);
-        if (contains(user.getId(), users)) {
+        if (users.containsKey(user.getId())) {
             throw new IdAlreadyInUseException("The specified user identifier is already used by another user");
         }
-        users.add(user);
+        writableUsers().put(user.getId(), user);
         return this;
     }
 
@@ -208,10 +294,27 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder removeUser(User user) {
         checkNotNull(user);
-        users.remove(user);
+        if (user.equals(users.get(user.getId()))) {
+            writableUsers().remove(user.getId());
+        }
         return this;
     }
 
+    /**
+     * Remove the user with the given identifier from the configuration, along with the user's role assignments in
+     * the access control policy and the user's authentication details
+     *
+     * @param userId    User identifier
+     * @return ServerConfigurationBuilder
+     */
+    public ConfigurationBuilder removeUserCascading(UserId userId) {
+        checkNotNull(userId);
+        if (users.containsKey(userId)) {
+            writableUsers().remove(userId);
+        }
+        return unregisterUser(userId).removePolicy(userId);
+    }
+
     /**
      * Modify the user that has the specified user identifier with the given user
      *
@@ -222,12 +325,14 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder setUser(UserId userId, User user) {
         checkNotNull(userId);
         checkNotNull(user);
-        getUser(userId).ifPresent(this::removeUser);
-        try {
-            addUser(user);
-        } catch (IdAlreadyInUseException e) {
+        if (!userId.equals(user.getId()) && users.containsKey(user.getId())) {
             logger.debug("Attempted to replace a user but the original user instance was not properly deleted beforehand");
+            return this;
         }
+        if (!userId.equals(user.getId())) {
+            writableUsers().remove(userId);
+        }
+        writableUsers().put(user.getId(), user);
         return this;
     }
 
@@ -259,13 +364,8 @@ public class ConfigurationBuilder {
         return this;
     }
 
-    private Optional<User> getUser(UserId userId) {
-        for(User u : users) {
-            if(u.getId().equals(userId)) {
-                return Optional.of(u);
-            }
-        }
-        return Optional.empty();
+    Optional<User> getUser(UserId userId) {
+        return Optional.ofNullable(users.get(userId));
     }
 
 
@@ -280,10 +380,10 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder addProject(Project project) throws IdAlreadyInUseException {
         checkNotNull(project);
-        if (projects.contains(project)) {
+        if (projects.containsKey(project.getId())) {
             throw new IdAlreadyInUseException("The specified project identifier is already used by another project");
         }
-        projects.add(project);
+        writableProjects().put(project.getId(), project);
         return addPolicy(project.getOwner(), project.getId(), ConfigurationUtils.getProjectManagerRole().getId());
     }
 
@@ -295,10 +395,27 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder removeProject(Project project) {
         checkNotNull(project);
-        projects.remove(project);
+        if (project.equals(projects.get(project.getId()))) {
+            writableProjects().remove(project.getId());
+        }
         return this;
     }
 
+    /**
+     * Remove the project with the given identifier from the configuration, along with all users' role assignments
+     * in that project
+     *
+     * @param projectId Project identifier
+     * @return ServerConfigurationBuilder
+     */
+    public ConfigurationBuilder removeProjectCascading(ProjectId projectId) {
+        checkNotNull(projectId);
+        if (projects.containsKey(projectId)) {
+            writableProjects().remove(projectId);
+        }
+        return removePolicy(projectId);
+    }
+
     /**
      * Modify the project with the specified project identifier with the given project
      *
@@ -309,13 +426,15 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder setProject(ProjectId projectId, Project project) {
         checkNotNull(projectId);
         checkNotNull(project);
-        getProject(projectId).ifPresent(this::removeProject);
-        try {
-            addProject(project);
-        } catch (IdAlreadyInUseException e) {
+        if (!projectId.equals(project.getId()) && projects.containsKey(project.getId())) {
             logger.debug("Attempted to replace a project but the original project instance was not properly deleted beforehand");
+            return this;
         }
-        return this;
+        if (!projectId.equals(project.getId())) {
+            writableProjects().remove(projectId);
+        }
+        writableProjects().put(project.getId(), project);
+        return addPolicy(project.getOwner(), project.getId(), ConfigurationUtils.getProjectManagerRole().getId());
     }
 
     /**
@@ -393,13 +512,8 @@ public class ConfigurationBuilder {
         return this;
     }
 
-    private Optional<Project> getProject(ProjectId projectId) {
-        for(Project p : projects) {
-            if(p.getId().equals(projectId)) {
-                return Optional.of(p);
-            }
-        }
-        return Optional.empty();
+    Optional<Project> getProject(ProjectId projectId) {
+        return Optional.ofNullable(projects.get(projectId));
     }
 
 
@@ -414,10 +528,10 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder addRole(Role role) throws IdAlreadyInUseException {
         checkNotNull(role);
-        if (contains(role.getId(), roles)) {
+        if (roles.containsKey(role.getId())) {
             throw new IdAlreadyInUseException("The specified role identifier is already used in another role");
         }
-        roles.add(role);
+        putRole(role);
         return this;
     }
 
@@ -429,10 +543,27 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder removeRole(Role role) {
         checkNotNull(role);
-        roles.remove(role);
+        if(role.equals(roles.get(role.getId()))) {
+            unindexOperations(writableRoles().remove(role.getId()));
+        }
         return this;
     }
 
+    /**
+     * Remove the role with the given identifier from the configuration, along with all users' assignments of that
+     * role in the access control policy
+     *
+     * @param roleId    Role identifier
+     * @return ServerConfigurationBuilder
+     */
+    public ConfigurationBuilder removeRoleCascading(RoleId roleId) {
+        checkNotNull(roleId);
+        if (roles.containsKey(roleId)) {
+            unindexOperations(writableRoles().remove(roleId));
+        }
+        return removePolicy(roleId);
+    }
+
     /**
      * Modify the role that has the specified role identifier with the given role
      *
@@ -443,12 +574,15 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder setRole(RoleId roleId, Role role) {
         checkNotNull(roleId);
         checkNotNull(role);
-        getRole(roleId).ifPresent(this::removeRole);
-        try {
-            addRole(role);
-        } catch (IdAlreadyInUseException e) {
+        if (!roleId.equals(role.getId()) && roles.containsKey(role.getId())) {
             logger.debug("Attempted to replace a role but the original role instance was not properly deleted beforehand");
+            return this;
         }
+        Role previous = writableRoles().remove(roleId);
+        if (previous != null) {
+            unindexOperations(previous);
+        }
+        putRole(role);
         return this;
     }
 
@@ -520,13 +654,24 @@ public class ConfigurationBuilder {
         return this;
     }
 
-    private Optional<Role> getRole(RoleId roleId) {
-        for(Role r : roles) {
-            if(r.getId().equals(roleId)) {
-                return Optional.of(r);
-            }
+    Optional<Role> getRole(RoleId roleId) {
+        return Optional.ofNullable(roles.get(roleId));
+    }
+
+    private void putRole(Role role) {
+        Role previous = writableRoles().put(role.getId(), role);
+        if (previous != null) {
+            unindexOperations(previous);
+        }
+        for(OperationId operationId : role.getOperations()) {
+            operationRoles().put(operationId, role.getId());
+        }
+    }
+
+    private void unindexOperations(Role role) {
+        for(OperationId operationId : role.getOperations()) {
+            operationRoles().remove(operationId, role.getId());
         }
-        return Optional.empty();
     }
 
 
@@ -541,10 +686,10 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder addOperation(Operation operation) throws IdAlreadyInUseException {
         checkNotNull(operation);
-        if (contains(operation.getId(), operations)) {
+        if (operations.containsKey(operation.getId())) {
             throw new IdAlreadyInUseException("The specified operation identifier is already used by another operation");
         }
-        operations.add(operation);
+        writableOperations().put(operation.getId(), operation);
         return this;
     }
 
@@ -556,10 +701,27 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder removeOperation(Operation operation) {
         checkNotNull(operation);
-        operations.remove(operation);
+        if (operation.equals(operations.get(operation.getId()))) {
+            writableOperations().remove(operation.getId());
+        }
         return this;
     }
 
+    /**
+     * Remove the operation with the given identifier from the configuration, and from the permitted operations of
+     * every role
+     *
+     * @param operationId   Operation identifier
+     * @return ServerConfigurationBuilder
+     */
+    public ConfigurationBuilder removeOperationCascading(OperationId operationId) {
+        checkNotNull(operationId);
+        if (operations.containsKey(operationId)) {
+            writableOperations().remove(operationId);
+        }
+        return removePolicy(operationId);
+    }
+
     /**
      * Modify the operation that has the specified identifier with the given operation
      *
@@ -570,12 +732,14 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder setOperation(OperationId operationId, Operation operation) {
         checkNotNull(operationId);
         checkNotNull(operation);
-        getOperation(operationId).ifPresent(this::removeOperation);
-        try {
-            addOperation(operation);
-        } catch (IdAlreadyInUseException e) {
+        if (!operationId.equals(operation.getId()) && operations.containsKey(operation.getId())) {
             logger.debug("Attempted to replace an operation but the original operation instance was not properly deleted beforehand");
+            return this;
         }
+        if (!operationId.equals(operation.getId())) {
+            writableOperations().remove(operationId);
+        }
+        writableOperations().put(operation.getId(), operation);
         return this;
     }
 
@@ -619,20 +783,16 @@ public class ConfigurationBuilder {
         return this;
     }
 
-    private Optional<Operation> getOperation(OperationId operationId) {
-        for(Operation o : operations) {
-            if(o.getId().equals(operationId)) {
-                return Optional.of(o);
-            }
-        }
-        return Optional.empty();
+    Optional<Operation> getOperation(OperationId operationId) {
+        return Optional.ofNullable(operations.get(operationId));
     }
 
 
     /* policy */
 
     /**
-     * Add a user to the access control policy with the specified role(s) in the given project
+     * Add a user to the access control policy with the specified role(s) in the given project. If no roles are given,
+     * the policy is left unchanged, since users with no roles in a project are not kept in the policy
      *
      * @param userId    User identifier
      * @param projectId    Project identifier
@@ -642,26 +802,11 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder addPolicy(UserId userId, ProjectId projectId, RoleId... roleIds) {
         checkNotNull(userId);
         checkNotNull(projectId);
-        if (policyMap.containsKey(userId)) {
-            // getProject {project -> roles} assignments for this user
-            Map<ProjectId, Set<RoleId>> projectRoleMap = policyMap.get(userId);
-            if (projectRoleMap.containsKey(projectId)) {
-                Set<RoleId> roles = projectRoleMap.get(projectId);
-                Collections.addAll(roles, roleIds);
-                projectRoleMap.put(projectId, roles);
-            } else {
-                Set<RoleId> roles = new HashSet<>();
-                Collections.addAll(roles, roleIds);
-                projectRoleMap.put(projectId, roles);
-            }
-            policyMap.put(userId, projectRoleMap);
-        } else {
-            Set<RoleId> roles = new HashSet<>();
-            Collections.addAll(roles, roleIds);
-            Map<ProjectId, Set<RoleId>> map = new HashMap<>();
-            map.put(projectId, roles);
-            policyMap.put(userId, map);
+        if(hasRoles(userId, projectId, roleIds)) {
+            return this; // nothing to add, so leave the policy (and its indexes) shared
         }
+        Set<RoleId> roles = writableAssignments(userId).computeIfAbsent(projectId, k -> new HashSet<>());
+        Collections.addAll(roles, roleIds);
         return this;
     }
 
@@ -674,18 +819,15 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder removePolicy(UserId userId, ProjectId projectId, RoleId roleId) {
-        Map<ProjectId, Set<RoleId>> map = policyMap.get(userId);
+        if(!hasRoles(userId, projectId, roleId)) {
+            return this;
+        }
+        Map<ProjectId, Set<RoleId>> map = writableAssignments(userId);
         Set<RoleId> roles = map.get(projectId);
         roles.remove(roleId);
         if (roles.isEmpty()) {
             map.remove(projectId);
-            if(map.isEmpty()) {
-                policyMap.remove(userId);
-            }
-        } else {
-            map.put(projectId, roles);
         }
-        policyMap.put(userId, map);
         return this;
     }
 
@@ -697,9 +839,10 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder removePolicy(UserId userId, ProjectId projectId) {
-        Map<ProjectId,Set<RoleId>> roleAssignments = policyMap.get(userId);
-        roleAssignments.remove(projectId);
-        policyMap.put(userId, roleAssignments);
+        if(!assignments(userId).containsKey(projectId)) {
+            return this;
+        }
+        writableAssignments(userId).remove(projectId);
         return this;
     }
 
@@ -710,7 +853,10 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder removePolicy(UserId userId) {
-        policyMap.remove(userId);
+        Map<ProjectId, Set<RoleId>> roleAssignments = assignments(userId);
+        if(!roleAssignments.isEmpty()) {
+            policyChanges.put(userId, new HashMap<>());
+        }
         return this;
     }
 
@@ -721,19 +867,15 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder removePolicy(RoleId roleId) {
-        Map<UserId, Map<ProjectId,Set<RoleId>>> toUpdate = new HashMap<>();
-        for(UserId userId : policyMap.keySet()) {
-            Map<ProjectId,Set<RoleId>> roleAssignments = policyMap.get(userId);
-            for(ProjectId projectId : roleAssignments.keySet()) {
-                if(roleAssignments.get(projectId).contains(roleId)) {
-                    Set<RoleId> roleIds = roleAssignments.get(projectId);
-                    roleIds.remove(roleId);
-                    roleAssignments.put(projectId, roleIds);
+        for(UserId userId : getAssignees(roleId)) {
+            Iterator<Set<RoleId>> assignments = writableAssignments(userId).values().iterator();
+            while(assignments.hasNext()) {
+                Set<RoleId> roleIds = assignments.next();
+                if(roleIds.remove(roleId) && roleIds.isEmpty()) {
+                    assignments.remove();
                 }
             }
-            toUpdate.put(userId, roleAssignments);
         }
-        policyMap.putAll(toUpdate);
         return this;
     }
 
@@ -744,13 +886,9 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder removePolicy(ProjectId projectId) {
-        Map<UserId, Map<ProjectId,Set<RoleId>>> toUpdate = new HashMap<>();
-        for(UserId userId : policyMap.keySet()) {
-            Map<ProjectId, Set<RoleId>> roleAssignments = policyMap.get(userId);
-            roleAssignments.remove(projectId);
-            toUpdate.put(userId, roleAssignments);
+        for(UserId userId : getAssignees(projectId)) {
+            writableAssignments(userId).remove(projectId);
         }
-        policyMap.putAll(toUpdate);
         return this;
     }
 
@@ -761,18 +899,71 @@ public class ConfigurationBuilder {
      * @return ServerConfigurationBuilder
      */
     public ConfigurationBuilder removePolicy(OperationId operationId) {
-        Set<RoleId> roleIds = new HashSet<>();
-        for(Role r : roles) {
-            if(r.getOperations().contains(operationId)) {
-                roleIds.add(r.getId());
-            }
-        }
-        for(RoleId roleId : roleIds) {
+        for(RoleId roleId : new ArrayList<>(operationRoles().get(operationId))) {
             removeOperationFromRole(roleId, operationId);
         }
         return this;
     }
 
+    /**
+     * Get the users with roles in the given project, using the index of the policy table for the users whose role
+     * assignments are unchanged, so that the cost does not depend on the size of the whole policy
+     *
+     * @param projectId Project identifier
+     * @return Set of user identifiers
+     */
+    private Set<UserId> getAssignees(ProjectId projectId) {
+        Set<UserId> userIds = new HashSet<>();
+        for(UserId userId : policy.getUserIds(projectId)) {
+            if(!policyChanges.containsKey(userId)) {
+                userIds.add(userId);
+            }
+        }
+        for(Map.Entry<UserId, Map<ProjectId, Set<RoleId>>> entry : policyChanges.entrySet()) {
+            if(entry.getValue().containsKey(projectId)) {
+                userIds.add(entry.getKey());
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Get the users assigned the given role in some project, using the index of the policy table for the users whose
+     * role assignments are unchanged, so that the cost does not depend on the size of the whole policy
+     *
+     * @param roleId    Role identifier
+     * @return Set of user identifiers
+     */
+    private Set<UserId> getAssignees(RoleId roleId) {
+        Set<UserId> userIds = new HashSet<>();
+        for(UserId userId : policy.getUserIds(roleId)) {
+            if(!policyChanges.containsKey(userId)) {
+                userIds.add(userId);
+            }
+        }
+        for(Map.Entry<UserId, Map<ProjectId, Set<RoleId>>> entry : policyChanges.entrySet()) {
+            for(Set<RoleId> roleIds : entry.getValue().values()) {
+                if(roleIds.contains(roleId)) {
+                    userIds.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        return userIds;
+    }
+
+    private SetMultimap<OperationId, RoleId> operationRoles() {
+        if(operationRoles == null) {
+            operationRoles = HashMultimap.create();
+            for(Role role : roles.values()) {
+                for(OperationId operationId : role.getOperations()) {
+                    operationRoles.put(operationId, role.getId());
+                }
+            }
+        }
+        return operationRoles;
+    }
+
 
     /* authentication */
 
@@ -787,10 +978,10 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder registerUser(UserId userId, SaltedPasswordDigest password) throws IdAlreadyInUseException {
         checkNotNull(userId);
         checkNotNull(password);
-        if(isRegistered(userId)) {
+        if(authDetails.containsKey(userId)) {
             throw new IdAlreadyInUseException("The specified user is already registered with the authentication manager. Recover or change the password.");
         }
-        authDetails.add(factory.getAuthenticationDetails(userId, password));
+        writableAuthDetails().put(userId, factory.getAuthenticationDetails(userId, password));
         return this;
     }
 
@@ -802,7 +993,9 @@ public class ConfigurationBuilder {
      */
     public ConfigurationBuilder unregisterUser(UserId userId) {
         checkNotNull(userId);
-        getAuthenticationDetails(userId).ifPresent(details -> authDetails.remove(details));
+        if(authDetails.containsKey(userId)) {
+            writableAuthDetails().remove(userId);
+        }
         return this;
     }
 
@@ -816,47 +1009,180 @@ public class ConfigurationBuilder {
     public ConfigurationBuilder changePassword(UserId userId, SaltedPasswordDigest password) {
         checkNotNull(userId);
         checkNotNull(password);
-        unregisterUser(userId);
-        authDetails.add(factory.getAuthenticationDetails(userId, password));
+        writableAuthDetails().put(userId, factory.getAuthenticationDetails(userId, password));
         return this;
     }
 
-    private boolean isRegistered(UserId userId) {
-        for(AuthenticationDetails details : authDetails) {
-            if(details.getUserId().equals(userId)) {
-                return true;
-            }
+    /**
+     * Add the given users to the configuration and register their authentication details in one step. Either all
+     * users are added or, if some user identifier or (non-empty) email address is already in use, whether in the
+     * configuration or among the given users, none is
+     *
+     * @param registrations Map of new users to their passwords
+     * @throws IdAlreadyInUseException  User identifier or email address already in use
+     * @return ServerConfigurationBuilder
+     */
+    public ConfigurationBuilder addRegisteredUsers(Map<User, SaltedPasswordDigest> registrations) throws IdAlreadyInUseException {
+        checkNotNull(registrations);
+        checkNewUsers(registrations.keySet());
+        for (Map.Entry<User, SaltedPasswordDigest> registration : registrations.entrySet()) {
+            UserId userId = registration.getKey().getId();
+            writableUsers().put(userId, registration.getKey());
+            writableAuthDetails().put(userId, factory.getAuthenticationDetails(userId, checkNotNull(registration.getValue())));
         }
-        return false;
+        return this;
     }
 
-    private Optional<AuthenticationDetails> getAuthenticationDetails(UserId userId) {
-        checkNotNull(userId);
-        for(AuthenticationDetails detail : authDetails) {
-            if(detail.getUserId().equals(userId)) {
-                return Optional.of(detail);
+    /**
+     * Check that the identifiers and (non-empty) email addresses of the given users are neither in use in the
+     * configuration nor shared among the given users. The email addresses in use are indexed once, so checking a
+     * large batch of users costs time linear in the size of the batch and of the configuration
+     *
+     * @param newUsers  New users
+     * @throws IdAlreadyInUseException  User identifier or email address already in use
+     */
+    void checkNewUsers(Collection<User> newUsers) throws IdAlreadyInUseException {
+        Set<UserId> userIds = new HashSet<>();
+        Set<String> emailAddresses = new HashSet<>();
+        for (User user : users.values()) {
+            emailAddresses.add(ServerConfigurationImpl.normalize(user.getEmailAddress()));
+        }
+        for (User user : newUsers) {
+            UserId userId = checkNotNull(user).getId();
+            if (users.containsKey(userId) || authDetails.containsKey(userId) || !userIds.add(userId)) {
+                throw new IdAlreadyInUseException("The user identifier '" + user.getId().get() + "' is already used by another user");
+            }
+            String emailAddress = ServerConfigurationImpl.normalize(user.getEmailAddress());
+            if (!emailAddress.isEmpty() && !emailAddresses.add(emailAddress)) {
+                throw new IdAlreadyInUseException("The email address '" + user.getEmailAddress().get() + "' is already used by another user");
             }
         }
-        return Optional.empty();
     }
 
-    private <E extends PolicyObjectId, T extends PolicyObject> boolean contains(E id, Set<T> elements) {
-        checkNotNull(id);
-        checkNotNull(elements);
-        for(T element : elements) {
-            if(element.getId().equals(id)) {
-                return true;
+    /* changes */
+
+    /**
+     * Apply the given changes, in order, as one unit. The whole batch is validated against the identifiers in use
+     * before any change is applied, so either all changes are applied or, if some change cannot be applied (e.g., it
+     * adds an element whose identifier is already in use, or refers to an unknown element, including one removed
+     * earlier in the batch), the builder is left as it was
+     *
+     * @param changes   List of changes
+     * @throws ConfigurationException   Some change cannot be applied
+     * @return ServerConfigurationBuilder
+     */
+    public ConfigurationBuilder applyAll(List<ConfigurationChange> changes) throws ConfigurationException {
+        checkNotNull(changes);
+        ConfigurationChange.Validator validator = new ConfigurationChange.Validator(users.keySet(), projects.keySet(),
+                roles.keySet(), operations.keySet(), authDetails.keySet());
+        for(ConfigurationChange change : changes) {
+            checkNotNull(change).validate(validator);
+        }
+        for(ConfigurationChange change : changes) {
+            change.applyTo(this);
+        }
+        return this;
+    }
+
+    /*
+     * The registries of a builder derived from a server configuration are the configuration's own immutable indexes
+     * until first modified, at which point the builder copies them
+     */
+
+    private Map<ProjectId, Set<RoleId>> assignments(UserId userId) {
+        Map<ProjectId, Set<RoleId>> assignments = policyChanges.get(userId);
+        return (assignments != null ? assignments : policy.getAssignments(userId));
+    }
+
+    private Map<ProjectId, Set<RoleId>> writableAssignments(UserId userId) {
+        return policyChanges.computeIfAbsent(userId, policy::getModifiableAssignments);
+    }
+
+    private boolean hasRoles(UserId userId, ProjectId projectId, RoleId... roleIds) {
+        Map<ProjectId, Set<RoleId>> assignments = policyChanges.get(userId);
+        if(assignments == null) {
+            for(RoleId roleId : roleIds) {
+                if(!policy.contains(userId, projectId, roleId)) {
+                    return false;
+                }
             }
+            return true;
         }
-        return false;
+        Set<RoleId> assigned = assignments.get(projectId);
+        return assigned != null && assigned.containsAll(Arrays.asList(roleIds));
+    }
+
+    private Map<RoleId, Role> writableRoles() {
+        if(roles instanceof ImmutableMap) {
+            roles = new LinkedHashMap<>(roles);
+        }
+        return roles;
+    }
+
+    private Map<OperationId, Operation> writableOperations() {
+        if(operations instanceof ImmutableMap) {
+            operations = new LinkedHashMap<>(operations);
+        }
+        return operations;
+    }
+
+    private Map<UserId, User> writableUsers() {
+        if(users instanceof ImmutableMap) {
+            users = new LinkedHashMap<>(users);
+        }
+        return users;
+    }
+
+    private Map<ProjectId, Project> writableProjects() {
+        if(projects instanceof ImmutableMap) {
+            projects = new LinkedHashMap<>(projects);
+        }
+        return projects;
+    }
+
+    private Map<UserId, AuthenticationDetails> writableAuthDetails() {
+        // until modified, the registry is the base configuration's view of its authentication store
+        if(base != null && authDetails == base.authDetailsIndex()) {
+            authDetails = new LinkedHashMap<>(authDetails);
+        }
+        return authDetails;
+    }
+
+    private Map<String,String> writableProperties() {
+        if(properties instanceof ImmutableMap) {
+            properties = new HashMap<>(properties);
+        }
+        return properties;
     }
 
     /**
-     * Create a server configuration instance
+     * Create a server configuration with the current state of the builder. Collections left unchanged since the
+     * builder was derived from a configuration (or since the last configuration was created) are shared with that
+     * configuration, along with their indexes, rather than copied and indexed again
      *
      * @return Server configuration
      */
     public ServerConfiguration createServerConfiguration() {
-        return new ServerConfigurationImpl(host, root, policyMap, users, projects, roles, operations, authDetails, properties);
+        ServerConfigurationImpl config = new ServerConfigurationImpl(host, root,
+                (policyChanges.isEmpty() ? policy : policy.with(policyChanges)),
+                values(users, base == null ? null : base.userIndex(), base == null ? null : base.getUsers()),
+                values(projects, base == null ? null : base.projectIndex(), base == null ? null : base.getProjects()),
+                values(roles, base == null ? null : base.roleIndex(), base == null ? null : base.getRoles()),
+                values(operations, base == null ? null : base.operationIndex(), base == null ? null : base.getOperations()),
+                values(authDetails, base == null ? null : base.authDetailsIndex(), base == null ? null : base.getAuthenticationDetails()),
+                properties, base);
+        adopt(config);
+        return config;
+    }
+
+    /**
+     * Get the elements of a registry, which are the given configuration's own set of elements if the registry is
+     * still that configuration's index of them
+     */
+    private static <K, V> Set<V> values(Map<K, V> registry, @Nullable Map<K, V> baseIndex, @Nullable Set<V> baseValues) {
+        if(registry == baseIndex) {
+            return baseValues;
+        }
+        return ImmutableSet.copyOf(registry.values());
     }
 }
@@ -0,0 +1,614 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A change to a server configuration: the addition, removal or modification of a user, project, role or operation,
+ * the registration, unregistration or change of password of a user, or the addition or removal of a role assignment
+ * (a user having a role in a project). Changes are immutable values, so they can be batched, logged, replayed or sent
+ * elsewhere, and a batch of changes is applied to a builder all at once with
+ * {@link ConfigurationBuilder#applyAll(List)}. A modification never changes the identifier of an element, since the
+ * role assignments and authentication details kept under that identifier would not follow it
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+public abstract class ConfigurationChange {
+
+    /**
+     * The kind of change
+     */
+    public enum Action {
+        ADD, REMOVE, MODIFY
+    }
+
+    /**
+     * The part of the configuration that a change affects
+     */
+    public enum Target {
+        USER, PROJECT, ROLE, OPERATION, AUTHENTICATION_DETAILS, POLICY
+    }
+
+    @Nonnull private final Action action;
+    @Nonnull private final Target target;
+
+    private ConfigurationChange(@Nonnull Action action, @Nonnull Target target) {
+        this.action = checkNotNull(action);
+        this.target = checkNotNull(target);
+    }
+
+    /**
+     * Get the kind of change
+     *
+     * @return Action
+     */
+    @Nonnull
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * Get the part of the configuration that the change affects
+     *
+     * @return Target
+     */
+    @Nonnull
+    public Target getTarget() {
+        return target;
+    }
+
+    /**
+     * Check that the change can be applied to the configuration state tracked by the given validator, and update
+     * that state with the effect of the change
+     *
+     * @param validator Validator
+     * @throws ConfigurationException   Change cannot be applied
+     */
+    abstract void validate(Validator validator) throws ConfigurationException;
+
+    /**
+     * Apply the change to the given builder. The change must have been validated against the builder's state
+     *
+     * @param builder   Configuration builder
+     */
+    abstract void applyTo(ConfigurationBuilder builder);
+
+
+    /* users */
+
+    /**
+     * Add the given user
+     *
+     * @param user  New user
+     * @return Configuration change
+     */
+    public static ConfigurationChange addUser(@Nonnull User user) {
+        return new ElementChange(Action.ADD, Target.USER, user.getId(), user);
+    }
+
+    /**
+     * Remove the user with the given identifier, along with the user's role assignments and authentication details
+     *
+     * @param userId    User identifier
+     * @return Configuration change
+     */
+    public static ConfigurationChange removeUser(@Nonnull UserId userId) {
+        return new ElementChange(Action.REMOVE, Target.USER, userId, null);
+    }
+
+    /**
+     * Replace the user with the given identifier by the given user, which must have the same identifier. To change the
+     * identifier of a user, remove the user and add it anew
+     *
+     * @param userId    User identifier
+     * @param user  User
+     * @return Configuration change
+     */
+    public static ConfigurationChange modifyUser(@Nonnull UserId userId, @Nonnull User user) {
+        return new ElementChange(Action.MODIFY, Target.USER, userId, checkNotNull(user));
+    }
+
+
+    /* projects */
+
+    /**
+     * Add the given project, making its owner the project manager
+     *
+     * @param project   New project
+     * @return Configuration change
+     */
+    public static ConfigurationChange addProject(@Nonnull Project project) {
+        return new ElementChange(Action.ADD, Target.PROJECT, project.getId(), project);
+    }
+
+    /**
+     * Remove the project with the given identifier, along with all role assignments in that project
+     *
+     * @param projectId Project identifier
+     * @return Configuration change
+     */
+    public static ConfigurationChange removeProject(@Nonnull ProjectId projectId) {
+        return new ElementChange(Action.REMOVE, Target.PROJECT, projectId, null);
+    }
+
+    /**
+     * Replace the project with the given identifier by the given project, which must have the same identifier. To
+     * change the identifier of a project, remove the project and add it anew
+     *
+     * @param projectId Project identifier
+     * @param project   Project
+     * @return Configuration change
+     */
+    public static ConfigurationChange modifyProject(@Nonnull ProjectId projectId, @Nonnull Project project) {
+        return new ElementChange(Action.MODIFY, Target.PROJECT, projectId, checkNotNull(project));
+    }
+
+
+    /* roles */
+
+    /**
+     * Add the given role
+     *
+     * @param role  New role
+     * @return Configuration change
+     */
+    public static ConfigurationChange addRole(@Nonnull Role role) {
+        return new ElementChange(Action.ADD, Target.ROLE, role.getId(), role);
+    }
+
+    /**
+     * Remove the role with the given identifier, along with all assignments of that role
+     *
+     * @param roleId    Role identifier
+     * @return Configuration change
+     */
+    public static ConfigurationChange removeRole(@Nonnull RoleId roleId) {
+        return new ElementChange(Action.REMOVE, Target.ROLE, roleId, null);
+    }
+
+    /**
+     * Replace the role with the given identifier by the given role, which must have the same identifier. To change the
+     * identifier of a role, remove the role and add it anew
+     *
+     * @param roleId    Role identifier
+     * @param role  Role
+     * @return Configuration change
+     */
+    public static ConfigurationChange modifyRole(@Nonnull RoleId roleId, @Nonnull Role role) {
+        return new ElementChange(Action.MODIFY, Target.ROLE, roleId, checkNotNull(role));
+    }
+
+
+    /* operations */
+
+    /**
+     * Add the given operation
+     *
+     * @param operation New operation
+     * @return Configuration change
+     */
+    public static ConfigurationChange addOperation(@Nonnull Operation operation) {
+        return new ElementChange(Action.ADD, Target.OPERATION, operation.getId(), operation);
+    }
+
+    /**
+     * Remove the operation with the given identifier, also from the permitted operations of every role
+     *
+     * @param operationId   Operation identifier
+     * @return Configuration change
+     */
+    public static ConfigurationChange removeOperation(@Nonnull OperationId operationId) {
+        return new ElementChange(Action.REMOVE, Target.OPERATION, operationId, null);
+    }
+
+    /**
+     * Replace the operation with the given identifier by the given operation, which must have the same identifier. To
+     * change the identifier of a operation, remove the operation and add it anew
+     *
+     * @param operationId   Operation identifier
+     * @param operation Operation
+     * @return Configuration change
+     */
+    public static ConfigurationChange modifyOperation(@Nonnull OperationId operationId, @Nonnull Operation operation) {
+        return new ElementChange(Action.MODIFY, Target.OPERATION, operationId, checkNotNull(operation));
+    }
+
+
+    /* authentication */
+
+    /**
+     * Register the authentication details of the user with the given identifier
+     *
+     * @param userId    User identifier
+     * @param password  Password
+     * @return Configuration change
+     */
+    public static ConfigurationChange registerUser(@Nonnull UserId userId, @Nonnull SaltedPasswordDigest password) {
+        return new RegistrationChange(Action.ADD, userId, checkNotNull(password));
+    }
+
+    /**
+     * Unregister the authentication details of the user with the given identifier
+     *
+     * @param userId    User identifier
+     * @return Configuration change
+     */
+    public static ConfigurationChange unregisterUser(@Nonnull UserId userId) {
+        return new RegistrationChange(Action.REMOVE, userId, null);
+    }
+
+    /**
+     * Change the password of the user with the given identifier
+     *
+     * @param userId    User identifier
+     * @param password  New password
+     * @return Configuration change
+     */
+    public static ConfigurationChange changePassword(@Nonnull UserId userId, @Nonnull SaltedPasswordDigest password) {
+        return new RegistrationChange(Action.MODIFY, userId, checkNotNull(password));
+    }
+
+
+    /* policy */
+
+    /**
+     * Assign the given role to the given user in the given project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @param roleId    Role identifier
+     * @return Configuration change
+     */
+    public static ConfigurationChange addPolicy(@Nonnull UserId userId, @Nonnull ProjectId projectId, @Nonnull RoleId roleId) {
+        return new PolicyChange(Action.ADD, userId, projectId, roleId);
+    }
+
+    /**
+     * Remove the given role from the given user in the given project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @param roleId    Role identifier
+     * @return Configuration change
+     */
+    public static ConfigurationChange removePolicy(@Nonnull UserId userId, @Nonnull ProjectId projectId, @Nonnull RoleId roleId) {
+        return new PolicyChange(Action.REMOVE, userId, projectId, roleId);
+    }
+
+
+    /**
+     * Addition, removal or modification of a user, project, role or operation
+     */
+    private static final class ElementChange extends ConfigurationChange {
+        @Nonnull private final PolicyObjectId<?> id;
+        @Nullable private final PolicyObject<?> element;
+
+        private ElementChange(Action action, Target target, PolicyObjectId<?> id, @Nullable PolicyObject<?> element) {
+            super(action, target);
+            this.id = checkNotNull(id);
+            this.element = element;
+            checkArgument(action != Action.MODIFY || id.equals(checkNotNull(element).getId()),
+                    "A modification cannot change the identifier '%s'; remove the element and add it anew instead",
+                    id.get());
+        }
+
+        @Override
+        void validate(Validator validator) throws ConfigurationException {
+            switch (getAction()) {
+                case ADD:
+                    validator.add(getTarget(), id);
+                    break;
+                case REMOVE:
+                    validator.remove(getTarget(), id);
+                    if (getTarget() == Target.USER) {
+                        validator.discard(Target.AUTHENTICATION_DETAILS, id);
+                    }
+                    break;
+                case MODIFY:
+                    validator.require(getTarget(), id);
+                    break;
+            }
+        }
+
+        @Override
+        void applyTo(ConfigurationBuilder builder) {
+            try {
+                switch (getTarget()) {
+                    case USER:
+                        if (getAction() == Action.ADD) {
+                            builder.addUser((User) element);
+                        } else if (getAction() == Action.REMOVE) {
+                            builder.removeUserCascading((UserId) id);
+                        } else {
+                            builder.setUser((UserId) id, (User) element);
+                        }
+                        break;
+                    case PROJECT:
+                        if (getAction() == Action.ADD) {
+                            builder.addProject((Project) element);
+                        } else if (getAction() == Action.REMOVE) {
+                            builder.removeProjectCascading((ProjectId) id);
+                        } else {
+                            builder.setProject((ProjectId) id, (Project) element);
+                        }
+                        break;
+                    case ROLE:
+                        if (getAction() == Action.ADD) {
+                            builder.addRole((Role) element);
+                        } else if (getAction() == Action.REMOVE) {
+                            builder.removeRoleCascading((RoleId) id);
+                        } else {
+                            builder.setRole((RoleId) id, (Role) element);
+                        }
+                        break;
+                    case OPERATION:
+                        if (getAction() == Action.ADD) {
+                            builder.addOperation((Operation) element);
+                        } else if (getAction() == Action.REMOVE) {
+                            builder.removeOperationCascading((OperationId) id);
+                        } else {
+                            builder.setOperation((OperationId) id, (Operation) element);
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected target: " + getTarget());
+                }
+            } catch (IdAlreadyInUseException e) {
+                throw new IllegalStateException("A validated change could not be applied", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ElementChange)) {
+                return false;
+            }
+            ElementChange that = (ElementChange) o;
+            return getAction() == that.getAction() &&
+                    getTarget() == that.getTarget() &&
+                    Objects.equal(id, that.id) &&
+                    Objects.equal(element, that.element);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getAction(), getTarget(), id, element);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(ConfigurationChange.class)
+                    .add("action", getAction())
+                    .add("target", getTarget())
+                    .add("id", id)
+                    .add("element", element)
+                    .toString();
+        }
+    }
+
+    /**
+     * Registration or unregistration of a user, or change of a user's password
+     */
+    private static final class RegistrationChange extends ConfigurationChange {
+        @Nonnull private final UserId userId;
+        @Nullable private final SaltedPasswordDigest password;
+
+        private RegistrationChange(Action action, UserId userId, @Nullable SaltedPasswordDigest password) {
+            super(action, Target.AUTHENTICATION_DETAILS);
+            this.userId = checkNotNull(userId);
+            this.password = password;
+        }
+
+        @Override
+        void validate(Validator validator) throws ConfigurationException {
+            switch (getAction()) {
+                case ADD:
+                    validator.require(Target.USER, userId);
+                    validator.add(Target.AUTHENTICATION_DETAILS, userId);
+                    break;
+                case REMOVE:
+                    validator.remove(Target.AUTHENTICATION_DETAILS, userId);
+                    break;
+                case MODIFY:
+                    validator.require(Target.AUTHENTICATION_DETAILS, userId);
+                    break;
+            }
+        }
+
+        @Override
+        void applyTo(ConfigurationBuilder builder) {
+            switch (getAction()) {
+                case ADD:
+                    try {
+                        builder.registerUser(userId, checkNotNull(password));
+                    } catch (IdAlreadyInUseException e) {
+                        throw new IllegalStateException("A validated change could not be applied", e);
+                    }
+                    break;
+                case REMOVE:
+                    builder.unregisterUser(userId);
+                    break;
+                case MODIFY:
+                    builder.changePassword(userId, checkNotNull(password));
+                    break;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RegistrationChange)) {
+                return false;
+            }
+            RegistrationChange that = (RegistrationChange) o;
+            return getAction() == that.getAction() &&
+                    Objects.equal(userId, that.userId) &&
+                    Objects.equal(password, that.password);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getAction(), getTarget(), userId, password);
+        }
+
+        @Override
+        public String toString() {
+            // the password digest is left out
+            return MoreObjects.toStringHelper(ConfigurationChange.class)
+                    .add("action", getAction())
+                    .add("target", getTarget())
+                    .add("userId", userId)
+                    .toString();
+        }
+    }
+
+    /**
+     * Addition or removal of a role assignment
+     */
+    private static final class PolicyChange extends ConfigurationChange {
+        @Nonnull private final UserId userId;
+        @Nonnull private final ProjectId projectId;
+        @Nonnull private final RoleId roleId;
+
+        private PolicyChange(Action action, UserId userId, ProjectId projectId, RoleId roleId) {
+            super(action, Target.POLICY);
+            this.userId = checkNotNull(userId);
+            this.projectId = checkNotNull(projectId);
+            this.roleId = checkNotNull(roleId);
+        }
+
+        @Override
+        void validate(Validator validator) throws ConfigurationException {
+            if (getAction() == Action.ADD) {
+                validator.require(Target.USER, userId);
+                validator.require(Target.PROJECT, projectId);
+                validator.require(Target.ROLE, roleId);
+            }
+        }
+
+        @Override
+        void applyTo(ConfigurationBuilder builder) {
+            if (getAction() == Action.ADD) {
+                builder.addPolicy(userId, projectId, roleId);
+            } else {
+                builder.removePolicy(userId, projectId, roleId);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PolicyChange)) {
+                return false;
+            }
+            PolicyChange that = (PolicyChange) o;
+            return getAction() == that.getAction() &&
+                    Objects.equal(userId, that.userId) &&
+                    Objects.equal(projectId, that.projectId) &&
+                    Objects.equal(roleId, that.roleId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getAction(), getTarget(), userId, projectId, roleId);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(ConfigurationChange.class)
+                    .add("action", getAction())
+                    .add("target", getTarget())
+                    .add("userId", userId)
+                    .add("projectId", projectId)
+                    .add("roleId", roleId)
+                    .toString();
+        }
+    }
+
+    /**
+     * Tracks which identifiers are in use as a batch of changes is validated, as an overlay of the changes seen so
+     * far on the identifier indexes of the builder, which are left untouched
+     */
+    static final class Validator {
+        private final Map<Target, Set<?>> existing = new EnumMap<>(Target.class);
+        private final Map<Target, Map<PolicyObjectId<?>, Boolean>> changed = new EnumMap<>(Target.class);
+
+        Validator(Set<UserId> userIds, Set<ProjectId> projectIds, Set<RoleId> roleIds, Set<OperationId> operationIds,
+                  Set<UserId> registeredUserIds) {
+            existing.put(Target.USER, checkNotNull(userIds));
+            existing.put(Target.PROJECT, checkNotNull(projectIds));
+            existing.put(Target.ROLE, checkNotNull(roleIds));
+            existing.put(Target.OPERATION, checkNotNull(operationIds));
+            existing.put(Target.AUTHENTICATION_DETAILS, checkNotNull(registeredUserIds));
+            for (Target target : existing.keySet()) {
+                changed.put(target, new HashMap<>());
+            }
+        }
+
+        private boolean contains(Target target, PolicyObjectId<?> id) {
+            Boolean present = changed.get(target).get(id);
+            return (present != null ? present : existing.get(target).contains(id));
+        }
+
+        void require(Target target, PolicyObjectId<?> id) throws ConfigurationException {
+            if (!contains(target, id)) {
+                throw unknown(target, id);
+            }
+        }
+
+        void add(Target target, PolicyObjectId<?> id) throws IdAlreadyInUseException {
+            if (contains(target, id)) {
+                throw new IdAlreadyInUseException("The identifier '" + id.get() + "' is already in use (" + target + ")");
+            }
+            changed.get(target).put(id, true);
+        }
+
+        void remove(Target target, PolicyObjectId<?> id) throws ConfigurationException {
+            require(target, id);
+            discard(target, id);
+        }
+
+        void discard(Target target, PolicyObjectId<?> id) {
+            changed.get(target).put(id, false);
+        }
+
+        private static ConfigurationException unknown(Target target, PolicyObjectId<?> id) {
+            checkArgument(target != Target.POLICY);
+            String message = "The identifier '" + id.get() + "' is unknown (" + target + ")";
+            switch (target) {
+                case USER:
+                    return new UnknownUserIdException(message);
+                case PROJECT:
+                    return new UnknownProjectIdException(message);
+                case ROLE:
+                    return new UnknownRoleIdException(message);
+                case OPERATION:
+                    return new UnknownOperationIdException(message);
+                default:
+                    return new UserNotRegisteredException(message);
+            }
+        }
+    }
+}
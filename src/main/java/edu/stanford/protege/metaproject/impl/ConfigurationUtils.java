@@ -1,5 +1,8 @@
 package edu.stanford.protege.metaproject.impl;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
 import edu.stanford.protege.metaproject.ConfigurationManager;
 import edu.stanford.protege.metaproject.api.*;
 
@@ -21,10 +24,22 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public final class ConfigurationUtils {
     private final static PolicyFactory f = ConfigurationManager.getFactory();
 
+    // the default credentials involve key-stretching, so they are computed once, on first use
+    private final static Supplier<ImmutableSet<AuthenticationDetails>> defaultAuthDetails =
+            Suppliers.memoize(() -> ImmutableSet.of(getRootUserCredentials(), getGuestUserCredentials()));
+
     private final static int
             OPTIONAL_PORT = 8081,
             HASH_BYTE_SIZE = 24,
-            KEY_ITERATIONS = 20000;
+            KEY_ITERATIONS = 20000,
+            LEGACY_KEY_ITERATIONS = PasswordHashAlgorithm.getLegacyNumberOfIterations(),
+            // calibration never chooses fewer iterations than existing digests have, however slow the host
+            MIN_KEY_ITERATIONS = Math.max(KEY_ITERATIONS, LEGACY_KEY_ITERATIONS),
+            MAX_KEY_ITERATIONS = 10000000;
+
+    private final static PasswordHashAlgorithm
+            HASH_ALGORITHM = PasswordHashAlgorithm.PBKDF2_HMAC_SHA1,
+            LEGACY_HASH_ALGORITHM = PasswordHashAlgorithm.getLegacyAlgorithm();
 
     private final static String
             SERVER_URI = "http://localhost:8080",
@@ -191,6 +206,55 @@ public final class ConfigurationUtils {
         return KEY_ITERATIONS;
     }
 
+    /**
+     * Get the minimum number of key-stretching iterations that calibration may choose, however slow the host. This is
+     * no less than the number of iterations of the default hash function and of legacy digests, so that calibrated
+     * hashers never create digests weaker than those
+     *
+     * @return Integer
+     */
+    public static int getMinimumKeyStretchingIterations() {
+        return MIN_KEY_ITERATIONS;
+    }
+
+    /**
+     * Get the maximum number of key-stretching iterations that calibration may choose, however fast the host
+     *
+     * @return Integer
+     */
+    public static int getMaximumKeyStretchingIterations() {
+        return MAX_KEY_ITERATIONS;
+    }
+
+    /**
+     * Get the default password hashing algorithm
+     *
+     * @return Password hashing algorithm
+     */
+    public static PasswordHashAlgorithm getPasswordHashAlgorithm() {
+        return HASH_ALGORITHM;
+    }
+
+    /**
+     * Get the number of key-stretching iterations assumed for password digests that do not record it, i.e., those
+     * stored before digests carried their hashing parameters
+     *
+     * @return Integer
+     */
+    public static int getLegacyKeyStretchingIterations() {
+        return LEGACY_KEY_ITERATIONS;
+    }
+
+    /**
+     * Get the password hashing algorithm assumed for password digests that do not record it, i.e., those stored
+     * before digests carried their hashing parameters
+     *
+     * @return Password hashing algorithm
+     */
+    public static PasswordHashAlgorithm getLegacyPasswordHashAlgorithm() {
+        return LEGACY_HASH_ALGORITHM;
+    }
+
     /**
      * Get the default set of users
      *
@@ -237,15 +301,13 @@ public final class ConfigurationUtils {
     }
 
     /**
-     * Get the default set of authentication details
+     * Get the default set of authentication details. The password digests are computed on the first call and
+     * reused afterwards
      *
      * @return Set of authentication details
      */
     public static Set<AuthenticationDetails> getDefaultAuthenticationDetails() {
-        Set<AuthenticationDetails> authDetails = new HashSet<>();
-        authDetails.add(getRootUserCredentials());
-        authDetails.add(getGuestUserCredentials());
-        return authDetails;
+        return new HashSet<>(defaultAuthDetails.get());
     }
 
     /**
@@ -0,0 +1,114 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.Objects;
+import edu.stanford.protege.metaproject.api.PlainPassword;
+import edu.stanford.protege.metaproject.api.UserId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The credentials of a verification attempt, identified by the user identifier and an HMAC of the password under a key
+ * generated for, and held only by, the {@link Factory} that created them. Credentials are meant to be used as map keys
+ * by authenticators that cache or coalesce verifications, so that plain passwords are not kept in those maps
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+final class Credentials {
+    @Nonnull private final UserId userId;
+    @Nonnull private final byte[] passwordMac;
+
+    private Credentials(@Nonnull UserId userId, @Nonnull byte[] passwordMac) {
+        this.userId = userId;
+        this.passwordMac = passwordMac;
+    }
+
+    /**
+     * Get the user identifier
+     *
+     * @return User identifier
+     */
+    @Nonnull
+    UserId getUserId() {
+        return userId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Credentials)) {
+            return false;
+        }
+        Credentials that = (Credentials) o;
+        return userId.equals(that.userId) && Arrays.equals(passwordMac, that.passwordMac);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(userId, Arrays.hashCode(passwordMac));
+    }
+
+    /**
+     * A factory of credentials, which generates its own HMAC key. Credentials created by different factories are never
+     * equal
+     */
+    @ThreadSafe
+    static final class Factory {
+        private static final String ALGORITHM = "HmacSHA256";
+        @Nonnull private final ThreadLocal<Mac> macs;
+
+        /**
+         * Constructor
+         */
+        Factory() {
+            byte[] bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+            SecretKeySpec key = new SecretKeySpec(bytes, ALGORITHM);
+            this.macs = ThreadLocal.withInitial(() -> newMac(key));
+            macs.get(); // fail fast if the algorithm is unavailable
+        }
+
+        private static Mac newMac(SecretKeySpec key) {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+            }
+        }
+
+        /**
+         * Get the credentials of the given user identifier and password
+         *
+         * @param userId    User identifier
+         * @param password  Plain password
+         * @return Credentials
+         */
+        @Nonnull
+        Credentials create(@Nonnull UserId userId, @Nonnull PlainPassword password) {
+            checkNotNull(userId);
+            checkNotNull(password);
+            byte[] id = userId.get().getBytes(StandardCharsets.UTF_8);
+            Mac mac = macs.get();
+            mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(id.length).array());
+            mac.update(id);
+            return new Credentials(userId, mac.doFinal(password.getPassword().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
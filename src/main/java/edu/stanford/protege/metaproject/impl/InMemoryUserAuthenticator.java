@@ -0,0 +1,148 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.api.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A user authenticator that verifies credentials against users registered with it in memory. It is meant as a local
+ * stand-in for an external authenticator (e.g., an LDAP directory) in tests and development setups: it can be told
+ * to take a fixed time per verification, to mimic a remote directory, and it counts the verifications it carries out.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class InMemoryUserAuthenticator implements UserAuthenticator {
+    private final PolicyFactory factory = ConfigurationManager.getFactory();
+    @Nonnull private final ConcurrentMap<UserId, Registration> registrations = new ConcurrentHashMap<>();
+    @Nonnull private final PasswordHasher hasher;
+    @Nonnull private final SaltGenerator saltGenerator;
+    @Nonnull private final Duration latency;
+    private final LongAdder nrVerifications = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param hasher    Password hasher
+     * @param latency   Time that each verification takes, in addition to hashing the password
+     */
+    public InMemoryUserAuthenticator(@Nonnull PasswordHasher hasher, @Nonnull Duration latency) {
+        checkArgument(!checkNotNull(latency).isNegative(), "The latency cannot be negative");
+        this.hasher = checkNotNull(hasher);
+        this.saltGenerator = factory.getSaltGenerator();
+        this.latency = latency;
+    }
+
+    /**
+     * Constructor for an authenticator that verifies credentials without added latency
+     *
+     * @param hasher    Password hasher
+     */
+    public InMemoryUserAuthenticator(@Nonnull PasswordHasher hasher) {
+        this(hasher, Duration.ZERO);
+    }
+
+    /**
+     * Register the given user with the given password, replacing any previous registration of the user
+     *
+     * @param user  User
+     * @param password  Plain password
+     * @return This authenticator
+     */
+    @Nonnull
+    public InMemoryUserAuthenticator register(@Nonnull User user, @Nonnull PlainPassword password) {
+        checkNotNull(user);
+        registrations.put(user.getId(), new Registration(user, hasher.hash(checkNotNull(password), saltGenerator.generate())));
+        return this;
+    }
+
+    /**
+     * Remove the registration of the given user
+     *
+     * @param userId    User identifier
+     * @return This authenticator
+     */
+    @Nonnull
+    public InMemoryUserAuthenticator unregister(@Nonnull UserId userId) {
+        registrations.remove(checkNotNull(userId));
+        return this;
+    }
+
+    @Override
+    @Nonnull
+    public AuthToken hasValidCredentials(@Nonnull UserId userId, @Nonnull PlainPassword password) {
+        checkNotNull(userId);
+        checkNotNull(password);
+        nrVerifications.increment();
+        simulateLatency();
+        Registration registration = registrations.get(userId);
+        if (registration == null) {
+            return factory.getUnauthorizedUserToken(factory.getUser(userId, factory.getName(""), factory.getEmailAddress("")));
+        }
+        char[] chars = password.getPassword().toCharArray();
+        boolean valid;
+        try {
+            valid = hasher.matches(chars, registration.digest);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+        return valid ? factory.getAuthorizedUserToken(registration.user) : factory.getUnauthorizedUserToken(registration.user);
+    }
+
+    private void simulateLatency() {
+        if (!latency.isZero()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Get the number of verifications carried out so far
+     *
+     * @return Number of verifications
+     */
+    public long getVerificationCount() {
+        return nrVerifications.sum();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("nrUsers", registrations.size())
+                .add("latency", latency)
+                .add("nrVerifications", nrVerifications.sum())
+                .toString();
+    }
+
+    /**
+     * A registered user along with the digest of the user's password
+     */
+    @Immutable
+    private static final class Registration {
+        @Nonnull private final User user;
+        @Nonnull private final SaltedPasswordDigest digest;
+
+        Registration(@Nonnull User user, @Nonnull SaltedPasswordDigest digest) {
+            this.user = user;
+            this.digest = digest;
+        }
+    }
+}
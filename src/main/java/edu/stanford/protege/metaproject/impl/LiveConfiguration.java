@@ -0,0 +1,207 @@
+package edu.stanford.protege.metaproject.impl;
+
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.ConfigurationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A holder of the server configuration in effect, which publishes new configurations to the threads that serve
+ * requests. Readers get the current configuration, an immutable snapshot, with a single volatile read, and never wait
+ * for writers. Writers derive a new configuration from the current one with a {@link ConfigurationBuilder}, and
+ * install it with a compare-and-set; if another writer installed a configuration in the meantime, the edit is applied
+ * again to that one, so no edit is lost and none is applied to a stale configuration. Edits may therefore be run more
+ * than once, and should not have side effects.
+ *
+ * Each installed configuration is given a version, which increases by one with every installation, so that state
+ * derived from one configuration (e.g., a {@link SessionToken}) can be told apart from state derived from another. The
+ * first version is random, so that the versions of live configurations in different runs of a server are unlikely to
+ * coincide. Upgrading a password digest (see {@link #upgradePassword(UserId, char[], PasswordHasher)}) keeps the
+ * version: the new digest verifies the same password, so state derived from the configuration remains valid.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class LiveConfiguration implements HasConfiguration {
+    @Nonnull private final AtomicReference<Version> current;
+
+    /**
+     * Constructor
+     *
+     * @param config    Initial server configuration
+     */
+    public LiveConfiguration(@Nonnull ServerConfiguration config) {
+        this.current = new AtomicReference<>(new Version(checkNotNull(config), ThreadLocalRandom.current().nextLong()));
+    }
+
+    /**
+     * Get the server configuration currently in effect
+     *
+     * @return Server configuration
+     */
+    @Override
+    @Nonnull
+    public ServerConfiguration getConfiguration() {
+        return current.get().config;
+    }
+
+    /**
+     * Get the version of the server configuration currently in effect
+     *
+     * @return Configuration version
+     */
+    public long getVersion() {
+        return current.get().version;
+    }
+
+    /**
+     * Apply the given edit to a builder derived from the current server configuration, and install the configuration
+     * that it builds. The edit is applied again, to the newly installed configuration, whenever another writer
+     * installs a configuration before this one is installed
+     *
+     * @param edit  Edit of the configuration builder
+     * @throws ConfigurationException   The edit failed, e.g., because it adds an element whose identifier is already in
+     * use, in which case the current configuration is left in effect
+     * @return Installed server configuration
+     */
+    @Nonnull
+    public ServerConfiguration update(@Nonnull Edit edit) throws ConfigurationException {
+        checkNotNull(edit);
+        while (true) {
+            Version version = current.get();
+            ServerConfiguration updated = edit.apply(new ConfigurationBuilder(version.config))
+                    .createServerConfiguration();
+            if (current.compareAndSet(version, version.next(updated))) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Apply the given changes all at once to the current server configuration, and install the resulting
+     * configuration. The changes are validated, and applied, again whenever another writer installs a configuration
+     * before this one is installed
+     *
+     * @param changes   List of changes
+     * @throws ConfigurationException   Some change cannot be applied to the current configuration, in which case the
+     * current configuration is left in effect
+     * @return Installed server configuration
+     */
+    @Nonnull
+    public ServerConfiguration update(@Nonnull List<ConfigurationChange> changes) throws ConfigurationException {
+        checkNotNull(changes);
+        while (true) {
+            Version version = current.get();
+            ServerConfiguration updated = new ConfigurationBuilder(version.config).applyAll(changes)
+                    .createServerConfiguration();
+            if (current.compareAndSet(version, version.next(updated))) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Replace the password digest of the given user with one produced by the given hasher, if the stored digest was
+     * produced with other parameters (see {@link PasswordHasher#needsRehash(SaltedPasswordDigest)}) and the given
+     * password matches it. This is meant to be called when a user logs in successfully, so that stored digests are
+     * upgraded as users next log in. The password is hashed once, before any attempt to install the new digest, and
+     * the new digest is not installed if the user's digest changed in the meantime. The configuration with the new
+     * digest is installed under the current version, so that upgrading digests as users log in does not invalidate
+     * the session tokens of other users
+     *
+     * @param userId    User identifier
+     * @param password  Plain password characters
+     * @param hasher    Password hasher with the parameters that digests should have
+     * @return true if an upgraded digest was installed, false otherwise
+     */
+    public boolean upgradePassword(@Nonnull UserId userId, @Nonnull char[] password, @Nonnull PasswordHasher hasher) {
+        checkNotNull(userId);
+        checkNotNull(password);
+        checkNotNull(hasher);
+        Optional<AuthenticationDetails> details = getConfiguration().findAuthenticationDetails(userId);
+        if (!details.isPresent()) {
+            return false;
+        }
+        SaltedPasswordDigest digest = details.get().getPassword();
+        Optional<SaltedPasswordDigest> upgraded = hasher.upgrade(password, digest);
+        if (!upgraded.isPresent()) {
+            return false;
+        }
+        while (true) {
+            Version version = current.get();
+            Optional<AuthenticationDetails> currentDetails = version.config.findAuthenticationDetails(userId);
+            if (!currentDetails.isPresent() || !currentDetails.get().getPassword().equals(digest)) {
+                return false;
+            }
+            ServerConfiguration updated = new ConfigurationBuilder(version.config)
+                    .changePassword(userId, upgraded.get())
+                    .createServerConfiguration();
+            if (current.compareAndSet(version, version.with(updated))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Install the given server configuration in place of the current one, e.g., after reloading it from file
+     *
+     * @param config    Server configuration
+     * @return Server configuration previously in effect
+     */
+    @Nonnull
+    public ServerConfiguration set(@Nonnull ServerConfiguration config) {
+        checkNotNull(config);
+        return current.getAndUpdate(version -> version.next(config)).config;
+    }
+
+    /**
+     * A server configuration along with its version
+     */
+    @Immutable
+    private static final class Version {
+        @Nonnull private final ServerConfiguration config;
+        private final long version;
+
+        Version(@Nonnull ServerConfiguration config, long version) {
+            this.config = config;
+            this.version = version;
+        }
+
+        Version next(@Nonnull ServerConfiguration config) {
+            return new Version(config, version + 1);
+        }
+
+        Version with(@Nonnull ServerConfiguration config) {
+            return new Version(config, version);
+        }
+    }
+
+    /**
+     * An edit of a configuration builder. Unlike a {@link java.util.function.UnaryOperator}, an edit may use the
+     * builder methods that throw a {@link ConfigurationException}, such as
+     * {@link ConfigurationBuilder#addUser(edu.stanford.protege.metaproject.api.User)}
+     */
+    @FunctionalInterface
+    public interface Edit {
+
+        /**
+         * Apply the edit to the given builder
+         *
+         * @param builder   Configuration builder
+         * @throws ConfigurationException   The edit cannot be applied
+         * @return Configuration builder
+         */
+        @Nonnull
+        ConfigurationBuilder apply(@Nonnull ConfigurationBuilder builder) throws ConfigurationException;
+    }
+}
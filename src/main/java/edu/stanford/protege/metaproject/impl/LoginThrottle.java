@@ -0,0 +1,266 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Ticker;
+import edu.stanford.protege.metaproject.api.UserId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A throttle on login attempts, which caps the work spent verifying credentials (each verification costing a full
+ * key derivation) on behalf of any one user, or any one source of requests, such as a client address. Each user and
+ * each source has a token bucket that allows a burst of attempts and then one attempt per refill period. In addition,
+ * each failed attempt blocks further attempts by the same user from the same source, and further attempts from that
+ * source for any user, for a delay that doubles with every consecutive failure, up to a maximum. A successful attempt
+ * lifts the block on the user and source, but not the block on the source, so that a source guessing the passwords of
+ * many users stays blocked.
+ *
+ * Failures are deliberately not counted against the user alone: if they were, anyone could lock a user out of every
+ * source for up to the maximum delay by failing to log in as them. A user under attack from many sources is instead
+ * protected by the user's token bucket, which caps the guesses at one per refill period whatever their sources, at
+ * the cost of slowing down the user's own attempts to that same rate while the attack lasts. For the same reason,
+ * failed attempts of unknown source block nothing: they cannot be told apart from the user's own attempts, so they are
+ * throttled by the user's token bucket alone.
+ *
+ * Throttling states are kept in fixed-size, lock-free tables (see {@link ThrottleTable}), and forgotten once idle
+ * for the expiry time. Checking an attempt that is throttled reads the tables without writing to them. Checking and
+ * recording an allowed attempt are not one atomic step, so attempts that race at the end of a burst may exceed it by
+ * at most the number of racing threads.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class LoginThrottle {
+    private static final int DEFAULT_BURST = 10, DEFAULT_TABLE_SIZE = 1 << 16;
+    private static final Duration DEFAULT_REFILL_PERIOD = Duration.ofSeconds(1), DEFAULT_BASE_DELAY = Duration.ofMillis(500),
+            DEFAULT_MAX_DELAY = Duration.ofMinutes(5), DEFAULT_EXPIRY = Duration.ofMinutes(15);
+    @Nonnull private final ThrottleTable<UserId> users;
+    @Nonnull private final ThrottleTable<String> sources;
+    @Nonnull private final ThrottleTable<UserSource> userSources;
+    @Nonnull private final Ticker ticker;
+    private final int burst;
+    private final long refillNanos, burstToleranceNanos, baseDelayNanos, maxDelayNanos;
+
+    /**
+     * Constructor
+     *
+     * @param burst Number of attempts allowed in quick succession, per user and per source
+     * @param refillPeriod  Time after which one more attempt is allowed
+     * @param baseDelay Time for which attempts are blocked after one failed attempt
+     * @param maxDelay  Maximum time for which attempts are blocked after consecutive failed attempts
+     * @param expiry    Time after which the state of an idle user or source is forgotten
+     * @param tableSize Maximum number of users, of sources, and of user and source pairs, whose state is kept
+     * @param ticker    Time source
+     */
+    public LoginThrottle(int burst, @Nonnull Duration refillPeriod, @Nonnull Duration baseDelay, @Nonnull Duration maxDelay,
+                         @Nonnull Duration expiry, int tableSize, @Nonnull Ticker ticker) {
+        checkArgument(burst > 0, "The burst size must be positive");
+        checkArgument(!checkNotNull(refillPeriod).isNegative() && !refillPeriod.isZero(), "The refill period must be positive");
+        checkArgument(!checkNotNull(baseDelay).isNegative(), "The base delay cannot be negative");
+        checkArgument(checkNotNull(maxDelay).compareTo(baseDelay) >= 0, "The maximum delay cannot be less than the base delay");
+        checkArgument(checkNotNull(expiry).compareTo(maxDelay) >= 0, "The expiry time cannot be less than the maximum delay");
+        this.burst = burst;
+        this.refillNanos = refillPeriod.toNanos();
+        this.burstToleranceNanos = (burst - 1) * refillNanos;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.ticker = checkNotNull(ticker);
+        this.users = new ThrottleTable<>(tableSize, expiry.toNanos());
+        this.sources = new ThrottleTable<>(tableSize, expiry.toNanos());
+        this.userSources = new ThrottleTable<>(tableSize, expiry.toNanos());
+    }
+
+    /**
+     * Constructor for a throttle that allows bursts of 10 attempts and then one attempt per second, blocks attempts
+     * for 0.5 seconds after a failed attempt (doubling up to 5 minutes), and forgets users and sources after 15 idle
+     * minutes
+     */
+    public LoginThrottle() {
+        this(DEFAULT_BURST, DEFAULT_REFILL_PERIOD, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_EXPIRY, DEFAULT_TABLE_SIZE,
+                Ticker.systemTicker());
+    }
+
+    /**
+     * Acquire permission for a login attempt by the given user from the given source. If the attempt is allowed, it
+     * counts against the user's and the source's buckets; otherwise, nothing is recorded
+     *
+     * @param userId    User identifier
+     * @param source    Source of the attempt (e.g., client address), or null if unknown
+     * @return Zero if the attempt is allowed, or else the time until it would be allowed, in nanoseconds
+     */
+    public long tryAcquire(@Nonnull UserId userId, @Nullable String source) {
+        checkNotNull(userId);
+        long now = ticker.read();
+        long wait = getWait(users.get(userId, now), now);
+        if (source != null) {
+            wait = Math.max(wait, getWait(userSources.get(new UserSource(userId, source), now), now));
+            wait = Math.max(wait, getWait(sources.get(source, now), now));
+        }
+        if (wait > 0) {
+            return wait;
+        }
+        acquire(users, userId, now);
+        if (source != null) {
+            acquire(sources, source, now);
+        }
+        return 0;
+    }
+
+    private long getWait(@Nullable ThrottleTable.State<?> state, long now) {
+        if (state == null) {
+            return 0;
+        }
+        long blocked = state.blockedUntil - now;
+        long limited = state.arrivalTime - burstToleranceNanos - now;
+        return Math.max(0, Math.max(blocked, limited));
+    }
+
+    private <K> void acquire(ThrottleTable<K> table, K key, long now) {
+        table.update(key, now, state -> {
+            if (state == null) {
+                return new ThrottleTable.State<>(key, now + refillNanos, 0, now);
+            }
+            long arrivalTime = (state.arrivalTime - now >= 0 ? state.arrivalTime : now);
+            return new ThrottleTable.State<>(key, arrivalTime + refillNanos, state.failures, state.blockedUntil);
+        });
+    }
+
+    /**
+     * Record a failed login attempt by the given user from the given source, blocking further attempts by the user
+     * from that source, and further attempts from that source. A failed attempt of unknown source blocks nothing
+     *
+     * @param userId    User identifier
+     * @param source    Source of the attempt (e.g., client address), or null if unknown
+     */
+    public void recordFailure(@Nonnull UserId userId, @Nullable String source) {
+        checkNotNull(userId);
+        if (source == null) {
+            return;
+        }
+        long now = ticker.read();
+        fail(userSources, new UserSource(userId, source), now);
+        fail(sources, source, now);
+    }
+
+    private <K> void fail(ThrottleTable<K> table, K key, long now) {
+        table.update(key, now, state -> {
+            int failures = (state == null ? 1 : state.failures + 1);
+            long arrivalTime = (state == null ? now : state.arrivalTime);
+            return new ThrottleTable.State<>(key, arrivalTime, failures, now + getDelay(failures));
+        });
+    }
+
+    /**
+     * Get the time for which attempts are blocked after the given number of consecutive failed attempts
+     *
+     * @param failures  Number of consecutive failed attempts
+     * @return Delay, in nanoseconds
+     */
+    long getDelay(int failures) {
+        int shift = failures - 1;
+        if (shift >= Long.numberOfLeadingZeros(baseDelayNanos) - 1) {
+            return maxDelayNanos;
+        }
+        return Math.min(baseDelayNanos << shift, maxDelayNanos);
+    }
+
+    /**
+     * Record a successful login attempt by the given user from the given source, lifting the block on further
+     * attempts by the user from that source
+     *
+     * @param userId    User identifier
+     * @param source    Source of the attempt (e.g., client address), or null if unknown
+     */
+    public void recordSuccess(@Nonnull UserId userId, @Nullable String source) {
+        checkNotNull(userId);
+        if (source == null) {
+            return;
+        }
+        long now = ticker.read();
+        UserSource key = new UserSource(userId, source);
+        userSources.update(key, now, state -> {
+            if (state == null || state.failures == 0) {
+                return state;
+            }
+            return new ThrottleTable.State<>(key, state.arrivalTime, 0, now);
+        });
+    }
+
+    /**
+     * Get the number of users whose throttling state is kept
+     *
+     * @return Number of users
+     */
+    public int getUserCount() {
+        return users.size(ticker.read());
+    }
+
+    /**
+     * Get the number of sources whose throttling state is kept
+     *
+     * @return Number of sources
+     */
+    public int getSourceCount() {
+        return sources.size(ticker.read());
+    }
+
+    /**
+     * Get the number of user and source pairs whose throttling state is kept
+     *
+     * @return Number of user and source pairs
+     */
+    int getUserSourceCount() {
+        return userSources.size(ticker.read());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("burst", burst)
+                .add("refillPeriod", Duration.ofNanos(refillNanos))
+                .add("baseDelay", Duration.ofNanos(baseDelayNanos))
+                .add("maxDelay", Duration.ofNanos(maxDelayNanos))
+                .toString();
+    }
+
+    /**
+     * A user identifier paired with the source of an attempt
+     */
+    @Immutable
+    private static final class UserSource {
+        @Nonnull private final UserId userId;
+        @Nonnull private final String source;
+
+        UserSource(@Nonnull UserId userId, @Nonnull String source) {
+            this.userId = userId;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof UserSource)) {
+                return false;
+            }
+            UserSource that = (UserSource) o;
+            return userId.equals(that.userId) && source.equals(that.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(userId, source);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package edu.stanford.protege.metaproject.impl;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
-import edu.stanford.protege.metaproject.ConfigurationManager;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import edu.stanford.protege.metaproject.api.*;
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 
 import javax.annotation.Nonnull;
@@ -11,13 +13,21 @@ import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * A password hash generator based on PBKDF2 (Password-Based Key Derivation Function 2)
+ * A password hash generator based on PBKDF2 (Password-Based Key Derivation Function 2). Looking up a key factory is
+ * comparatively costly, so each thread keeps one per algorithm and reuses it across hashes.
  *
  * @author Rafael Gonçalves <br>
  * Center for Biomedical Informatics Research <br>
@@ -26,36 +36,174 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Immutable
 @ThreadSafe
 public final class Pbkdf2PasswordHasher implements PasswordHasher {
-    private static final String ALGORITHM = "PBKDF2WithHmacSHA1";
+    private static final ImmutableMap<PasswordHashAlgorithm, ThreadLocal<SecretKeyFactory>> keyFactories = getKeyFactories();
+    private static final int CALIBRATION_PROBE_ITERATIONS = 1000, CALIBRATION_MIN_RUNS = 5, CALIBRATION_STABLE_RUNS = 5;
+    private static final long
+            CALIBRATION_MIN_PROBE_NANOS = TimeUnit.MILLISECONDS.toNanos(10),
+            CALIBRATION_MIN_TOTAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250),
+            CALIBRATION_MAX_TOTAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+    @Nonnull private final PasswordHashAlgorithm algorithm;
     private final int hashByteSize, nrIterations;
+    @Nonnull private final SaltGenerator saltGenerator;
 
     /**
      * Constructor
      *
+     * @param algorithm Password hashing algorithm
+     * @param hashByteSize  Hash byte size
+     * @param nrIterations    Number of iterations
+     * @param saltGenerator Generator of the salts of upgraded digests
+     */
+    public Pbkdf2PasswordHasher(@Nonnull PasswordHashAlgorithm algorithm, int hashByteSize, int nrIterations,
+                                @Nonnull SaltGenerator saltGenerator) {
+        checkArgument(hashByteSize > 0, "The hash byte size must be positive");
+        checkArgument(nrIterations > 0, "The number of iterations must be positive");
+        this.algorithm = checkNotNull(algorithm);
+        this.hashByteSize = hashByteSize;
+        this.nrIterations = nrIterations;
+        this.saltGenerator = checkNotNull(saltGenerator);
+    }
+
+    /**
+     * Constructor for a hasher that generates the salts of upgraded digests with a {@link SaltGeneratorImpl}
+     *
+     * @param algorithm Password hashing algorithm
+     * @param hashByteSize  Hash byte size
+     * @param nrIterations    Number of iterations
+     */
+    public Pbkdf2PasswordHasher(@Nonnull PasswordHashAlgorithm algorithm, int hashByteSize, int nrIterations) {
+        this(algorithm, hashByteSize, nrIterations, new SaltGeneratorImpl());
+    }
+
+    /**
+     * Constructor for a hasher that uses the default algorithm (see
+     * {@link ConfigurationUtils#getPasswordHashAlgorithm()})
+     *
      * @param hashByteSize  Hash byte size
      * @param nrIterations    Number of iterations
      */
     public Pbkdf2PasswordHasher(int hashByteSize, int nrIterations) {
-        this.hashByteSize = checkNotNull(hashByteSize);
-        this.nrIterations = checkNotNull(nrIterations);
+        this(ConfigurationUtils.getPasswordHashAlgorithm(), hashByteSize, nrIterations);
+    }
+
+    private static ImmutableMap<PasswordHashAlgorithm, ThreadLocal<SecretKeyFactory>> getKeyFactories() {
+        Map<PasswordHashAlgorithm, ThreadLocal<SecretKeyFactory>> factories = new EnumMap<>(PasswordHashAlgorithm.class);
+        for (PasswordHashAlgorithm algorithm : PasswordHashAlgorithm.values()) {
+            factories.put(algorithm, ThreadLocal.withInitial(() -> {
+                try {
+                    return SecretKeyFactory.getInstance(algorithm.getJcaName());
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("Cryptographic algorithm " + algorithm.getJcaName() +
+                            " is not available in this environment", e);
+                }
+            }));
+        }
+        return Maps.immutableEnumMap(factories);
     }
 
     @Override
     @Nonnull
     public SaltedPasswordDigest hash(@Nonnull PlainPassword password, @Nonnull Salt salt) {
-        byte[] saltBytes = salt.getBytes();
-        byte[] hash = hash(password.getPassword(), saltBytes, nrIterations, hashByteSize);
-        return ConfigurationManager.getFactory().getSaltedPasswordDigest(Hex.encodeHexString(hash), salt);
+        char[] chars = password.getPassword().toCharArray();
+        try {
+            return hash(chars, salt);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
     }
 
-    private byte[] hash(String password, byte[] salt, int iterations, int bytes) {
-        byte[] output = null;
+    @Override
+    @Nonnull
+    public SaltedPasswordDigest hash(@Nonnull char[] password, @Nonnull Salt salt) {
+        checkNotNull(password);
+        checkNotNull(salt);
+        byte[] hash = hash(password, salt.getBytes(), algorithm, nrIterations, hashByteSize);
+        return new SaltedPasswordDigestImpl(new String(Hex.encodeHex(hash)), salt, algorithm, nrIterations);
+    }
+
+    @Override
+    public boolean matches(@Nonnull char[] password, @Nonnull SaltedPasswordDigest digest) {
+        checkNotNull(password);
+        byte[] expected;
         try {
-            output = hash(password.toCharArray(), salt, iterations, bytes);
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            e.printStackTrace();
+            expected = Hex.decodeHex(digest.getPassword().toCharArray());
+        } catch (DecoderException e) {
+            return false;
         }
-        return output;
+        if (expected.length == 0) {
+            return false;
+        }
+        byte[] actual = hash(password, digest.getSalt().getBytes(), digest.getAlgorithm(),
+                digest.getNumberOfIterations(), expected.length);
+        return MessageDigest.isEqual(actual, expected);
+    }
+
+    @Override
+    public boolean needsRehash(@Nonnull SaltedPasswordDigest digest) {
+        return digest.getAlgorithm() != algorithm ||
+                digest.getNumberOfIterations() < nrIterations ||
+                digest.getPassword().length() != hashByteSize * 2;
+    }
+
+    @Override
+    @Nonnull
+    public Optional<SaltedPasswordDigest> upgrade(@Nonnull char[] password, @Nonnull SaltedPasswordDigest digest) {
+        if (needsRehash(digest) && matches(password, digest)) {
+            return Optional.of(hash(password, saltGenerator.generate()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get the number of key-stretching iterations for which hashing a password on this host takes roughly the target
+     * time. Hashes with a probe iteration count are timed (doubling the count until a hash takes long enough to be
+     * measured reliably), repeatedly until the fastest time stops improving (as the hashing code gets compiled) or
+     * two seconds have been spent, and the fastest run is extrapolated linearly. The result is rounded to the nearest
+     * thousand and kept within the bounds given by {@link ConfigurationUtils#getMinimumKeyStretchingIterations()} and
+     * {@link ConfigurationUtils#getMaximumKeyStretchingIterations()}
+     *
+     * @param algorithm Password hashing algorithm
+     * @param hashByteSize  Hash byte size
+     * @param targetMillis  Target time to hash a password, in milliseconds
+     * @return Number of iterations
+     */
+    public static int calibrate(@Nonnull PasswordHashAlgorithm algorithm, int hashByteSize, long targetMillis) {
+        checkNotNull(algorithm);
+        checkArgument(hashByteSize > 0, "The hash byte size must be positive");
+        checkArgument(targetMillis > 0, "The target hashing time must be positive");
+        char[] password = "calibration".toCharArray();
+        byte[] salt = new byte[16];
+        int probeIterations = CALIBRATION_PROBE_ITERATIONS;
+        long elapsed = time(password, salt, algorithm, probeIterations, hashByteSize);
+        while (elapsed < CALIBRATION_MIN_PROBE_NANOS && probeIterations < ConfigurationUtils.getMaximumKeyStretchingIterations()) {
+            probeIterations *= 2;
+            elapsed = time(password, salt, algorithm, probeIterations, hashByteSize);
+        }
+        // keep timing until the fastest run stops improving, i.e., the hashing code has been compiled
+        long total = 0;
+        int runs = 0, runsSinceImprovement = 0;
+        while ((runs < CALIBRATION_MIN_RUNS || total < CALIBRATION_MIN_TOTAL_NANOS || runsSinceImprovement < CALIBRATION_STABLE_RUNS)
+                && total < CALIBRATION_MAX_TOTAL_NANOS) {
+            long run = time(password, salt, algorithm, probeIterations, hashByteSize);
+            if (run < elapsed * 0.95) {
+                runsSinceImprovement = 0;
+            } else {
+                runsSinceImprovement++;
+            }
+            elapsed = Math.min(elapsed, run);
+            total += run;
+            runs++;
+        }
+        double iterations = (double) probeIterations * TimeUnit.MILLISECONDS.toNanos(targetMillis) / Math.max(elapsed, 1);
+        long rounded = Math.round(iterations / 1000) * 1000;
+        return (int) Math.max(ConfigurationUtils.getMinimumKeyStretchingIterations(),
+                Math.min(ConfigurationUtils.getMaximumKeyStretchingIterations(), rounded));
+    }
+
+    private static long time(char[] password, byte[] salt, PasswordHashAlgorithm algorithm, int iterations, int bytes) {
+        long start = System.nanoTime();
+        hash(password, salt, algorithm, iterations, bytes);
+        return System.nanoTime() - start;
     }
 
     /**
@@ -63,15 +211,25 @@ public final class Pbkdf2PasswordHasher implements PasswordHasher {
      *
      * @param password  Password to hash
      * @param salt  Salt
+     * @param algorithm Hashing algorithm
      * @param iterations    Iteration count (slowness factor)
      * @param bytes Length of the hash to compute
-     * @throws NoSuchAlgorithmException Cryptographic algorithm not available in this environment
-     * @throws InvalidKeySpecException  Invalid key specification
+     * @return Hash bytes
      */
-    private byte[] hash(char[] password, byte[] salt, int iterations, int bytes) throws NoSuchAlgorithmException, InvalidKeySpecException {
+    static byte[] hash(char[] password, byte[] salt, PasswordHashAlgorithm algorithm, int iterations, int bytes) {
         PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, bytes * 8);
-        SecretKeyFactory skf = SecretKeyFactory.getInstance(ALGORITHM);
-        return skf.generateSecret(spec).getEncoded();
+        try {
+            return keyFactories.get(algorithm).get().generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException e) {
+            throw new IllegalStateException("Unable to compute the " + algorithm.getJcaName() + " hash of the password", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    @Nonnull
+    public PasswordHashAlgorithm getAlgorithm() {
+        return algorithm;
     }
 
     public int getHashByteSize() {
@@ -91,18 +249,20 @@ public final class Pbkdf2PasswordHasher implements PasswordHasher {
             return false;
         }
         Pbkdf2PasswordHasher that = (Pbkdf2PasswordHasher) o;
-        return Objects.equal(hashByteSize, that.hashByteSize) &&
+        return Objects.equal(algorithm, that.algorithm) &&
+                Objects.equal(hashByteSize, that.hashByteSize) &&
                 Objects.equal(nrIterations, that.nrIterations);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(hashByteSize, nrIterations);
+        return Objects.hashCode(algorithm, hashByteSize, nrIterations);
     }
 
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
+                .add("algorithm", algorithm)
                 .add("hashByteSize", hashByteSize)
                 .add("nrIterations", nrIterations)
                 .toString();
@@ -0,0 +1,188 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import edu.stanford.protege.metaproject.api.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An index of the operations that each user is allowed to perform within each project, precompiled from an access
+ * control policy and a role registry. Role assignments in the universal project are merged into every project entry, so
+ * that a permission check amounts to (at most) three ordinal lookups, a binary search and a bit test.
+ *
+ * Users and projects are numbered by the ordinals of the {@link PolicyTable}, and operations are interned into a
+ * {@link SymbolTable}; the per-user project assignments are kept as sorted arrays of project ordinals with parallel
+ * permission sets, which are backed by bit sets of operation ordinals.
+ * Equal permission sets are shared, so users with the same combination of roles pay for a single one.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+final class PermissionIndex {
+    @Nonnull private final SymbolTable<UserId> userSymbols;
+    @Nonnull private final SymbolTable<ProjectId> projectSymbols;
+    @Nonnull private final SymbolTable<OperationId> operationSymbols;
+    @Nonnull private final ImmutableMap<OperationType, BitSet> typeMasks;
+    @Nonnull private final ImmutableMap<Operation.Scope, BitSet> scopeMasks;
+    @Nonnull private final PermissionSetImpl noPermissions;
+    @Nonnull private final int[][] projectOrdinals;
+    @Nonnull private final PermissionSetImpl[][] projectPermissions;
+    @Nonnull private final PermissionSetImpl[] globalPermissions, allPermissions;
+
+    /**
+     * Constructor
+     *
+     * @param policy  Policy table
+     * @param roles Set of roles
+     * @param operations    Set of operations
+     */
+    PermissionIndex(@Nonnull PolicyTable policy, @Nonnull Set<Role> roles, @Nonnull Set<Operation> operations) {
+        checkNotNull(policy);
+        checkNotNull(roles);
+        checkNotNull(operations);
+        SymbolTable.Builder<OperationId> operationTable = new SymbolTable.Builder<>();
+        Map<OperationType, BitSet> types = new EnumMap<>(OperationType.class);
+        Map<Operation.Scope, BitSet> scopes = new EnumMap<>(Operation.Scope.class);
+        for (Operation operation : operations) {
+            int ordinal = operationTable.intern(operation.getId());
+            types.computeIfAbsent(operation.getType(), k -> new BitSet()).set(ordinal);
+            scopes.computeIfAbsent(operation.getScope(), k -> new BitSet()).set(ordinal);
+        }
+        Map<RoleId, BitSet> roleGrants = new HashMap<>();
+        for (Role role : roles) {
+            if (!roleGrants.containsKey(role.getId())) {
+                BitSet grants = new BitSet();
+                for (OperationId operationId : role.getOperations()) {
+                    grants.set(operationTable.intern(operationId));
+                }
+                roleGrants.put(role.getId(), grants);
+            }
+        }
+        operationSymbols = operationTable.build();
+        typeMasks = Maps.immutableEnumMap(types);
+        scopeMasks = Maps.immutableEnumMap(scopes);
+        noPermissions = newPermissionSet(new BitSet());
+
+        userSymbols = policy.getUserSymbols();
+        projectSymbols = policy.getProjectSymbols();
+        SymbolTable<RoleId> roleSymbols = policy.getRoleSymbols();
+        BitSet[] grantsByRole = new BitSet[roleSymbols.size()];
+        for (int role = 0; role < grantsByRole.length; role++) {
+            grantsByRole[role] = roleGrants.getOrDefault(roleSymbols.getSymbol(role), new BitSet());
+        }
+        Map<BitSet, PermissionSetImpl> sharedPermissions = new HashMap<>();
+        int universalProject = projectSymbols.getOrdinal(ConfigurationUtils.getUniversalProjectId());
+        int nrUsers = userSymbols.size();
+        projectOrdinals = new int[nrUsers][];
+        projectPermissions = new PermissionSetImpl[nrUsers][];
+        globalPermissions = new PermissionSetImpl[nrUsers];
+        allPermissions = new PermissionSetImpl[nrUsers];
+        for (int user = 0; user < nrUsers; user++) {
+            // the assignments of a user are sorted by project ordinal, so each project's roles form a consecutive run
+            List<Integer> projects = new ArrayList<>();
+            List<BitSet> projectGrants = new ArrayList<>();
+            BitSet global = new BitSet();
+            for (int i = policy.getStart(user); i < policy.getEnd(user); i++) {
+                int project = policy.getProject(i);
+                if (projects.isEmpty() || projects.get(projects.size() - 1) != project) {
+                    projects.add(project);
+                    projectGrants.add(new BitSet());
+                }
+                BitSet grants = grantsByRole[policy.getRole(i)];
+                projectGrants.get(projectGrants.size() - 1).or(grants);
+                if (project == universalProject) {
+                    global.or(grants);
+                }
+            }
+            BitSet all = (BitSet) global.clone();
+            projectOrdinals[user] = new int[projects.size()];
+            projectPermissions[user] = new PermissionSetImpl[projects.size()];
+            for (int i = 0; i < projects.size(); i++) {
+                BitSet grants = projectGrants.get(i);
+                all.or(grants);
+                grants.or(global);
+                projectOrdinals[user][i] = projects.get(i);
+                projectPermissions[user][i] = share(grants, sharedPermissions);
+            }
+            globalPermissions[user] = share(global, sharedPermissions);
+            allPermissions[user] = share(all, sharedPermissions);
+        }
+    }
+
+    private PermissionSetImpl share(BitSet grants, Map<BitSet, PermissionSetImpl> sharedPermissions) {
+        return sharedPermissions.computeIfAbsent(grants, this::newPermissionSet);
+    }
+
+    private PermissionSetImpl newPermissionSet(BitSet grants) {
+        return new PermissionSetImpl(grants, operationSymbols, typeMasks, scopeMasks);
+    }
+
+    /**
+     * Get the operations that the given user is allowed to perform within the project, taking into account the
+     * user's role assignments in the universal project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @return Permission set
+     */
+    @Nonnull
+    PermissionSetImpl getPermissions(@Nonnull UserId userId, @Nonnull ProjectId projectId) {
+        int user = userSymbols.getOrdinal(userId);
+        if (user < 0) {
+            return noPermissions;
+        }
+        int project = projectSymbols.getOrdinal(projectId);
+        if (project >= 0) {
+            int i = Arrays.binarySearch(projectOrdinals[user], project);
+            if (i >= 0) {
+                return projectPermissions[user][i];
+            }
+        }
+        return globalPermissions[user];
+    }
+
+    /**
+     * Get the operations that the given user is allowed to perform in some project
+     *
+     * @param userId    User identifier
+     * @return Permission set
+     */
+    @Nonnull
+    PermissionSetImpl getPermissions(@Nonnull UserId userId) {
+        int user = userSymbols.getOrdinal(userId);
+        return user >= 0 ? allPermissions[user] : noPermissions;
+    }
+
+    /**
+     * Check whether the specified operation is allowed for the given user within the project, taking into account
+     * the user's role assignments in the universal project
+     *
+     * @param operationId   Operation identifier
+     * @param projectId Project identifier
+     * @param userId    User identifier
+     * @return true if user is allowed to carry out the specified operation within the project, false otherwise
+     */
+    boolean isOperationAllowed(@Nonnull OperationId operationId, @Nonnull ProjectId projectId, @Nonnull UserId userId) {
+        return getPermissions(userId, projectId).allows(operationId);
+    }
+
+    /**
+     * Check whether the specified operation is allowed for the given user in some project
+     *
+     * @param operationId   Operation identifier
+     * @param userId    User identifier
+     * @return true if user is allowed to carry out the specified operation, false otherwise
+     */
+    boolean isOperationAllowed(@Nonnull OperationId operationId, @Nonnull UserId userId) {
+        return getPermissions(userId).allows(operationId);
+    }
+}
@@ -0,0 +1,134 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.protege.metaproject.api.Operation;
+import edu.stanford.protege.metaproject.api.OperationId;
+import edu.stanford.protege.metaproject.api.OperationType;
+import edu.stanford.protege.metaproject.api.PermissionSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.BitSet;
+import java.util.Collection;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A permission set backed by a bit set of operation ordinals, as assigned by the operation symbol table of a
+ * {@link PermissionIndex}. The bit set is never modified after construction
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+public final class PermissionSetImpl implements PermissionSet {
+    @Nonnull private final BitSet grants;
+    @Nonnull private final SymbolTable<OperationId> operationSymbols;
+    @Nonnull private final ImmutableMap<OperationType, BitSet> typeMasks;
+    @Nonnull private final ImmutableMap<Operation.Scope, BitSet> scopeMasks;
+
+    /**
+     * Package-private constructor
+     *
+     * @param grants    Bit set of allowed operation ordinals
+     * @param operationSymbols  Operation symbol table
+     * @param typeMasks Map of operation types to the bit sets of ordinals of operations with that type
+     * @param scopeMasks    Map of operation scopes to the bit sets of ordinals of operations with that scope
+     */
+    PermissionSetImpl(@Nonnull BitSet grants, @Nonnull SymbolTable<OperationId> operationSymbols,
+                      @Nonnull ImmutableMap<OperationType, BitSet> typeMasks, @Nonnull ImmutableMap<Operation.Scope, BitSet> scopeMasks) {
+        this.grants = checkNotNull(grants);
+        this.operationSymbols = checkNotNull(operationSymbols);
+        this.typeMasks = checkNotNull(typeMasks);
+        this.scopeMasks = checkNotNull(scopeMasks);
+    }
+
+    @Override
+    public boolean allows(@Nonnull OperationId operationId) {
+        int operation = operationSymbols.getOrdinal(checkNotNull(operationId));
+        return operation >= 0 && grants.get(operation);
+    }
+
+    @Override
+    public boolean allowsAny(@Nonnull OperationType operationType) {
+        BitSet mask = typeMasks.get(checkNotNull(operationType));
+        return mask != null && grants.intersects(mask);
+    }
+
+    @Override
+    public boolean allowsAny(@Nonnull Operation.Scope scope) {
+        BitSet mask = scopeMasks.get(checkNotNull(scope));
+        return mask != null && grants.intersects(mask);
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableSet<OperationId> getDeniedOperations(@Nonnull Collection<OperationId> operationIds) {
+        checkNotNull(operationIds);
+        BitSet requested = new BitSet();
+        ImmutableSet.Builder<OperationId> denied = null;
+        for (OperationId operationId : operationIds) {
+            int operation = operationSymbols.getOrdinal(checkNotNull(operationId));
+            if (operation >= 0) {
+                requested.set(operation);
+            } else {
+                denied = (denied != null ? denied : ImmutableSet.builder());
+                denied.add(operationId);
+            }
+        }
+        requested.andNot(grants);
+        if (requested.isEmpty() && denied == null) {
+            return ImmutableSet.of();
+        }
+        denied = (denied != null ? denied : ImmutableSet.builder());
+        for (int i = requested.nextSetBit(0); i >= 0; i = requested.nextSetBit(i + 1)) {
+            denied.add(operationSymbols.getSymbol(i));
+        }
+        return denied.build();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return grants.isEmpty();
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableSet<OperationId> getOperationIds() {
+        ImmutableSet.Builder<OperationId> operationIds = ImmutableSet.builder();
+        for (int i = grants.nextSetBit(0); i >= 0; i = grants.nextSetBit(i + 1)) {
+            operationIds.add(operationSymbols.getSymbol(i));
+        }
+        return operationIds.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PermissionSet)) {
+            return false;
+        }
+        PermissionSet that = (PermissionSet) o;
+        return Objects.equal(getOperationIds(), that.getOperationIds());
+    }
+
+    @Override
+    public int hashCode() {
+        return getOperationIds().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("operationIds", getOperationIds())
+                .toString();
+    }
+}
@@ -109,6 +109,15 @@ public final class PolicyFactoryImpl implements PolicyFactory {
         return new SaltedPasswordDigestImpl(password, salt);
     }
 
+    @Nonnull
+    @Override
+    public SaltedPasswordDigest getSaltedPasswordDigest(@Nonnull String password, @Nonnull Salt salt, @Nonnull PasswordHashAlgorithm algorithm, int nrIterations) {
+        checkNotNull(password, "Password must not be null");
+        checkNotNull(salt, "Salt must not be null");
+        checkNotNull(algorithm, "Algorithm must not be null");
+        return new SaltedPasswordDigestImpl(password, salt, algorithm, nrIterations);
+    }
+
     @Nonnull
     @Override
     public Name getName(@Nonnull String name) {
@@ -225,7 +234,21 @@ public final class PolicyFactoryImpl implements PolicyFactory {
     @Nonnull
     @Override
     public PasswordHasher getPasswordHasher(int hashByteSize, int nrIterations) {
-        return new Pbkdf2PasswordHasher(hashByteSize, nrIterations);
+        return getPasswordHasher(ConfigurationUtils.getPasswordHashAlgorithm(), hashByteSize, nrIterations);
+    }
+
+    @Nonnull
+    @Override
+    public PasswordHasher getPasswordHasher(@Nonnull PasswordHashAlgorithm algorithm, int hashByteSize, int nrIterations) {
+        checkNotNull(algorithm, "Algorithm must not be null");
+        return new Pbkdf2PasswordHasher(algorithm, hashByteSize, nrIterations);
+    }
+
+    @Nonnull
+    @Override
+    public PasswordHasher getCalibratedPasswordHasher(@Nonnull PasswordHashAlgorithm algorithm, int hashByteSize, long targetMillis) {
+        checkNotNull(algorithm, "Algorithm must not be null");
+        return new Pbkdf2PasswordHasher(algorithm, hashByteSize, Pbkdf2PasswordHasher.calibrate(algorithm, hashByteSize, targetMillis));
     }
 
     @Nonnull
@@ -0,0 +1,474 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.protege.metaproject.api.ProjectId;
+import edu.stanford.protege.metaproject.api.RoleId;
+import edu.stanford.protege.metaproject.api.UserId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An access control policy stored as a table of (user, project, role) assignments. Users, projects and roles are
+ * interned into {@link SymbolTable}s, and each user's assignments are kept as a sorted run of (project, role) ordinal
+ * pairs packed into longs, located through an array of per-user offsets; two more pairs of arrays list the users
+ * assigned to each project, and the users assigned each role. The table takes a few bytes per assignment, against the
+ * several objects per assignment of nested hash maps, and it cannot be modified, so it is safely shared between
+ * configurations and builders.
+ *
+ * The nested map form of the policy is materialized, as deeply immutable maps and sets, only on request. Users with
+ * no role assignments, and projects with no roles, are not kept.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+final class PolicyTable implements Serializable {
+    private static final long serialVersionUID = -6120338425771834457L;
+    static final PolicyTable EMPTY = new PolicyTable(new SymbolTable.Builder<UserId>().build(),
+            new SymbolTable.Builder<ProjectId>().build(), new SymbolTable.Builder<RoleId>().build(), new int[1], new long[0]);
+    @Nonnull private final SymbolTable<UserId> userSymbols;
+    @Nonnull private final SymbolTable<ProjectId> projectSymbols;
+    @Nonnull private final SymbolTable<RoleId> roleSymbols;
+    @Nonnull private final int[] userOffsets, projectOffsets, projectUsers, roleOffsets, roleUsers;
+    @Nonnull private final long[] assignments;
+    private transient volatile ImmutableMap<UserId, Map<ProjectId, Set<RoleId>>> policyMap;
+
+    private PolicyTable(SymbolTable<UserId> userSymbols, SymbolTable<ProjectId> projectSymbols,
+                        SymbolTable<RoleId> roleSymbols, int[] userOffsets, long[] assignments) {
+        this.userSymbols = userSymbols;
+        this.projectSymbols = projectSymbols;
+        this.roleSymbols = roleSymbols;
+        this.userOffsets = userOffsets;
+        this.assignments = assignments;
+        // count, then place, the distinct users assigned to each project
+        int nrProjects = projectSymbols.size();
+        projectOffsets = new int[nrProjects + 1];
+        forEachUserProject((user, project) -> projectOffsets[project + 1]++);
+        for (int p = 0; p < nrProjects; p++) {
+            projectOffsets[p + 1] += projectOffsets[p];
+        }
+        projectUsers = new int[projectOffsets[nrProjects]];
+        int[] next = Arrays.copyOf(projectOffsets, nrProjects);
+        forEachUserProject((user, project) -> projectUsers[next[project]++] = user);
+        // and likewise the distinct users assigned each role
+        int nrRoles = roleSymbols.size();
+        roleOffsets = new int[nrRoles + 1];
+        forEachUserRole((user, role) -> roleOffsets[role + 1]++);
+        for (int r = 0; r < nrRoles; r++) {
+            roleOffsets[r + 1] += roleOffsets[r];
+        }
+        roleUsers = new int[roleOffsets[nrRoles]];
+        int[] nextUser = Arrays.copyOf(roleOffsets, nrRoles);
+        forEachUserRole((user, role) -> roleUsers[nextUser[role]++] = user);
+    }
+
+    /**
+     * Create a policy table with the role assignments in the given policy map
+     *
+     * @param policyMap Policy map of user identifiers to maps of projects to role identifiers
+     * @return Policy table
+     */
+    static PolicyTable of(@Nonnull Map<UserId, ? extends Map<ProjectId, ? extends Set<RoleId>>> policyMap) {
+        return EMPTY.with(policyMap);
+    }
+
+    /**
+     * Create a policy table in which the role assignments of the given users are replaced by the given ones, and the
+     * role assignments of all other users are as in this table. The assignments of the unchanged users are carried
+     * over by renumbering their ordinals, without looking up their identifiers, so the cost of deriving a table is
+     * dominated by the size of the changes
+     *
+     * @param changes   Map of user identifiers to their new maps of projects to role identifiers
+     * @return Policy table
+     */
+    PolicyTable with(@Nonnull Map<UserId, ? extends Map<ProjectId, ? extends Set<RoleId>>> changes) {
+        checkNotNull(changes);
+        // find the projects and roles still in use by the unchanged users
+        int nrUsers = userSymbols.size();
+        boolean[] changed = new boolean[nrUsers];
+        BitSet usedProjects = new BitSet(), usedRoles = new BitSet();
+        for (int user = 0; user < nrUsers; user++) {
+            changed[user] = changes.containsKey(userSymbols.getSymbol(user));
+            if (!changed[user]) {
+                for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+                    usedProjects.set(project(assignments[i]));
+                    usedRoles.set(role(assignments[i]));
+                }
+            }
+        }
+        // renumber them in their current order, so that the renumbered assignments remain sorted
+        SymbolTable.Builder<ProjectId> projectTable = new SymbolTable.Builder<>();
+        SymbolTable.Builder<RoleId> roleTable = new SymbolTable.Builder<>();
+        int[] projectOrdinals = renumber(projectSymbols, usedProjects, projectTable);
+        int[] roleOrdinals = renumber(roleSymbols, usedRoles, roleTable);
+
+        SymbolTable.Builder<UserId> userTable = new SymbolTable.Builder<>();
+        List<long[]> rows = new ArrayList<>();
+        int size = 0;
+        for (int user = 0; user < nrUsers; user++) {
+            UserId userId = userSymbols.getSymbol(user);
+            long[] row;
+            if (changed[user]) {
+                row = toRow(changes.get(userId), projectTable, roleTable);
+            } else {
+                row = Arrays.copyOfRange(assignments, userOffsets[user], userOffsets[user + 1]);
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = pack(projectOrdinals[project(row[i])], roleOrdinals[role(row[i])]);
+                }
+            }
+            if (row.length > 0) {
+                userTable.intern(userId);
+                rows.add(row);
+                size += row.length;
+            }
+        }
+        for (Map.Entry<UserId, ? extends Map<ProjectId, ? extends Set<RoleId>>> entry : changes.entrySet()) {
+            if (userSymbols.getOrdinal(entry.getKey()) < 0) {
+                long[] row = toRow(entry.getValue(), projectTable, roleTable);
+                if (row.length > 0 && userTable.getOrdinal(entry.getKey()) < 0) {
+                    userTable.intern(entry.getKey());
+                    rows.add(row);
+                    size += row.length;
+                }
+            }
+        }
+        int[] userOffsets = new int[rows.size() + 1];
+        long[] assignments = new long[size];
+        for (int user = 0; user < rows.size(); user++) {
+            long[] row = rows.get(user);
+            System.arraycopy(row, 0, assignments, userOffsets[user], row.length);
+            userOffsets[user + 1] = userOffsets[user] + row.length;
+        }
+        return new PolicyTable(userTable.build(), projectTable.build(), roleTable.build(), userOffsets, assignments);
+    }
+
+    private static <T> int[] renumber(SymbolTable<T> symbols, BitSet used, SymbolTable.Builder<T> table) {
+        int[] ordinals = new int[symbols.size()];
+        for (int ordinal = used.nextSetBit(0); ordinal >= 0; ordinal = used.nextSetBit(ordinal + 1)) {
+            ordinals[ordinal] = table.intern(symbols.getSymbol(ordinal));
+        }
+        return ordinals;
+    }
+
+    private static long[] toRow(Map<ProjectId, ? extends Set<RoleId>> userAssignments,
+                                SymbolTable.Builder<ProjectId> projectTable, SymbolTable.Builder<RoleId> roleTable) {
+        int nrAssignments = 0;
+        for (Set<RoleId> roleIds : checkNotNull(userAssignments).values()) {
+            nrAssignments += roleIds.size();
+        }
+        long[] row = new long[nrAssignments];
+        int i = 0;
+        for (Map.Entry<ProjectId, ? extends Set<RoleId>> assignment : userAssignments.entrySet()) {
+            if (!assignment.getValue().isEmpty()) {
+                int project = projectTable.intern(assignment.getKey());
+                for (RoleId roleId : assignment.getValue()) {
+                    row[i++] = pack(project, roleTable.intern(roleId));
+                }
+            }
+        }
+        Arrays.sort(row);
+        return row;
+    }
+
+    private static long pack(int project, int role) {
+        return ((long) project << 32) | role;
+    }
+
+    private static int project(long assignment) {
+        return (int) (assignment >>> 32);
+    }
+
+    private static int role(long assignment) {
+        return (int) assignment;
+    }
+
+    private interface UserProjectConsumer {
+        void accept(int user, int project);
+    }
+
+    private interface UserRoleConsumer {
+        void accept(int user, int role);
+    }
+
+    private void forEachUserProject(UserProjectConsumer consumer) {
+        for (int user = 0; user < userSymbols.size(); user++) {
+            int previous = -1;
+            for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+                int project = project(assignments[i]);
+                if (project != previous) {
+                    consumer.accept(user, project);
+                    previous = project;
+                }
+            }
+        }
+    }
+
+    private void forEachUserRole(UserRoleConsumer consumer) {
+        // a user's roles are not sorted, so mark the roles already seen for the user
+        int[] lastUser = new int[roleSymbols.size()];
+        Arrays.fill(lastUser, -1);
+        for (int user = 0; user < userSymbols.size(); user++) {
+            for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+                int role = role(assignments[i]);
+                if (lastUser[role] != user) {
+                    consumer.accept(user, role);
+                    lastUser[role] = user;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the index, among the given user's assignments, of the first assignment in the given project
+     *
+     * @return Index of the first assignment in the project, or -1 if the user has no roles in the project
+     */
+    private int find(int user, int project) {
+        int i = Arrays.binarySearch(assignments, userOffsets[user], userOffsets[user + 1], pack(project, 0));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return (i < userOffsets[user + 1] && project(assignments[i]) == project ? i : -1);
+    }
+
+    /**
+     * Check whether the given user has some role in some project
+     *
+     * @param userId    User identifier
+     * @return true if the user has some role assignment, false otherwise
+     */
+    boolean contains(@Nonnull UserId userId) {
+        return userSymbols.getOrdinal(userId) >= 0;
+    }
+
+    /**
+     * Check whether the given user has some role in the given project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @return true if the user has some role in the project, false otherwise
+     */
+    boolean contains(@Nonnull UserId userId, @Nonnull ProjectId projectId) {
+        int user = userSymbols.getOrdinal(userId), project = projectSymbols.getOrdinal(projectId);
+        return user >= 0 && project >= 0 && find(user, project) >= 0;
+    }
+
+    /**
+     * Check whether the given user has the given role in the given project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @param roleId    Role identifier
+     * @return true if the user has the role in the project, false otherwise
+     */
+    boolean contains(@Nonnull UserId userId, @Nonnull ProjectId projectId, @Nonnull RoleId roleId) {
+        int user = userSymbols.getOrdinal(userId), project = projectSymbols.getOrdinal(projectId),
+                role = roleSymbols.getOrdinal(roleId);
+        return user >= 0 && project >= 0 && role >= 0 &&
+                Arrays.binarySearch(assignments, userOffsets[user], userOffsets[user + 1], pack(project, role)) >= 0;
+    }
+
+    /**
+     * Get the roles of the given user in the given project
+     *
+     * @param userId    User identifier
+     * @param projectId Project identifier
+     * @return Set of role identifiers
+     */
+    @Nonnull
+    ImmutableSet<RoleId> getRoleIds(@Nonnull UserId userId, @Nonnull ProjectId projectId) {
+        int user = userSymbols.getOrdinal(userId), project = projectSymbols.getOrdinal(projectId);
+        int i = (user >= 0 && project >= 0 ? find(user, project) : -1);
+        if (i < 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<RoleId> roleIds = ImmutableSet.builder();
+        for (; i < userOffsets[user + 1] && project(assignments[i]) == project; i++) {
+            roleIds.add(roleSymbols.getSymbol(role(assignments[i])));
+        }
+        return roleIds.build();
+    }
+
+    /**
+     * Get the projects in which the given user has some role
+     *
+     * @param userId    User identifier
+     * @return Set of project identifiers
+     */
+    @Nonnull
+    ImmutableSet<ProjectId> getProjectIds(@Nonnull UserId userId) {
+        int user = userSymbols.getOrdinal(userId);
+        if (user < 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<ProjectId> projectIds = ImmutableSet.builder();
+        for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+            projectIds.add(projectSymbols.getSymbol(project(assignments[i])));
+        }
+        return projectIds.build();
+    }
+
+    /**
+     * Get the users that have some role in the given project
+     *
+     * @param projectId Project identifier
+     * @return Set of user identifiers
+     */
+    @Nonnull
+    ImmutableSet<UserId> getUserIds(@Nonnull ProjectId projectId) {
+        int project = projectSymbols.getOrdinal(projectId);
+        if (project < 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<UserId> userIds = ImmutableSet.builder();
+        for (int i = projectOffsets[project]; i < projectOffsets[project + 1]; i++) {
+            userIds.add(userSymbols.getSymbol(projectUsers[i]));
+        }
+        return userIds.build();
+    }
+
+    /**
+     * Get the users that have the given role in some project
+     *
+     * @param roleId    Role identifier
+     * @return Set of user identifiers
+     */
+    @Nonnull
+    ImmutableSet<UserId> getUserIds(@Nonnull RoleId roleId) {
+        int role = roleSymbols.getOrdinal(roleId);
+        if (role < 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<UserId> userIds = ImmutableSet.builder();
+        for (int i = roleOffsets[role]; i < roleOffsets[role + 1]; i++) {
+            userIds.add(userSymbols.getSymbol(roleUsers[i]));
+        }
+        return userIds.build();
+    }
+
+    /**
+     * Get the role assignments of the given user
+     *
+     * @param userId    User identifier
+     * @return Immutable map of project identifiers to sets of role identifiers
+     */
+    @Nonnull
+    ImmutableMap<ProjectId, Set<RoleId>> getAssignments(@Nonnull UserId userId) {
+        ImmutableMap<UserId, Map<ProjectId, Set<RoleId>>> policyMap = this.policyMap;
+        if (policyMap != null) {
+            Map<ProjectId, Set<RoleId>> assignments = policyMap.get(userId);
+            return (assignments != null ? (ImmutableMap<ProjectId, Set<RoleId>>) assignments : ImmutableMap.of());
+        }
+        int user = userSymbols.getOrdinal(userId);
+        return (user >= 0 ? getAssignments(user) : ImmutableMap.of());
+    }
+
+    private ImmutableMap<ProjectId, Set<RoleId>> getAssignments(int user) {
+        ImmutableMap.Builder<ProjectId, Set<RoleId>> userAssignments = ImmutableMap.builder();
+        int i = userOffsets[user];
+        while (i < userOffsets[user + 1]) {
+            int project = project(assignments[i]);
+            ImmutableSet.Builder<RoleId> roleIds = ImmutableSet.builder();
+            for (; i < userOffsets[user + 1] && project(assignments[i]) == project; i++) {
+                roleIds.add(roleSymbols.getSymbol(role(assignments[i])));
+            }
+            userAssignments.put(projectSymbols.getSymbol(project), roleIds.build());
+        }
+        return userAssignments.build();
+    }
+
+    /**
+     * Get the policy as a deeply immutable map of user identifiers to maps of projects to role identifiers. The map is
+     * built on first request
+     *
+     * @return Policy map
+     */
+    @Nonnull
+    ImmutableMap<UserId, Map<ProjectId, Set<RoleId>>> toMap() {
+        ImmutableMap<UserId, Map<ProjectId, Set<RoleId>>> policyMap = this.policyMap;
+        if (policyMap == null) {
+            ImmutableMap.Builder<UserId, Map<ProjectId, Set<RoleId>>> builder = ImmutableMap.builder();
+            for (int user = 0; user < userSymbols.size(); user++) {
+                builder.put(userSymbols.getSymbol(user), getAssignments(user));
+            }
+            this.policyMap = policyMap = builder.build();
+        }
+        return policyMap;
+    }
+
+    /**
+     * Get a new, modifiable copy of the role assignments of the given user, in which the sets of roles are modifiable
+     * copies as well
+     *
+     * @param userId    User identifier
+     * @return Map of project identifiers to sets of role identifiers
+     */
+    @Nonnull
+    Map<ProjectId, Set<RoleId>> getModifiableAssignments(@Nonnull UserId userId) {
+        Map<ProjectId, Set<RoleId>> userAssignments = new HashMap<>();
+        int user = userSymbols.getOrdinal(userId);
+        if (user >= 0) {
+            for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+                userAssignments.computeIfAbsent(projectSymbols.getSymbol(project(assignments[i])), k -> new HashSet<>())
+                        .add(roleSymbols.getSymbol(role(assignments[i])));
+            }
+        }
+        return userAssignments;
+    }
+
+    /*
+     * Package-private access to the table, for indexes derived from it
+     */
+
+    SymbolTable<UserId> getUserSymbols() {
+        return userSymbols;
+    }
+
+    SymbolTable<ProjectId> getProjectSymbols() {
+        return projectSymbols;
+    }
+
+    SymbolTable<RoleId> getRoleSymbols() {
+        return roleSymbols;
+    }
+
+    /**
+     * Get the index of the first assignment of the given user
+     */
+    int getStart(int user) {
+        return userOffsets[user];
+    }
+
+    /**
+     * Get the index after the last assignment of the given user
+     */
+    int getEnd(int user) {
+        return userOffsets[user + 1];
+    }
+
+    int getProject(int assignment) {
+        return project(assignments[assignment]);
+    }
+
+    int getRole(int assignment) {
+        return role(assignments[assignment]);
+    }
+
+    /**
+     * Get the number of role assignments
+     *
+     * @return Number of (user, project, role) assignments
+     */
+    int size() {
+        return assignments.length;
+    }
+}
@@ -1,7 +1,6 @@
 package edu.stanford.protege.metaproject.impl;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Objects;
 import com.google.common.collect.ComparisonChain;
 import edu.stanford.protege.metaproject.api.ProjectId;
 
@@ -47,12 +46,12 @@ public final class ProjectIdImpl implements ProjectId, Serializable {
             return false;
         }
         ProjectId that = (ProjectId) o;
-        return Objects.equal(id, that.get());
+        return id.equals(that.get());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(id);
+        return id.hashCode();
     }
 
     @Override
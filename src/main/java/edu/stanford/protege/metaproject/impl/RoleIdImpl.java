@@ -1,7 +1,6 @@
 package edu.stanford.protege.metaproject.impl;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Objects;
 import com.google.common.collect.ComparisonChain;
 import edu.stanford.protege.metaproject.api.RoleId;
 
@@ -47,12 +46,12 @@ public final class RoleIdImpl implements RoleId, Serializable {
             return false;
         }
         RoleId that = (RoleId) o;
-        return Objects.equal(id, that.get());
+        return id.equals(that.get());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(id);
+        return id.hashCode();
     }
 
     @Override
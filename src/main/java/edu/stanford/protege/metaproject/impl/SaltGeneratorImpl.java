@@ -1,6 +1,6 @@
 package edu.stanford.protege.metaproject.impl;
 
-import edu.stanford.protege.metaproject.ConfigurationManager;
+import com.google.common.collect.ImmutableList;
 import edu.stanford.protege.metaproject.api.Salt;
 import edu.stanford.protege.metaproject.api.SaltGenerator;
 import org.apache.commons.codec.binary.Hex;
@@ -8,9 +8,16 @@ import org.apache.commons.codec.binary.Hex;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
+ * A salt generator that draws from a secure random number generator kept per thread, so that it is seeded once
+ * per thread rather than once per salt. The DRBG mechanism is used where the platform provides it, and the default
+ * secure random number generator otherwise
+ *
  * @author Rafael Gonçalves <br>
  * Center for Biomedical Informatics Research <br>
  * Stanford University
@@ -19,12 +26,21 @@ import java.security.SecureRandom;
 @ThreadSafe
 public final class SaltGeneratorImpl implements SaltGenerator {
     private final static int DEFAULT_BYTE_LENGTH = 24;
+    private final static ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(SaltGeneratorImpl::newSecureRandom);
 
     /**
      * No-arguments constructor
      */
     public SaltGeneratorImpl() { }
 
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
     @Override
     @Nonnull
     public Salt generate() {
@@ -34,9 +50,26 @@ public final class SaltGeneratorImpl implements SaltGenerator {
     @Override
     @Nonnull
     public Salt generate(int nrBytes) {
+        checkArgument(nrBytes > 0, "The salt byte length must be positive");
         byte[] bytes = new byte[nrBytes];
-        new SecureRandom().nextBytes(bytes);
-        return ConfigurationManager.getFactory().getSalt(Hex.encodeHexString(bytes));
+        random.get().nextBytes(bytes);
+        return new SaltImpl(new String(Hex.encodeHex(bytes)));
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableList<Salt> generate(int count, int nrBytes) {
+        checkArgument(count >= 0, "The number of salts cannot be negative");
+        checkArgument(nrBytes > 0, "The salt byte length must be positive");
+        checkArgument((long) count * nrBytes <= Integer.MAX_VALUE / 2, "Too many salt bytes requested");
+        byte[] bytes = new byte[count * nrBytes];
+        random.get().nextBytes(bytes);
+        char[] hex = Hex.encodeHex(bytes);
+        ImmutableList.Builder<Salt> salts = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            salts.add(new SaltImpl(new String(hex, i * nrBytes * 2, nrBytes * 2)));
+        }
+        return salts.build();
     }
 
     @Override
@@ -2,6 +2,7 @@ package edu.stanford.protege.metaproject.impl;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import edu.stanford.protege.metaproject.api.PasswordHashAlgorithm;
 import edu.stanford.protege.metaproject.api.Salt;
 import edu.stanford.protege.metaproject.api.SaltedPasswordDigest;
 
@@ -10,6 +11,7 @@ import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.Serializable;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -23,16 +25,34 @@ public final class SaltedPasswordDigestImpl implements SaltedPasswordDigest, Ser
     private static final long serialVersionUID = 2576657046695803549L;
     @Nonnull private final String password;
     @Nonnull private final Salt salt;
+    @Nonnull private final PasswordHashAlgorithm algorithm;
+    private final int nrIterations;
 
     /**
      * Constructor for salted passwords
      *
      * @param password Password
      * @param salt     Salt
+     * @param algorithm    Hashing algorithm used to produce the password
+     * @param nrIterations Number of key-stretching iterations used to produce the password
      */
-    public SaltedPasswordDigestImpl(@Nonnull String password, @Nonnull Salt salt) {
+    public SaltedPasswordDigestImpl(@Nonnull String password, @Nonnull Salt salt, @Nonnull PasswordHashAlgorithm algorithm, int nrIterations) {
+        checkArgument(nrIterations > 0, "The number of iterations must be positive");
         this.password = checkNotNull(password);
         this.salt = checkNotNull(salt);
+        this.algorithm = checkNotNull(algorithm);
+        this.nrIterations = nrIterations;
+    }
+
+    /**
+     * Constructor for salted passwords that do not record their hashing parameters, which are assumed to be the
+     * legacy ones (see {@link ConfigurationUtils#getLegacyPasswordHashAlgorithm()})
+     *
+     * @param password Password
+     * @param salt     Salt
+     */
+    public SaltedPasswordDigestImpl(@Nonnull String password, @Nonnull Salt salt) {
+        this(password, salt, ConfigurationUtils.getLegacyPasswordHashAlgorithm(), ConfigurationUtils.getLegacyKeyStretchingIterations());
     }
 
     @Override
@@ -47,6 +67,29 @@ public final class SaltedPasswordDigestImpl implements SaltedPasswordDigest, Ser
         return salt;
     }
 
+    @Override
+    @Nonnull
+    public PasswordHashAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public int getNumberOfIterations() {
+        return nrIterations;
+    }
+
+    /**
+     * Instances serialized before digests recorded their hashing parameters are read back with the legacy ones
+     *
+     * @return Salted password digest
+     */
+    private Object readResolve() {
+        if (algorithm == null || nrIterations <= 0) {
+            return new SaltedPasswordDigestImpl(password, salt);
+        }
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -57,12 +100,14 @@ public final class SaltedPasswordDigestImpl implements SaltedPasswordDigest, Ser
         }
         SaltedPasswordDigest that = (SaltedPasswordDigest) o;
         return Objects.equal(password, that.getPassword()) &&
-                Objects.equal(salt, that.getSalt());
+                Objects.equal(salt, that.getSalt()) &&
+                Objects.equal(algorithm, that.getAlgorithm()) &&
+                nrIterations == that.getNumberOfIterations();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(password, salt);
+        return Objects.hashCode(password, salt, algorithm, nrIterations);
     }
 
     @Override
@@ -70,6 +115,8 @@ public final class SaltedPasswordDigestImpl implements SaltedPasswordDigest, Ser
         return MoreObjects.toStringHelper(this)
                 .add("password", password)
                 .add("salt", salt)
+                .add("algorithm", algorithm)
+                .add("nrIterations", nrIterations)
                 .toString();
     }
 }
@@ -4,6 +4,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import edu.stanford.protege.metaproject.api.*;
 import edu.stanford.protege.metaproject.api.exception.*;
 import org.slf4j.Logger;
@@ -15,11 +16,8 @@ import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.File;
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -31,9 +29,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Immutable
 @ThreadSafe
 public final class ServerConfigurationImpl implements ServerConfiguration, Serializable {
-    private static final long serialVersionUID = -8439017057476248949L;
+    private static final long serialVersionUID = -4450692211895332798L;
     private static final Logger logger = LoggerFactory.getLogger(ServerConfigurationImpl.class.getName());
-    @Nonnull private final ImmutableMap<UserId, Map<ProjectId, Set<RoleId>>> policyMap;
+    @Nonnull private final PolicyTable policy;
     @Nonnull private final ImmutableSet<User> users;
     @Nonnull private final ImmutableSet<Project> projects;
     @Nonnull private final ImmutableSet<Role> roles;
@@ -42,6 +40,14 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Nonnull private final ImmutableMap<String,String> properties;
     @Nonnull private final Host host;
     @Nonnull private final File root;
+    @Nonnull private final transient ImmutableMap<UserId, User> userIndex;
+    @Nonnull private final transient ImmutableMap<ProjectId, Project> projectIndex;
+    @Nonnull private final transient ImmutableMap<RoleId, Role> roleIndex;
+    @Nonnull private final transient ImmutableMap<OperationId, Operation> operationIndex;
+    @Nonnull private final transient AuthenticationStore authStore;
+    @Nonnull private final transient ImmutableSetMultimap<String, User> usersByName, usersByEmailAddress;
+    @Nonnull private final transient ImmutableSetMultimap<Name, Project> projectsByName;
+    @Nonnull private final transient PermissionIndex permissionIndex;
 
     /**
      * Package-private constructor; use {@link ConfigurationBuilder}
@@ -59,15 +65,142 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     ServerConfigurationImpl(@Nonnull Host host, @Nonnull File root, @Nonnull Map<UserId, Map<ProjectId, Set<RoleId>>> policyMap,
                             @Nonnull Set<User> users, @Nonnull Set<Project> projects, @Nonnull Set<Role> roles, @Nonnull Set<Operation> operations,
                             @Nonnull Set<AuthenticationDetails> authDetails, @Nonnull Map<String,String> properties) {
+        this(host, root, PolicyTable.of(policyMap), users, projects, roles, operations, authDetails, properties, null);
+    }
+
+    /**
+     * Package-private constructor; use {@link ConfigurationBuilder}. Collections given as the very immutable
+     * collections of the previous configuration are shared with it, along with the indexes derived from them, so that
+     * deriving a configuration costs time proportional to the collections that changed
+     *
+     * @param host    Host
+     * @param root  Root directory of the server
+     * @param policy    Policy table
+     * @param roles Set of roles
+     * @param operations    Set of operations
+     * @param users Set of users
+     * @param projects   Set of projects
+     * @param authDetails   Set of user authentication details
+     * @param properties   Map of custom configuration properties
+     * @param previous  Configuration this one is derived from, or null
+     */
+    ServerConfigurationImpl(@Nonnull Host host, @Nonnull File root, @Nonnull PolicyTable policy,
+                            @Nonnull Set<User> users, @Nonnull Set<Project> projects, @Nonnull Set<Role> roles, @Nonnull Set<Operation> operations,
+                            @Nonnull Set<AuthenticationDetails> authDetails, @Nonnull Map<String,String> properties,
+                            @Nullable ServerConfigurationImpl previous) {
         this.host = checkNotNull(host);
         this.root = checkNotNull(root);
-        this.policyMap = ImmutableMap.copyOf(checkNotNull(policyMap));
+        // copyOf returns immutable collections as they are, so unchanged collections are shared with the previous configuration
+        this.policy = checkNotNull(policy);
         this.users = ImmutableSet.copyOf(checkNotNull(users));
         this.projects = ImmutableSet.copyOf(checkNotNull(projects));
         this.roles = ImmutableSet.copyOf(checkNotNull(roles));
         this.operations = ImmutableSet.copyOf(checkNotNull(operations));
         this.authDetails = ImmutableSet.copyOf(checkNotNull(authDetails));
         this.properties = ImmutableMap.copyOf(checkNotNull(properties));
+
+        if(previous != null && this.users == previous.users) {
+            this.userIndex = previous.userIndex;
+            this.usersByName = previous.usersByName;
+            this.usersByEmailAddress = previous.usersByEmailAddress;
+        } else {
+            this.userIndex = index(this.users, User::getId);
+            ImmutableSetMultimap.Builder<String, User> usersByName = ImmutableSetMultimap.builder();
+            ImmutableSetMultimap.Builder<String, User> usersByEmailAddress = ImmutableSetMultimap.builder();
+            for(User user : this.users) {
+                usersByName.put(user.getName().get(), user);
+                usersByEmailAddress.put(normalize(user.getEmailAddress()), user);
+            }
+            this.usersByName = usersByName.build();
+            this.usersByEmailAddress = usersByEmailAddress.build();
+        }
+
+        if(previous != null && this.projects == previous.projects) {
+            this.projectIndex = previous.projectIndex;
+            this.projectsByName = previous.projectsByName;
+        } else {
+            this.projectIndex = index(this.projects, Project::getId);
+            ImmutableSetMultimap.Builder<Name, Project> projectsByName = ImmutableSetMultimap.builder();
+            for(Project project : this.projects) {
+                if(!project.getId().equals(ConfigurationUtils.getUniversalProjectId())) {
+                    projectsByName.put(project.getName(), project);
+                }
+            }
+            this.projectsByName = projectsByName.build();
+        }
+
+        boolean samePolicy = (previous != null && this.policy == previous.policy);
+        boolean sameRoles = (previous != null && this.roles == previous.roles);
+        boolean sameOperations = (previous != null && this.operations == previous.operations);
+        this.roleIndex = (sameRoles ? previous.roleIndex : index(this.roles, Role::getId));
+        this.operationIndex = (sameOperations ? previous.operationIndex : index(this.operations, Operation::getId));
+        this.authStore = (previous != null && this.authDetails == previous.authDetails ?
+                previous.authStore : new AuthenticationStore(this.authDetails));
+        this.permissionIndex = (samePolicy && sameRoles && sameOperations ?
+                previous.permissionIndex : new PermissionIndex(this.policy, this.roles, this.operations));
+    }
+
+    /**
+     * Get the normalized (case-folded) form of the given email address, under which users are indexed
+     *
+     * @param emailAddress  Email address
+     * @return Normalized email address string
+     */
+    static String normalize(EmailAddress emailAddress) {
+        return emailAddress.get().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index the given elements by their keys. If two elements share the same key, the first one found is indexed
+     *
+     * @param elements  Set of elements
+     * @param key   Function that obtains the key of an element
+     * @return Map of keys to elements
+     */
+    private static <K, V> ImmutableMap<K, V> index(Set<V> elements, Function<V, K> key) {
+        Map<K, V> map = new LinkedHashMap<>();
+        for(V element : elements) {
+            map.putIfAbsent(key.apply(element), element);
+        }
+        return ImmutableMap.copyOf(map);
+    }
+
+    /*
+     * Package-private access to the identifier indexes, which builders derived from this configuration use as their
+     * registries until they modify them
+     */
+
+    PolicyTable policy() {
+        return policy;
+    }
+
+    ImmutableMap<UserId, User> userIndex() {
+        return userIndex;
+    }
+
+    ImmutableMap<ProjectId, Project> projectIndex() {
+        return projectIndex;
+    }
+
+    ImmutableMap<RoleId, Role> roleIndex() {
+        return roleIndex;
+    }
+
+    ImmutableMap<OperationId, Operation> operationIndex() {
+        return operationIndex;
+    }
+
+    Map<UserId, AuthenticationDetails> authDetailsIndex() {
+        return authStore.asMap();
+    }
+
+    /**
+     * Rebuild the transient indexes of a deserialized configuration
+     *
+     * @return Server configuration
+     */
+    private Object readResolve() {
+        return new ServerConfigurationImpl(host, root, policy, users, projects, roles, operations, authDetails, properties, null);
     }
 
     @Override
@@ -101,36 +234,21 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Override
     @Nonnull
     public ImmutableMap<UserId, Map<ProjectId, Set<RoleId>>> getPolicyMap() {
-        return policyMap;
+        return policy.toMap();
     }
 
     @Override
     public boolean hasRole(@Nonnull UserId userId, @Nonnull ProjectId projectId, @Nonnull RoleId roleId) {
-        Map<UserId,Map<ProjectId,Set<RoleId>>> policyMap = getPolicyMap();
-        if (policyMap.containsKey(userId)) {
-            Map<ProjectId, Set<RoleId>> assignments = getUserRoleMap(userId);
-            if (assignments.containsKey(projectId)) {
-                if(assignments.get(projectId).contains(roleId)) {
-                    return true;
-                }
-            }
-            if (assignments.containsKey(ConfigurationUtils.getUniversalProjectId())) {
-                return assignments.get(ConfigurationUtils.getUniversalProjectId()).contains(roleId);
-            }
-        }
-        return false;
+        return policy.contains(userId, projectId, roleId) ||
+                policy.contains(userId, ConfigurationUtils.getUniversalProjectId(), roleId);
     }
 
     @Override
     @Nonnull
     public Set<RoleId> getRoleIds(@Nonnull UserId userId, @Nonnull ProjectId projectId, @Nonnull GlobalPermissions globalPermissions) {
-        Map<ProjectId,Set<RoleId>> assignments = getUserRoleMap(userId);
-        Set<RoleId> roles = new HashSet<>();
-        if(assignments.containsKey(projectId)) {
-            roles.addAll(assignments.get(projectId));
-        }
-        if(globalPermissions.equals(GlobalPermissions.INCLUDED) && assignments.containsKey(ConfigurationUtils.getUniversalProjectId())) {
-            roles.addAll(assignments.get(ConfigurationUtils.getUniversalProjectId()));
+        Set<RoleId> roles = new HashSet<>(policy.getRoleIds(userId, projectId));
+        if(globalPermissions.equals(GlobalPermissions.INCLUDED)) {
+            roles.addAll(policy.getRoleIds(userId, ConfigurationUtils.getUniversalProjectId()));
         }
         return roles;
     }
@@ -152,82 +270,52 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Override
     @Nonnull
     public Set<ProjectId> getProjectIds(@Nonnull UserId userId) {
-        return new HashSet<>(getUserRoleMap(userId).keySet());
+        return new HashSet<>(policy.getProjectIds(userId));
     }
 
     @Override
     public boolean isOperationAllowed(@Nonnull OperationId operationId, @Nonnull ProjectId projectId, @Nonnull UserId userId) {
-        try {
-            Set<RoleId> roles = new HashSet<>(getRoleIds(userId, projectId, GlobalPermissions.INCLUDED));
-            for (RoleId role : roles) {
-                Role r = getRole(role);
-                if (r.getOperations().contains(operationId)) {
-                    return true;
-                }
-            }
-        } catch (UnknownRoleIdException e) {
-            return false;
-        }
-        return false;
+        return permissionIndex.isOperationAllowed(operationId, projectId, userId);
+    }
+
+    @Override
+    @Nonnull
+    public PermissionSet getEffectivePermissions(@Nonnull UserId userId, @Nonnull ProjectId projectId) {
+        return permissionIndex.getPermissions(checkNotNull(userId), checkNotNull(projectId));
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableSet<OperationId> getDeniedOperations(@Nonnull UserId userId, @Nonnull ProjectId projectId,
+                                                         @Nonnull Collection<OperationId> operationIds) {
+        return permissionIndex.getPermissions(checkNotNull(userId), checkNotNull(projectId)).getDeniedOperations(operationIds);
     }
 
     @Override
     public boolean isOperationAllowed(@Nonnull OperationId operationId, @Nonnull UserId userId) {
-        try {
-            Set<RoleId> roles = getRoleIds(userId, GlobalPermissions.INCLUDED);
-            for (RoleId role : roles) {
-                Role r = getRole(role);
-                if (r.getOperations().contains(operationId)) {
-                    return true;
-                }
-            }
-        } catch (UnknownRoleIdException e) {
-            return false;
-        }
-        return false;
+        return permissionIndex.isOperationAllowed(operationId, userId);
     }
 
     @Override
     public boolean hasRole(@Nonnull UserId userId, @Nonnull ProjectId projectId) {
-        Map<UserId,Map<ProjectId,Set<RoleId>>> policyMap = getPolicyMap();
-        for (UserId user : policyMap.keySet()) {
-            if (user.equals(userId)) {
-                for (ProjectId project : policyMap.get(userId).keySet()) {
-                    if (project.equals(projectId)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return policy.contains(userId, projectId);
     }
 
     @Override
     @Nonnull
     public Map<ProjectId, Set<RoleId>> getUserRoleMap(@Nonnull UserId userId) {
-        Map<ProjectId, Set<RoleId>> map = new HashMap<>();
-        if(getPolicyMap().get(userId) != null) {
-            return getPolicyMap().get(userId);
-        }
-        return map;
+        return policy.getAssignments(userId);
     }
 
     @Override
     @Nonnull
-    public Set<UserId> getUserIds(@Nonnull ProjectId projectId) {
-        Map<UserId,Map<ProjectId,Set<RoleId>>> policyMap = getPolicyMap();
-        return policyMap.keySet().stream().filter(userId ->
-                policyMap.get(userId).keySet().contains(projectId)).collect(Collectors.toSet());
+    public ImmutableSet<UserId> getUserIds(@Nonnull ProjectId projectId) {
+        return policy.getUserIds(projectId);
     }
 
     @Override
     public boolean hasRole(@Nonnull UserId id) {
-        for (UserId userId : getPolicyMap().keySet()) {
-            if (userId.equals(id)) {
-                return true;
-            }
-        }
-        return false;
+        return policy.contains(id);
     }
 
 
@@ -243,15 +331,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Override
     @Nonnull
     public User getUser(@Nonnull UserId userId) throws UnknownUserIdException {
-        checkNotNull(userId);
-        Set<User> users = getUsers();
-        User user = null;
-        for(User u : users) {
-            if(u.getId().equals(userId)) {
-                user = u;
-                break;
-            }
-        }
+        User user = userIndex.get(checkNotNull(userId));
         if(user != null) {
             return user;
         } else {
@@ -261,16 +341,22 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     @Nonnull
-    public Set<User> getUsers(@Nonnull Name userName) {
+    public Optional<User> findUser(@Nonnull UserId userId) {
+        return Optional.ofNullable(userIndex.get(checkNotNull(userId)));
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableSet<User> getUsers(@Nonnull Name userName) {
         checkNotNull(userName);
-        return getUsers().stream().filter(user -> user.getName().get().equals(userName.get())).collect(Collectors.toSet());
+        return usersByName.get(userName.get());
     }
 
     @Override
     @Nonnull
-    public Set<User> getUsers(@Nonnull EmailAddress emailAddress) {
+    public ImmutableSet<User> getUsers(@Nonnull EmailAddress emailAddress) {
         checkNotNull(emailAddress);
-        return getUsers().stream().filter(user -> user.getEmailAddress().equals(emailAddress)).collect(Collectors.toSet());
+        return usersByEmailAddress.get(normalize(emailAddress));
     }
 
     @Override
@@ -281,24 +367,13 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     public boolean containsUser(@Nonnull UserId userId) {
-        checkNotNull(userId);
-        try {
-            return containsUser(getUser(userId));
-        } catch (UnknownUserIdException e) {
-            /* no-op */
-        }
-        return false;
+        return userIndex.containsKey(checkNotNull(userId));
     }
 
     @Override
     public boolean isEmailAddressInUse(@Nonnull EmailAddress address) {
         checkNotNull(address);
-        for(User u : getUsers()) {
-            if(u.getEmailAddress().equals(address)) {
-                return true;
-            }
-        }
-        return false;
+        return usersByEmailAddress.containsKey(normalize(address));
     }
 
 
@@ -318,14 +393,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
         if(projectId.equals(ConfigurationUtils.getUniversalProjectId())) {
             return ConfigurationUtils.getUniversalProject();
         }
-        Set<Project> projects = getProjects();
-        Project project = null;
-        for(Project p : projects) {
-            if(p.getId().equals(projectId)) {
-                project = p;
-                break;
-            }
-        }
+        Project project = projectIndex.get(projectId);
         if(project != null) {
             return project;
         } else {
@@ -335,25 +403,27 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     @Nonnull
-    public Set<Project> getProjects(@Nonnull Name projectName) {
+    public Optional<Project> findProject(@Nonnull ProjectId projectId) {
+        checkNotNull(projectId);
+        if(projectId.equals(ConfigurationUtils.getUniversalProjectId())) {
+            return Optional.of(ConfigurationUtils.getUniversalProject());
+        }
+        return Optional.ofNullable(projectIndex.get(projectId));
+    }
+
+    @Override
+    @Nonnull
+    public ImmutableSet<Project> getProjects(@Nonnull Name projectName) {
         checkNotNull(projectName);
-        return getProjects().stream().filter(project -> project.getName().equals(projectName) &&
-                !project.getId().equals(ConfigurationUtils.getUniversalProjectId())).collect(Collectors.toSet());
+        return projectsByName.get(projectName);
     }
 
     @Override
     @Nonnull
     public Set<Project> getProjects(@Nonnull UserId userId) {
         Set<Project> projects = new HashSet<>();
-        Set<ProjectId> projectIds = getProjectIds(userId);
-        for (ProjectId projectId : projectIds) {
-            try {
-                Project p = getProject(projectId);
-                projects.add(p);
-            } catch (UnknownProjectIdException e) {
-                logger.debug("The project with identifier '" + projectId.get() + "' is stated in the access control policy " +
-                        "but there is no project with that identifier in the project registry.");
-            }
+        for (ProjectId projectId : getProjectIds(userId)) {
+            findProject(projectId).ifPresent(projects::add);
         }
         return projects;
     }
@@ -366,13 +436,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     public boolean containsProject(@Nonnull ProjectId projectId) {
-        checkNotNull(projectId);
-        try {
-            return containsProject(getProject(projectId));
-        } catch (UnknownProjectIdException e) {
-            /* no-op */
-        }
-        return false;
+        return projectIndex.containsKey(checkNotNull(projectId));
     }
 
 
@@ -388,13 +452,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Override
     @Nonnull
     public Role getRole(@Nonnull RoleId roleId) throws UnknownRoleIdException {
-        checkNotNull(roleId);
-        Role role = null;
-        for(Role r : roles) {
-            if(r.getId().equals(roleId)) {
-                role = r; break;
-            }
-        }
+        Role role = roleIndex.get(checkNotNull(roleId));
         if(role != null) {
             return role;
         } else {
@@ -402,6 +460,12 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
         }
     }
 
+    @Override
+    @Nonnull
+    public Optional<Role> findRole(@Nonnull RoleId roleId) {
+        return Optional.ofNullable(roleIndex.get(checkNotNull(roleId)));
+    }
+
     @Override
     @Nonnull
     public Set<Role> getRoles(@Nonnull UserId userId, @Nonnull GlobalPermissions globalPermissions) {
@@ -419,11 +483,9 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     private Set<Role> getRoles(@Nonnull Set<RoleId> roleIds) {
         Set<Role> roles = new HashSet<>();
         for (RoleId roleId : roleIds) {
-            try {
-                roles.add(getRole(roleId));
-            } catch (UnknownRoleIdException e) {
-                logger.debug("The role with identifier '" + roleId.get() + "' is stated in the access control policy " +
-                        "but there is no role with that identifier in the role registry.");
+            Role role = roleIndex.get(roleId);
+            if (role != null) {
+                roles.add(role);
             }
         }
         return roles;
@@ -437,13 +499,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     public boolean containsRole(@Nonnull RoleId roleId) {
-        checkNotNull(roleId);
-        try {
-            return containsRole(getRole(roleId));
-        } catch (UnknownRoleIdException e) {
-            /* no-op */
-        }
-        return false;
+        return roleIndex.containsKey(checkNotNull(roleId));
     }
 
 
@@ -459,14 +515,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Override
     @Nonnull
     public Operation getOperation(@Nonnull OperationId operationId) throws UnknownOperationIdException {
-        checkNotNull(operationId);
-        Set<Operation> operations = getOperations();
-        Operation operation = null;
-        for(Operation o : operations) {
-            if(o.getId().equals(operationId)) {
-                operation = o; break;
-            }
-        }
+        Operation operation = operationIndex.get(checkNotNull(operationId));
         if(operation != null) {
             return operation;
         } else {
@@ -474,6 +523,12 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
         }
     }
 
+    @Override
+    @Nonnull
+    public Optional<Operation> findOperation(@Nonnull OperationId operationId) {
+        return Optional.ofNullable(operationIndex.get(checkNotNull(operationId)));
+    }
+
     @Override
     @Nonnull
     public Set<Operation> getOperations(@Nonnull UserId userId, @Nonnull GlobalPermissions globalPermissions) {
@@ -502,12 +557,10 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Nonnull
     public Set<Operation> getOperations(@Nonnull Role role) {
         Set<Operation> operations = new HashSet<>();
-        for (OperationId opId : role.getOperations()) {
-            try {
-                operations.add(getOperation(opId));
-            } catch (UnknownOperationIdException e) {
-                logger.debug("The operation with identifier '" + opId.get() + "' is stated in the operation list of the role '" +
-                        role.getName() + "', but there is no operation with that identifier in the operation registry.");
+        for (OperationId operationId : role.getOperations()) {
+            Operation operation = operationIndex.get(operationId);
+            if (operation != null) {
+                operations.add(operation);
             }
         }
         return operations;
@@ -521,13 +574,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     public boolean containsOperation(@Nonnull OperationId operationId) {
-        checkNotNull(operationId);
-        try {
-            return containsOperation(getOperation(operationId));
-        } catch (UnknownOperationIdException e) {
-            /* no-op */
-        }
-        return false;
+        return operationIndex.containsKey(checkNotNull(operationId));
     }
 
 
@@ -543,18 +590,18 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
     @Override
     @Nonnull
     public AuthenticationDetails getAuthenticationDetails(@Nonnull UserId userId) throws UserNotRegisteredException {
-        AuthenticationDetails details = null;
-        for(AuthenticationDetails userDetails : getAuthenticationDetails()) {
-            if (userDetails.getUserId().equals(userId)) {
-                details = userDetails;
-                break;
-            }
-        }
-        if(details == null) {
+        Optional<AuthenticationDetails> details = authStore.find(userId);
+        if(!details.isPresent()) {
             throw new UserNotRegisteredException("The specified user identifier does not correspond to a user registered" +
                     " with the authentication manager.");
         }
-        return details;
+        return details.get();
+    }
+
+    @Override
+    @Nonnull
+    public Optional<AuthenticationDetails> findAuthenticationDetails(@Nonnull UserId userId) {
+        return authStore.find(userId);
     }
 
     @Override
@@ -565,40 +612,16 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     public boolean isRegistered(@Nonnull UserId userId) {
-        for(AuthenticationDetails userDetails : getAuthenticationDetails()) {
-            if(userDetails.getUserId().equals(userId)) {
-                return true;
-            }
-        }
-        return false;
+        return authStore.contains(userId);
     }
 
     @Override
     public boolean hasValidCredentials(@Nonnull UserId userId, @Nonnull SaltedPasswordDigest password) {
-        SaltedPasswordDigest correctHash;
-        try {
-            correctHash = getAuthenticationDetails(userId).getPassword();
-        } catch (UserNotRegisteredException e) {
+        boolean valid = authStore.hasValidCredentials(userId, password);
+        if (!valid && logger.isDebugEnabled() && !authStore.contains(userId)) {
             logger.debug("User identifier " + userId.get() + " does not correspond to a registered user");
-            return false;
-        }
-        return slowEquals(password.getPassword().getBytes(), correctHash.getPassword().getBytes());
-    }
-
-    /**
-     * Compares two byte arrays in length-constant time. This comparison method is used so that password hashes
-     * cannot be extracted from an on-line system using a timing attack and then attacked off-line
-     *
-     * @param a First byte array
-     * @param b Second byte array
-     * @return true if both byte arrays are the same, false otherwise
-     */
-    private boolean slowEquals(byte[] a, byte[] b) {
-        int diff = a.length ^ b.length;
-        for(int i = 0; i < a.length && i < b.length; i++) {
-            diff |= a[i] ^ b[i];
         }
-        return diff == 0;
+        return valid;
     }
 
     @Override
@@ -610,7 +633,7 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
             return false;
         }
         ServerConfiguration that = (ServerConfiguration) o;
-        return Objects.equal(policyMap, that.getPolicyMap()) &&
+        return Objects.equal(getPolicyMap(), that.getPolicyMap()) &&
                 Objects.equal(roles, that.getRoles()) &&
                 Objects.equal(operations, that.getOperations()) &&
                 Objects.equal(users, that.getUsers()) &&
@@ -623,13 +646,13 @@ public final class ServerConfigurationImpl implements ServerConfiguration, Seria
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(policyMap, roles, operations, users, projects, authDetails, properties, host, root);
+        return Objects.hashCode(getPolicyMap(), roles, operations, users, projects, authDetails, properties, host, root);
     }
 
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
-                .add("policyMap", policyMap)
+                .add("policyMap", getPolicyMap())
                 .add("roles", roles)
                 .add("operations", operations)
                 .add("users", users)
@@ -0,0 +1,190 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.io.BaseEncoding;
+import edu.stanford.protege.metaproject.api.AuthToken;
+import edu.stanford.protege.metaproject.api.User;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An authorization token for an authenticated session, issued by a {@link SessionTokenIssuer} once the user's
+ * credentials have been verified. The token records when it was issued, when it expires, and the version of the
+ * configuration it was issued against, and is signed by the issuer, so that later requests in the session can be
+ * authorized by checking the signature rather than the user's credentials.
+ *
+ * A session token is authorized only if it was issued, or has been verified, by a {@link SessionTokenIssuer} (see
+ * {@link SessionTokenIssuer#verify(SessionToken)}), and only until it expires according to that issuer's clock.
+ * Tokens otherwise obtained, e.g., deserialized or forged ones, are never authorized.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+public final class SessionToken implements AuthToken, Serializable {
+    private static final long serialVersionUID = 4427183372938106410L;
+    @Nonnull private final User user;
+    private final long issuedAt, expiresAt, configurationVersion;
+    @Nonnull private final byte[] signature;
+    @Nullable private final transient SessionTokenIssuer issuer;
+
+    /**
+     * Package-private constructor; see {@link SessionTokenIssuer}
+     *
+     * @param user  User
+     * @param issuedAt  Time of issue, in milliseconds since the epoch
+     * @param expiresAt Time of expiry, in milliseconds since the epoch
+     * @param configurationVersion  Version of the configuration the token was issued against
+     * @param signature Signature of the token contents
+     * @param issuer    Issuer that issued or verified the token, or null if the token has not been verified
+     */
+    SessionToken(@Nonnull User user, long issuedAt, long expiresAt, long configurationVersion, @Nonnull byte[] signature,
+                 @Nullable SessionTokenIssuer issuer) {
+        checkArgument(expiresAt >= issuedAt, "A session token cannot expire before it is issued");
+        this.user = checkNotNull(user);
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.configurationVersion = configurationVersion;
+        this.signature = checkNotNull(signature).clone();
+        this.issuer = issuer;
+    }
+
+    /**
+     * Package-private constructor for a token that has not been verified
+     *
+     * @param user  User
+     * @param issuedAt  Time of issue, in milliseconds since the epoch
+     * @param expiresAt Time of expiry, in milliseconds since the epoch
+     * @param configurationVersion  Version of the configuration the token was issued against
+     * @param signature Signature of the token contents
+     */
+    SessionToken(@Nonnull User user, long issuedAt, long expiresAt, long configurationVersion, @Nonnull byte[] signature) {
+        this(user, issuedAt, expiresAt, configurationVersion, signature, null);
+    }
+
+    @Override
+    @Nonnull
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public boolean isAuthorized() {
+        return issuer != null && !isExpired(issuer.millis());
+    }
+
+    /**
+     * Check whether this token has expired at the given time
+     *
+     * @param now   Time, in milliseconds since the epoch
+     * @return true if the token has expired, false otherwise
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * Get the time at which this token was issued
+     *
+     * @return Time of issue, in milliseconds since the epoch
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * Get the time at which this token expires
+     *
+     * @return Time of expiry, in milliseconds since the epoch
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Get the version of the configuration this token was issued against
+     *
+     * @return Configuration version
+     */
+    public long getConfigurationVersion() {
+        return configurationVersion;
+    }
+
+    /**
+     * Get the signature of this token
+     *
+     * @return Signature bytes
+     */
+    @Nonnull
+    public byte[] getSignature() {
+        return signature.clone();
+    }
+
+    /**
+     * Package-private access to the signature, without copying it
+     */
+    byte[] signature() {
+        return signature;
+    }
+
+    /**
+     * Get the issuer that issued or verified this token
+     *
+     * @return Session token issuer, or null if this token has not been verified
+     */
+    @Nullable
+    SessionTokenIssuer issuer() {
+        return issuer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SessionToken)) {
+            return false;
+        }
+        SessionToken that = (SessionToken) o;
+        return Objects.equal(user, that.user) &&
+                issuedAt == that.issuedAt &&
+                expiresAt == that.expiresAt &&
+                configurationVersion == that.configurationVersion &&
+                Arrays.equals(signature, that.signature);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(user, issuedAt, expiresAt, configurationVersion, Arrays.hashCode(signature));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("user", user)
+                .add("issuedAt", issuedAt)
+                .add("expiresAt", expiresAt)
+                .add("configurationVersion", configurationVersion)
+                .add("signature", BaseEncoding.base64Url().omitPadding().encode(signature))
+                .toString();
+    }
+
+    @Override
+    public int compareTo(@Nonnull AuthToken that) {
+        return ComparisonChain.start()
+                .compare(this.user.getId().get(), that.getUser().getId().get())
+                .result();
+    }
+}
@@ -0,0 +1,185 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import edu.stanford.protege.metaproject.api.AuthToken;
+import edu.stanford.protege.metaproject.api.User;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An issuer of {@link SessionToken}s, signed with HMAC-SHA256 under a secret key that only the issuer holds. Tokens
+ * are issued for users whose credentials have just been verified, and verifying a token afterwards costs a single
+ * HMAC computation and a constant-time comparison, rather than a round of password hashing. The signature covers the
+ * whole user (identifier, name and email address) along with the times of issue and expiry and the configuration
+ * version. The issuer is bound to a {@link LiveConfiguration}: tokens are issued against the version of the
+ * configuration in effect, and are no longer valid once another configuration is installed.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class SessionTokenIssuer {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTE_SIZE = 32;
+    @Nonnull private final SecretKeySpec key;
+    @Nonnull private final Duration timeToLive;
+    @Nonnull private final Clock clock;
+    @Nonnull private final LiveConfiguration configuration;
+    @Nonnull private final ThreadLocal<Mac> macs;
+
+    /**
+     * Constructor
+     *
+     * @param key   Secret key, of at least 32 bytes
+     * @param timeToLive    Time for which issued tokens remain valid
+     * @param clock Clock
+     * @param configuration Live configuration whose version tokens are issued against
+     */
+    public SessionTokenIssuer(@Nonnull byte[] key, @Nonnull Duration timeToLive, @Nonnull Clock clock,
+                              @Nonnull LiveConfiguration configuration) {
+        checkArgument(checkNotNull(key).length >= KEY_BYTE_SIZE, "The secret key must have at least " + KEY_BYTE_SIZE + " bytes");
+        checkArgument(!checkNotNull(timeToLive).isNegative() && !timeToLive.isZero(), "The time to live must be positive");
+        this.key = new SecretKeySpec(key.clone(), ALGORITHM);
+        this.timeToLive = timeToLive;
+        this.clock = checkNotNull(clock);
+        this.configuration = checkNotNull(configuration);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        macs.get(); // fail fast if the algorithm is unavailable
+    }
+
+    /**
+     * Constructor for an issuer with a freshly generated secret key, whose tokens are therefore only valid for as
+     * long as the issuer exists, e.g., until the server is restarted
+     *
+     * @param timeToLive    Time for which issued tokens remain valid
+     * @param configuration Live configuration whose version tokens are issued against
+     */
+    public SessionTokenIssuer(@Nonnull Duration timeToLive, @Nonnull LiveConfiguration configuration) {
+        this(generateKey(), timeToLive, Clock.systemUTC(), configuration);
+    }
+
+    private static byte[] generateKey() {
+        byte[] key = new byte[KEY_BYTE_SIZE];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Issue a session token for the user of the given token, which must reflect a successful credential verification
+     * (e.g., the one returned by {@link edu.stanford.protege.metaproject.api.UserAuthenticator#hasValidCredentials}),
+     * against the version of the configuration currently in effect
+     *
+     * @param token Authorization token
+     * @return Session token
+     * @throws IllegalArgumentException if the given token is not authorized
+     */
+    @Nonnull
+    public SessionToken issue(@Nonnull AuthToken token) {
+        checkArgument(checkNotNull(token).isAuthorized(), "A session token can only be issued for an authorized user");
+        return issue(token.getUser(), configuration.getVersion());
+    }
+
+    private SessionToken issue(User user, long configurationVersion) {
+        long issuedAt = clock.millis();
+        long expiresAt = issuedAt + timeToLive.toMillis();
+        byte[] signature = sign(user, issuedAt, expiresAt, configurationVersion);
+        return new SessionToken(user, issuedAt, expiresAt, configurationVersion, signature, this);
+    }
+
+    /**
+     * Verify that the given session token was signed with the key of this issuer, has not been tampered with, has not
+     * expired, and was issued against the version of the configuration currently in effect. Only verified tokens, and
+     * those issued by an issuer, are authorized (see {@link SessionToken#isAuthorized()}), so tokens received from
+     * elsewhere, e.g., deserialized ones, must be verified before use
+     *
+     * @param token Session token
+     * @return Verified session token, or an empty optional if the token is not valid
+     */
+    @Nonnull
+    public Optional<SessionToken> verify(@Nonnull SessionToken token) {
+        checkNotNull(token);
+        if (token.isExpired(clock.millis()) || token.getConfigurationVersion() != configuration.getVersion()) {
+            return Optional.empty();
+        }
+        if (token.issuer() == this) {
+            return Optional.of(token);
+        }
+        byte[] expected = sign(token.getUser(), token.getIssuedAt(), token.getExpiresAt(), token.getConfigurationVersion());
+        if (!MessageDigest.isEqual(expected, token.signature())) {
+            return Optional.empty();
+        }
+        return Optional.of(new SessionToken(token.getUser(), token.getIssuedAt(), token.getExpiresAt(),
+                token.getConfigurationVersion(), token.signature(), this));
+    }
+
+    private byte[] sign(User user, long issuedAt, long expiresAt, long configurationVersion) {
+        Mac mac = macs.get();
+        mac.update(ByteBuffer.allocate(3 * Long.BYTES)
+                .putLong(issuedAt)
+                .putLong(expiresAt)
+                .putLong(configurationVersion)
+                .array());
+        update(mac, user.getId().get());
+        update(mac, user.getName().get());
+        update(mac, user.getEmailAddress().get());
+        return mac.doFinal();
+    }
+
+    private static void update(Mac mac, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        mac.update(bytes);
+    }
+
+    /**
+     * Get the current time according to the clock of this issuer
+     *
+     * @return Current time, in milliseconds since the epoch
+     */
+    long millis() {
+        return clock.millis();
+    }
+
+    /**
+     * Get the time for which issued tokens remain valid
+     *
+     * @return Time to live
+     */
+    @Nonnull
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("algorithm", ALGORITHM)
+                .add("timeToLive", timeToLive)
+                .toString();
+    }
+}
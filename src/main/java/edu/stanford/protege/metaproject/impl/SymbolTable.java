@@ -0,0 +1,103 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An interning table that assigns each distinct symbol (e.g., a policy object identifier) a dense integer ordinal,
+ * from 0 to size - 1, in order of first insertion
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+final class SymbolTable<T> implements Serializable {
+    private static final long serialVersionUID = -2304947392755012881L;
+    @Nonnull private final ImmutableMap<T, Integer> ordinals;
+    @Nonnull private final ImmutableList<T> symbols;
+
+    private SymbolTable(@Nonnull Map<T, Integer> ordinals) {
+        this.ordinals = ImmutableMap.copyOf(ordinals);
+        this.symbols = ImmutableList.copyOf(ordinals.keySet());
+    }
+
+    /**
+     * Get the ordinal of the given symbol
+     *
+     * @param symbol    Symbol
+     * @return Ordinal of the symbol, or -1 if the symbol is not in this table
+     */
+    int getOrdinal(@Nonnull T symbol) {
+        Integer ordinal = ordinals.get(symbol);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Get the symbol with the given ordinal
+     *
+     * @param ordinal   Ordinal
+     * @return Symbol
+     */
+    @Nonnull
+    T getSymbol(int ordinal) {
+        return symbols.get(ordinal);
+    }
+
+    /**
+     * Get the number of symbols in this table
+     *
+     * @return Number of symbols
+     */
+    int size() {
+        return symbols.size();
+    }
+
+    /**
+     * Builder for symbol tables
+     */
+    static final class Builder<T> {
+        private final Map<T, Integer> ordinals = new LinkedHashMap<>();
+
+        /**
+         * Intern the given symbol
+         *
+         * @param symbol    Symbol
+         * @return Ordinal of the symbol
+         */
+        int intern(@Nonnull T symbol) {
+            checkNotNull(symbol);
+            Integer ordinal = ordinals.get(symbol);
+            if (ordinal == null) {
+                ordinal = ordinals.size();
+                ordinals.put(symbol, ordinal);
+            }
+            return ordinal;
+        }
+
+        /**
+         * Get the ordinal of a symbol interned so far
+         *
+         * @param symbol    Symbol
+         * @return Ordinal of the symbol, or -1 if the symbol has not been interned
+         */
+        int getOrdinal(@Nonnull T symbol) {
+            Integer ordinal = ordinals.get(symbol);
+            return ordinal != null ? ordinal : -1;
+        }
+
+        SymbolTable<T> build() {
+            return new SymbolTable<>(ordinals);
+        }
+    }
+}
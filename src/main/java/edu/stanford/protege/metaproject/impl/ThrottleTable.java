@@ -0,0 +1,169 @@
+package edu.stanford.protege.metaproject.impl;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A fixed-size, lock-free table of login throttling states, used by {@link LoginThrottle}. Each key is stored in one
+ * of a few consecutive slots from its hash, and each slot holds an immutable state that is replaced by compare-and-set,
+ * so that updates to different keys never contend and updates to the same key retry instead of blocking.
+ *
+ * States that have been idle for longer than the expiry time are treated as absent, and their slots are reused. When
+ * all the slots a key may occupy hold live states, the one idle for longest is evicted; the table therefore never
+ * grows, whatever the number of distinct keys presented to it.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+final class ThrottleTable<K> {
+    private static final int MAX_PROBES = 8;
+    @Nonnull private final AtomicReferenceArray<State<K>> slots;
+    private final int mask;
+    private final long expiryNanos;
+
+    /**
+     * Constructor
+     *
+     * @param size  Number of slots, rounded up to a power of two
+     * @param expiryNanos   Time after which an idle state is forgotten, in nanoseconds
+     */
+    ThrottleTable(int size, long expiryNanos) {
+        checkArgument(size > 0 && size <= 1 << 30, "The table size must be between 1 and 2^30");
+        checkArgument(expiryNanos >= 0, "The expiry time cannot be negative");
+        int capacity = Integer.highestOneBit(Math.max(size, MAX_PROBES) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.expiryNanos = expiryNanos;
+    }
+
+    /**
+     * Get the live state of the given key
+     *
+     * @param key   Key
+     * @param now   Current time, in nanoseconds
+     * @return State of the key, or null if the key has no state or its state has expired
+     */
+    @Nullable
+    State<K> get(@Nonnull K key, long now) {
+        int hash = spread(key.hashCode());
+        for (int i = 0; i < MAX_PROBES; i++) {
+            State<K> state = slots.get((hash + i) & mask);
+            if (state != null && state.key.equals(key)) {
+                return isExpired(state, now) ? null : state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replace the state of the given key by the result of applying the given function to its live state (or to null,
+     * if it has none). The function may be applied more than once, if the state is concurrently replaced, and should
+     * return its argument to leave the state unchanged
+     *
+     * @param key   Key
+     * @param now   Current time, in nanoseconds
+     * @param function  Function from the current state to the new state
+     */
+    void update(@Nonnull K key, long now, @Nonnull UnaryOperator<State<K>> function) {
+        checkNotNull(key);
+        int hash = spread(key.hashCode());
+        while (true) {
+            int match = -1, free = -1, victim = -1;
+            State<K> matchState = null, freeState = null, victimState = null;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                int index = (hash + i) & mask;
+                State<K> state = slots.get(index);
+                if (state != null && state.key.equals(key)) {
+                    match = index;
+                    matchState = state;
+                    break;
+                }
+                if (state == null || isExpired(state, now)) {
+                    if (free < 0) {
+                        free = index;
+                        freeState = state;
+                    }
+                } else if (victimState == null || state.lastActive() - victimState.lastActive() < 0) {
+                    victim = index;
+                    victimState = state;
+                }
+            }
+            int index;
+            State<K> expected, current;
+            if (match >= 0) {
+                index = match;
+                expected = matchState;
+                current = isExpired(matchState, now) ? null : matchState;
+            } else {
+                index = (free >= 0 ? free : victim);
+                expected = (free >= 0 ? freeState : victimState);
+                current = null;
+            }
+            State<K> next = function.apply(current);
+            if (next == current || next == null) {
+                return;
+            }
+            checkArgument(next.key.equals(key), "The new state must belong to the same key");
+            if (slots.compareAndSet(index, expected, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of live states in the table. This is a linear scan, meant for monitoring and tests
+     *
+     * @param now   Current time, in nanoseconds
+     * @return Number of live states
+     */
+    int size(long now) {
+        int size = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            State<K> state = slots.get(i);
+            if (state != null && !isExpired(state, now)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private boolean isExpired(State<K> state, long now) {
+        return now - state.lastActive() > expiryNanos;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    /**
+     * The throttling state of a key: the theoretical arrival time of the next attempt (as in the generic cell rate
+     * algorithm, which is equivalent to a token bucket but needs a single number), the number of consecutive failed
+     * attempts, and the time until which attempts are blocked because of them
+     */
+    @Immutable
+    static final class State<K> {
+        @Nonnull final K key;
+        final long arrivalTime, blockedUntil;
+        final int failures;
+
+        State(@Nonnull K key, long arrivalTime, int failures, long blockedUntil) {
+            this.key = checkNotNull(key);
+            this.arrivalTime = arrivalTime;
+            this.failures = failures;
+            this.blockedUntil = blockedUntil;
+        }
+
+        long lastActive() {
+            return (arrivalTime - blockedUntil >= 0 ? arrivalTime : blockedUntil);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.LoginThrottledException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A user authenticator that subjects login attempts to a {@link LoginThrottle} before passing them on to another
+ * user authenticator. Throttled attempts are refused with a {@link LoginThrottledException}, which tells how long to
+ * wait before retrying, without verifying the credentials, so a client that retries in a tight loop costs a table
+ * lookup per attempt rather than a key derivation.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@ThreadSafe
+public final class ThrottlingUserAuthenticator implements UserAuthenticator {
+    private static final Logger logger = LoggerFactory.getLogger(ThrottlingUserAuthenticator.class.getName());
+    @Nonnull private final UserAuthenticator authenticator;
+    @Nonnull private final LoginThrottle throttle;
+
+    /**
+     * Constructor
+     *
+     * @param authenticator User authenticator that verifies credentials
+     * @param throttle  Login throttle
+     */
+    public ThrottlingUserAuthenticator(@Nonnull UserAuthenticator authenticator, @Nonnull LoginThrottle throttle) {
+        this.authenticator = checkNotNull(authenticator);
+        this.throttle = checkNotNull(throttle);
+    }
+
+    /**
+     * Verify whether the given user and password are valid. The source of the attempt is unknown, so attempts are
+     * throttled by the user's token bucket only, and failed attempts do not block the user
+     *
+     * @param userId    User identifier
+     * @param password  Password
+     * @return Authorisation token that represents the state of user credential verification
+     * @throws LoginThrottledException  The attempt is throttled
+     */
+    @Override
+    @Nonnull
+    public AuthToken hasValidCredentials(@Nonnull UserId userId, @Nonnull PlainPassword password) {
+        return hasValidCredentials(userId, password, null);
+    }
+
+    /**
+     * Verify whether the given user and password are valid, throttling attempts per user and per source
+     *
+     * @param userId    User identifier
+     * @param password  Password
+     * @param source    Source of the attempt (e.g., client address), or null if unknown
+     * @return Authorisation token that represents the state of user credential verification
+     * @throws LoginThrottledException  The attempt is throttled
+     */
+    @Nonnull
+    public AuthToken hasValidCredentials(@Nonnull UserId userId, @Nonnull PlainPassword password, @Nullable String source) {
+        checkNotNull(userId);
+        checkNotNull(password);
+        long wait = throttle.tryAcquire(userId, source);
+        if (wait > 0) {
+            String message = "Login attempt by user " + userId.get() + (source != null ? " from " + source : "") +
+                    " throttled for another " + TimeUnit.NANOSECONDS.toMillis(wait) + " ms";
+            logger.debug(message);
+            throw new LoginThrottledException(message, Duration.ofNanos(wait));
+        }
+        AuthToken token = authenticator.hasValidCredentials(userId, password);
+        if (token.isAuthorized()) {
+            throttle.recordSuccess(userId, source);
+        } else {
+            throttle.recordFailure(userId, source);
+        }
+        return token;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("authenticator", authenticator)
+                .add("throttle", throttle)
+                .toString();
+    }
+}
@@ -0,0 +1,213 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.MoreObjects;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.IdAlreadyInUseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An importer of users in bulk, e.g., when onboarding a consortium. User identifiers and email addresses are checked
+ * for uniqueness up front, before any password is hashed; the passwords are then hashed in parallel on a dedicated
+ * fork-join pool, and all users are added to the configuration builder in a single step.
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@Immutable
+@ThreadSafe
+public final class UserImporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserImporter.class.getName());
+    @Nonnull private final PasswordHasher hasher;
+    @Nonnull private final SaltGenerator saltGenerator;
+    private final int parallelism;
+
+    /**
+     * Constructor
+     *
+     * @param hasher    Password hasher
+     * @param saltGenerator Salt generator
+     * @param parallelism   Number of threads that hash passwords
+     */
+    public UserImporter(@Nonnull PasswordHasher hasher, @Nonnull SaltGenerator saltGenerator, int parallelism) {
+        checkArgument(parallelism > 0, "The parallelism must be positive");
+        this.hasher = checkNotNull(hasher);
+        this.saltGenerator = checkNotNull(saltGenerator);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Constructor for an importer that hashes passwords on as many threads as there are processors
+     *
+     * @param hasher    Password hasher
+     * @param saltGenerator Salt generator
+     */
+    public UserImporter(@Nonnull PasswordHasher hasher, @Nonnull SaltGenerator saltGenerator) {
+        this(hasher, saltGenerator, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Import the given users, with the given passwords, into the configuration builder. Either all users are imported
+     * or, if some user identifier or (non-empty) email address is already in use, none is
+     *
+     * @param builder   Configuration builder
+     * @param records   Stream of users with their plain passwords
+     * @return Import report
+     * @throws IdAlreadyInUseException  User identifier or email address already in use
+     */
+    @Nonnull
+    public Report importUsers(@Nonnull ConfigurationBuilder builder, @Nonnull Stream<Record> records) throws IdAlreadyInUseException {
+        checkNotNull(builder);
+        long start = System.nanoTime();
+        List<Record> recordList = checkNotNull(records).collect(Collectors.toList());
+        List<User> users = new ArrayList<>(recordList.size());
+        for (Record record : recordList) {
+            users.add(record.getUser());
+        }
+        builder.checkNewUsers(users);
+
+        List<Salt> salts = saltGenerator.generate(recordList.size(), saltGenerator.getByteLength());
+        SaltedPasswordDigest[] digests = new SaltedPasswordDigest[recordList.size()];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new HashTask(recordList, salts, digests, 0, recordList.size()));
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<User, SaltedPasswordDigest> registrations = new LinkedHashMap<>();
+        for (int i = 0; i < digests.length; i++) {
+            registrations.put(recordList.get(i).getUser(), digests[i]);
+        }
+        builder.addRegisteredUsers(registrations);
+        Report report = new Report(recordList.size(), System.nanoTime() - start);
+        logger.info("Imported " + report.getNumberOfUsers() + " users in " + report.getElapsedMillis() + " ms (" +
+                String.format(Locale.ROOT, "%.1f", report.getUsersPerSecond()) + " users/s)");
+        return report;
+    }
+
+    /**
+     * Hashes the passwords of a range of records, splitting the range in halves until it holds a single record;
+     * hashing a password is costly enough that tasks this small are worth stealing
+     */
+    private final class HashTask extends RecursiveAction {
+        private static final long serialVersionUID = 2245863427157390721L;
+        private final List<Record> records;
+        private final List<Salt> salts;
+        private final SaltedPasswordDigest[] digests;
+        private final int from, to;
+
+        HashTask(List<Record> records, List<Salt> salts, SaltedPasswordDigest[] digests, int from, int to) {
+            this.records = records;
+            this.salts = salts;
+            this.digests = digests;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    char[] password = records.get(i).getPassword().getPassword().toCharArray();
+                    try {
+                        digests[i] = hasher.hash(password, salts.get(i));
+                    } finally {
+                        Arrays.fill(password, '\0');
+                    }
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new HashTask(records, salts, digests, from, middle),
+                        new HashTask(records, salts, digests, middle, to));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("hasher", hasher)
+                .add("parallelism", parallelism)
+                .toString();
+    }
+
+    /**
+     * A user to import, along with the user's plain password
+     */
+    @Immutable
+    public static final class Record {
+        @Nonnull private final User user;
+        @Nonnull private final PlainPassword password;
+
+        /**
+         * Constructor
+         *
+         * @param user  User
+         * @param password  Plain password
+         */
+        public Record(@Nonnull User user, @Nonnull PlainPassword password) {
+            this.user = checkNotNull(user);
+            this.password = checkNotNull(password);
+        }
+
+        @Nonnull
+        public User getUser() {
+            return user;
+        }
+
+        @Nonnull
+        public PlainPassword getPassword() {
+            return password;
+        }
+    }
+
+    /**
+     * The outcome of an import: how many users were imported, and how long it took
+     */
+    @Immutable
+    public static final class Report {
+        private final int nrUsers;
+        private final long elapsedNanos;
+
+        Report(int nrUsers, long elapsedNanos) {
+            this.nrUsers = nrUsers;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getNumberOfUsers() {
+            return nrUsers;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        public double getUsersPerSecond() {
+            return elapsedNanos > 0 ? nrUsers * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("nrUsers", nrUsers)
+                    .add("elapsedMillis", getElapsedMillis())
+                    .add("usersPerSecond", getUsersPerSecond())
+                    .toString();
+        }
+    }
+}
@@ -12,7 +12,7 @@ import java.lang.reflect.Type;
  * Stanford University
  */
 public class AuthenticationDetailsSerializer implements JsonSerializer<AuthenticationDetails>, JsonDeserializer<AuthenticationDetails> {
-    private final String USER_ID = "userId", SALT = "salt", PASSWORD = "password";
+    private final String USER_ID = "userId", SALT = "salt", PASSWORD = "password", ALGORITHM = "algorithm", ITERATIONS = "iterations";
 
     @Override
     public JsonElement serialize(AuthenticationDetails details, Type type, JsonSerializationContext context) {
@@ -20,6 +20,8 @@ public class AuthenticationDetailsSerializer implements JsonSerializer<Authentic
         obj.add(USER_ID, context.serialize(details.getUserId()));
         obj.add(PASSWORD, context.serialize(details.getPassword().getPassword()));
         obj.add(SALT, context.serialize(details.getPassword().getSalt().getString()));
+        obj.add(ALGORITHM, context.serialize(details.getPassword().getAlgorithm().name()));
+        obj.add(ITERATIONS, context.serialize(details.getPassword().getNumberOfIterations()));
         return obj;
     }
 
@@ -29,7 +31,38 @@ public class AuthenticationDetailsSerializer implements JsonSerializer<Authentic
         JsonObject obj = element.getAsJsonObject();
         UserId userId = factory.getUserId(obj.getAsJsonPrimitive(USER_ID).getAsString());
         Salt salt = factory.getSalt(obj.getAsJsonPrimitive(SALT).getAsString());
-        SaltedPasswordDigest password = factory.getSaltedPasswordDigest(obj.getAsJsonPrimitive(PASSWORD).getAsString(), salt);
+        String hash = obj.getAsJsonPrimitive(PASSWORD).getAsString();
+        SaltedPasswordDigest password;
+        if (obj.has(ALGORITHM) != obj.has(ITERATIONS)) {
+            throw new JsonParseException("The password hashing parameters must include both the algorithm and the number of iterations");
+        }
+        if (obj.has(ALGORITHM)) {
+            password = factory.getSaltedPasswordDigest(hash, salt, getAlgorithm(obj.get(ALGORITHM)), getIterations(obj.get(ITERATIONS)));
+        } else {
+            // digests stored before they recorded their hashing parameters
+            password = factory.getSaltedPasswordDigest(hash, salt);
+        }
         return factory.getAuthenticationDetails(userId, password);
     }
+
+    private PasswordHashAlgorithm getAlgorithm(JsonElement element) throws JsonParseException {
+        try {
+            return PasswordHashAlgorithm.valueOf(element.getAsString());
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException e) {
+            throw new JsonParseException("Unknown password hashing algorithm: " + element, e);
+        }
+    }
+
+    private int getIterations(JsonElement element) throws JsonParseException {
+        int iterations;
+        try {
+            iterations = element.getAsBigDecimal().intValueExact();
+        } catch (NumberFormatException | ArithmeticException | IllegalStateException | UnsupportedOperationException e) {
+            throw new JsonParseException("Invalid number of password hashing iterations: " + element, e);
+        }
+        if (iterations <= 0) {
+            throw new JsonParseException("The number of password hashing iterations must be positive: " + iterations);
+        }
+        return iterations;
+    }
 }
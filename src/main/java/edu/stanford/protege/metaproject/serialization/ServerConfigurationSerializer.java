@@ -65,7 +65,7 @@ public class ServerConfigurationSerializer implements JsonSerializer<ServerConfi
         Set<AuthenticationDetails> authDetails = context.deserialize(obj.getAsJsonArray(AUTHENTICATION),
                 new TypeToken<Set<AuthenticationDetails>>(){}.getType());
         Map<String,String> map = context.deserialize(obj.get(PROPERTIES), Map.class);
-        return new ConfigurationBuilder()
+        return ConfigurationBuilder.getEmptyBuilder()
                 .setHost(host)
                 .setServerRoot(root)
                 .setPolicyMap(policy)
@@ -140,6 +140,10 @@ public class TestUtils {
         return f.getPasswordHasher(hashByteSize, nrPBKDF2Iterations);
     }
 
+    public static PasswordHasher getPasswordHasher(PasswordHashAlgorithm algorithm, int hashByteSize, int nrPBKDF2Iterations) {
+        return f.getPasswordHasher(algorithm, hashByteSize, nrPBKDF2Iterations);
+    }
+
 
     /*   policy and server/client configurations   */
 
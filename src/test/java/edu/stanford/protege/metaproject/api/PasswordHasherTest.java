@@ -0,0 +1,73 @@
+package edu.stanford.protege.metaproject.api;
+
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.impl.ConfigurationUtils;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the default methods of {@link PasswordHasher} and {@link SaltedPasswordDigest}, which implementations outside
+ * the library rely on
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class PasswordHasherTest {
+    private static final String passwordStr = "testPassword1", otherPasswordStr = "testPassword2";
+    private final PasswordHasher delegate = TestUtils.getPasswordHasher();
+    private final Salt salt = TestUtils.getSalt();
+
+    private final PasswordHasher hasher = new PasswordHasher() {
+        @Override
+        @Nonnull
+        public SaltedPasswordDigest hash(@Nonnull PlainPassword password, @Nonnull Salt salt) {
+            String digest = delegate.hash(password, salt).getPassword();
+            return new SaltedPasswordDigest() {
+                @Override
+                @Nonnull
+                public Salt getSalt() {
+                    return salt;
+                }
+
+                @Override
+                @Nonnull
+                public String getPassword() {
+                    return digest;
+                }
+            };
+        }
+    };
+
+    @Test
+    public void testHashCharacters() {
+        SaltedPasswordDigest digest = hasher.hash(passwordStr.toCharArray(), salt);
+        assertThat(digest.getPassword(), is(hasher.hash(TestUtils.getPlainPassword(passwordStr), salt).getPassword()));
+        assertThat(digest.getSalt(), is(salt));
+    }
+
+    @Test
+    public void testMatches() {
+        SaltedPasswordDigest digest = hasher.hash(TestUtils.getPlainPassword(passwordStr), salt);
+        assertThat(hasher.matches(passwordStr.toCharArray(), digest), is(true));
+        assertThat(hasher.matches(otherPasswordStr.toCharArray(), digest), is(false));
+    }
+
+    @Test
+    public void testDigestReportsLegacyParameters() {
+        SaltedPasswordDigest digest = hasher.hash(TestUtils.getPlainPassword(passwordStr), salt);
+        assertThat(digest.getAlgorithm(), is(ConfigurationUtils.getLegacyPasswordHashAlgorithm()));
+        assertThat(digest.getNumberOfIterations(), is(ConfigurationUtils.getLegacyKeyStretchingIterations()));
+    }
+
+    @Test
+    public void testNeedsRehash() {
+        SaltedPasswordDigest digest = hasher.hash(TestUtils.getPlainPassword(passwordStr), salt);
+        assertThat(hasher.needsRehash(digest), is(false));
+        assertThat(hasher.upgrade(passwordStr.toCharArray(), digest).isPresent(), is(false));
+    }
+}
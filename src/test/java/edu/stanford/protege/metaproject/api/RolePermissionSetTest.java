@@ -0,0 +1,90 @@
+package edu.stanford.protege.metaproject.api;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.impl.ConfigurationBuilder;
+import edu.stanford.protege.metaproject.impl.ConfigurationUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class RolePermissionSetTest {
+    private static final String toStringHead = RolePermissionSet.class.getSimpleName();
+    private final Operation readOperation = TestUtils.getCustomOperation(TestUtils.getOperationId(), TestUtils.getName(),
+            TestUtils.getDescription(), OperationType.READ, Operation.Scope.POLICY);
+    private final Operation writeOperation = TestUtils.getCustomOperation(TestUtils.getOperationId(), TestUtils.getName(),
+            TestUtils.getDescription(), OperationType.WRITE, Operation.Scope.ONTOLOGY);
+    private final OperationId unknownOperationId = TestUtils.getOperationId();
+    private final Role projectRole = TestUtils.getRole(readOperation.getId(), unknownOperationId);
+    private final Role globalRole = TestUtils.getRole(writeOperation.getId());
+    private final UserId userId = TestUtils.getUserId();
+    private final ProjectId projectId = TestUtils.getProjectId(), otherProjectId = TestUtils.getProjectId();
+
+    private ServerConfiguration config;
+    private PermissionSet permissions, globalPermissions;
+
+    @Before
+    public void setUp() throws Exception {
+        config = ConfigurationBuilder.getEmptyBuilder()
+                .addOperation(readOperation)
+                .addOperation(writeOperation)
+                .addRole(projectRole)
+                .addRole(globalRole)
+                .addPolicy(userId, projectId, projectRole.getId())
+                .addPolicy(userId, ConfigurationUtils.getUniversalProjectId(), globalRole.getId())
+                .createServerConfiguration();
+        permissions = getPermissions(projectId);
+        globalPermissions = getPermissions(otherProjectId);
+    }
+
+    private PermissionSet getPermissions(ProjectId projectId) {
+        return new RolePermissionSet(config.getRoles(userId, projectId, GlobalPermissions.INCLUDED), config);
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(permissions, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testEqualsIndexedPermissions() {
+        assertThat(permissions, is(config.getEffectivePermissions(userId, projectId)));
+        assertThat(globalPermissions, is(config.getEffectivePermissions(userId, otherProjectId)));
+    }
+
+    @Test
+    public void testAllows() {
+        assertThat(permissions.allows(readOperation.getId()), is(true));
+        assertThat(permissions.allows(unknownOperationId), is(true));
+        assertThat(globalPermissions.allows(readOperation.getId()), is(false));
+        assertThat(globalPermissions.allows(writeOperation.getId()), is(true));
+    }
+
+    @Test
+    public void testAllowsAny() {
+        assertThat(permissions.allowsAny(OperationType.READ), is(true));
+        assertThat(permissions.allowsAny(Operation.Scope.ONTOLOGY), is(true));
+        assertThat(globalPermissions.allowsAny(OperationType.READ), is(false));
+        assertThat(globalPermissions.allowsAny(Operation.Scope.POLICY), is(false));
+    }
+
+    @Test
+    public void testGetDeniedOperations() {
+        assertThat(globalPermissions.getDeniedOperations(Arrays.asList(readOperation.getId(), writeOperation.getId())),
+                is(ImmutableSet.of(readOperation.getId())));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(permissions.toString(), startsWith(toStringHead));
+    }
+}
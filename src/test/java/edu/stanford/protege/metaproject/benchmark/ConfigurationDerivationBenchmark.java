@@ -0,0 +1,117 @@
+package edu.stanford.protege.metaproject.benchmark;
+
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.impl.ConfigurationBuilder;
+import edu.stanford.protege.metaproject.impl.ConfigurationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of deriving a new configuration after a single administrative edit (renaming a project) from a
+ * configuration with 10k users and 1k projects, and compares it with copying every collection into a fresh builder,
+ * which is what deriving a configuration used to cost, and with deriving a configuration after a single role
+ * assignment; also measures renaming 1k users in a single builder, each rename costing a constant-time lookup and
+ * replacement by identifier. Run with
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main ConfigurationDerivationBenchmark}
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationDerivationBenchmark {
+    private static final int NR_USERS = 10000, NR_PROJECTS = 1000, PROJECTS_PER_USER = 5, NR_RENAMES = 1000;
+    private final PolicyFactory f = ConfigurationManager.getFactory();
+
+    private ServerConfiguration config;
+    private ProjectId projectId;
+    private UserId[] userIds = new UserId[NR_RENAMES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<ProjectId> projectIds = new ArrayList<>();
+        Set<Project> projects = new HashSet<>(ConfigurationUtils.getDefaultProjects());
+        for (int i = 0; i < NR_PROJECTS; i++) {
+            ProjectId projectId = f.getProjectId("project-" + i);
+            projects.add(f.getProject(projectId, f.getName("Project " + i), f.getDescription(""), new File("project-" + i),
+                    f.getUserId("user-0"), Optional.empty()));
+            projectIds.add(projectId);
+        }
+        Set<User> users = new HashSet<>(ConfigurationUtils.getDefaultUsers());
+        Map<UserId, Map<ProjectId, Set<RoleId>>> policy = new HashMap<>(ConfigurationUtils.getDefaultPolicy());
+        RoleId roleId = ConfigurationUtils.getProjectManagerRole().getId();
+        Map<ProjectId, Set<RoleId>> ownerAssignments = new HashMap<>();
+        for (ProjectId projectId : projectIds) {
+            ownerAssignments.put(projectId, Collections.singleton(roleId)); // as addProject would assign
+        }
+        for (int i = 0; i < NR_USERS; i++) {
+            UserId userId = f.getUserId("user-" + i);
+            users.add(f.getUser(userId, f.getName("User " + i), f.getEmailAddress("user" + i + "@example.org")));
+            Map<ProjectId, Set<RoleId>> assignments = new HashMap<>();
+            for (int j = 0; j < PROJECTS_PER_USER; j++) {
+                assignments.put(projectIds.get(random.nextInt(NR_PROJECTS)), Collections.singleton(roleId));
+            }
+            policy.put(userId, assignments);
+        }
+        policy.get(f.getUserId("user-0")).putAll(ownerAssignments);
+        config = new ConfigurationBuilder()
+                .setUsers(users)
+                .setProjects(projects)
+                .setPolicyMap(policy)
+                .createServerConfiguration();
+        projectId = projectIds.get(0);
+        for (int i = 0; i < NR_RENAMES; i++) {
+            userIds[i] = f.getUserId("user-" + random.nextInt(NR_USERS));
+        }
+    }
+
+    @Benchmark
+    public ServerConfiguration derive() {
+        return new ConfigurationBuilder(config)
+                .setProjectDescription(projectId, f.getDescription("Description " + next++))
+                .createServerConfiguration();
+    }
+
+    @Benchmark
+    public ServerConfiguration deriveWithPolicyChange() {
+        return new ConfigurationBuilder(config)
+                .addPolicy(userIds[next++ % NR_RENAMES], projectId, ConfigurationUtils.getAdminRole().getId())
+                .createServerConfiguration();
+    }
+
+    @Benchmark
+    public ServerConfiguration formerFullCopy() {
+        return ConfigurationBuilder.getEmptyBuilder()
+                .setHost(config.getHost())
+                .setServerRoot(config.getServerRoot())
+                .setPolicyMap(config.getPolicyMap())
+                .setRoles(config.getRoles())
+                .setOperations(config.getOperations())
+                .setUsers(config.getUsers())
+                .setProjects(config.getProjects())
+                .setAuthenticationDetails(config.getAuthenticationDetails())
+                .setProperties(config.getProperties())
+                .setProjectDescription(projectId, f.getDescription("Description " + next++))
+                .createServerConfiguration();
+    }
+
+    @Benchmark
+    public ServerConfiguration renameUsers() {
+        ConfigurationBuilder builder = new ConfigurationBuilder(config);
+        for (UserId userId : userIds) {
+            builder.setUserName(userId, f.getName("Renamed " + next++));
+        }
+        return builder.createServerConfiguration();
+    }
+}
@@ -0,0 +1,100 @@
+package edu.stanford.protege.metaproject.benchmark;
+
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.impl.ConfigurationBuilder;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares credential checks against the authentication store, which holds pre-decoded digests, with the former
+ * checks (the per-user index with two {@code String.getBytes()} copies per comparison, and a linear scan of the
+ * authentication details) on a configuration with 100k registered users. Half of the attempts use a wrong digest.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main CredentialCheckBenchmark}
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialCheckBenchmark {
+    private static final int NR_USERS = 100000, HASH_BYTE_SIZE = 32, NR_QUERIES = 1024;
+    private final PolicyFactory f = ConfigurationManager.getFactory();
+
+    private ServerConfiguration config;
+    private Map<UserId, AuthenticationDetails> formerIndex;
+    private UserId[] queryUsers = new UserId[NR_QUERIES];
+    private SaltedPasswordDigest[] queryDigests = new SaltedPasswordDigest[NR_QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        byte[] bytes = new byte[HASH_BYTE_SIZE];
+        Salt salt = f.getSaltGenerator().generate();
+        Map<User, SaltedPasswordDigest> registrations = new LinkedHashMap<>();
+        List<UserId> userIds = new ArrayList<>(NR_USERS);
+        for (int i = 0; i < NR_USERS; i++) {
+            UserId userId = f.getUserId("user-" + i);
+            random.nextBytes(bytes);
+            registrations.put(f.getUser(userId, f.getName("User " + i), f.getEmailAddress("user" + i + "@example.org")),
+                    f.getSaltedPasswordDigest(Hex.encodeHexString(bytes), salt));
+            userIds.add(userId);
+        }
+        config = ConfigurationBuilder.getEmptyBuilder().addRegisteredUsers(registrations).createServerConfiguration();
+        formerIndex = new HashMap<>();
+        for (AuthenticationDetails details : config.getAuthenticationDetails()) {
+            formerIndex.put(details.getUserId(), details);
+        }
+        for (int i = 0; i < NR_QUERIES; i++) {
+            UserId userId = userIds.get(random.nextInt(NR_USERS));
+            queryUsers[i] = userId;
+            if (random.nextBoolean()) {
+                queryDigests[i] = config.getAuthenticationDetails(userId).getPassword();
+            } else {
+                random.nextBytes(bytes);
+                queryDigests[i] = f.getSaltedPasswordDigest(Hex.encodeHexString(bytes), salt);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean store() {
+        int i = next++ & (NR_QUERIES - 1);
+        return config.hasValidCredentials(queryUsers[i], queryDigests[i]);
+    }
+
+    @Benchmark
+    public boolean formerIndexedCheck() {
+        int i = next++ & (NR_QUERIES - 1);
+        AuthenticationDetails details = formerIndex.get(queryUsers[i]);
+        return details != null && slowEquals(queryDigests[i].getPassword().getBytes(), details.getPassword().getPassword().getBytes());
+    }
+
+    @Benchmark
+    public boolean formerLinearScan() {
+        int i = next++ & (NR_QUERIES - 1);
+        for (AuthenticationDetails details : config.getAuthenticationDetails()) {
+            if (details.getUserId().equals(queryUsers[i])) {
+                return slowEquals(queryDigests[i].getPassword().getBytes(), details.getPassword().getPassword().getBytes());
+            }
+        }
+        return false;
+    }
+
+    private static boolean slowEquals(byte[] a, byte[] b) {
+        int diff = a.length ^ b.length;
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+}
@@ -0,0 +1,80 @@
+package edu.stanford.protege.metaproject.benchmark;
+
+import com.google.common.base.Ticker;
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.api.PolicyFactory;
+import edu.stanford.protege.metaproject.api.UserId;
+import edu.stanford.protege.metaproject.impl.LoginThrottle;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of throttling login attempts by 10k users from 1k sources, from several threads at once: an
+ * allowed attempt that succeeds, an allowed attempt that fails, and an attempt that is turned away while its user is
+ * blocked. Run with {@code java -cp <test classpath> org.openjdk.jmh.Main LoginThrottleBenchmark}
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LoginThrottleBenchmark {
+    private static final int NR_USERS = 10000, NR_SOURCES = 1000;
+    private static final String BLOCKED_SOURCE = "10.1.0.1";
+    private final PolicyFactory f = ConfigurationManager.getFactory();
+
+    private LoginThrottle throttle, blockedThrottle;
+    private UserId[] userIds = new UserId[NR_USERS];
+    private String[] sources = new String[NR_SOURCES];
+
+    @Setup
+    public void setUp() {
+        // generous limits, so that the allowed paths are measured rather than turned away
+        throttle = new LoginThrottle(Integer.MAX_VALUE / 2, Duration.ofNanos(1), Duration.ZERO,
+                Duration.ZERO, Duration.ofMinutes(15), 1 << 16, Ticker.systemTicker());
+        blockedThrottle = new LoginThrottle();
+        for (int i = 0; i < NR_USERS; i++) {
+            userIds[i] = f.getUserId("user-" + i);
+            for (int j = 0; j < 20; j++) {
+                blockedThrottle.recordFailure(userIds[i], BLOCKED_SOURCE);
+            }
+        }
+        for (int i = 0; i < NR_SOURCES; i++) {
+            sources[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long successfulAttempt() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UserId userId = userIds[random.nextInt(NR_USERS)];
+        String source = sources[random.nextInt(NR_SOURCES)];
+        long wait = throttle.tryAcquire(userId, source);
+        throttle.recordSuccess(userId, source);
+        return wait;
+    }
+
+    @Benchmark
+    public long failedAttempt() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UserId userId = userIds[random.nextInt(NR_USERS)];
+        String source = sources[random.nextInt(NR_SOURCES)];
+        long wait = throttle.tryAcquire(userId, source);
+        throttle.recordFailure(userId, source);
+        return wait;
+    }
+
+    @Benchmark
+    public long throttledAttempt() {
+        return blockedThrottle.tryAcquire(userIds[ThreadLocalRandom.current().nextInt(NR_USERS)], BLOCKED_SOURCE);
+    }
+}
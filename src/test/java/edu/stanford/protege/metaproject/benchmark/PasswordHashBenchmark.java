@@ -0,0 +1,57 @@
+package edu.stanford.protege.metaproject.benchmark;
+
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.impl.ConfigurationUtils;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-login cost of verifying a password against a stored digest with each hashing algorithm, at the
+ * default number of key-stretching iterations, and compares it with the former hashing path (a key factory lookup
+ * per hash, then string-based hex encoding). Run with
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main PasswordHashBenchmark}
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordHashBenchmark {
+    private static final char[] PASSWORD = "correct horse battery staple".toCharArray();
+    private final PolicyFactory f = ConfigurationManager.getFactory();
+
+    @Param({"PBKDF2_HMAC_SHA1", "PBKDF2_HMAC_SHA256", "PBKDF2_HMAC_SHA512"})
+    private PasswordHashAlgorithm algorithm;
+
+    private PasswordHasher hasher;
+    private SaltedPasswordDigest digest;
+
+    @Setup
+    public void setUp() {
+        hasher = f.getPasswordHasher(algorithm, ConfigurationUtils.getHashByteSize(), ConfigurationUtils.getKeyStretchingIterations());
+        digest = hasher.hash(PASSWORD, f.getSaltGenerator().generate());
+    }
+
+    @Benchmark
+    public boolean login() {
+        return hasher.matches(PASSWORD, digest);
+    }
+
+    @Benchmark
+    public String formerHashPath() throws Exception {
+        PBEKeySpec spec = new PBEKeySpec(new String(PASSWORD).toCharArray(), digest.getSalt().getBytes(),
+                digest.getNumberOfIterations(), ConfigurationUtils.getHashByteSize() * 8);
+        SecretKeyFactory skf = SecretKeyFactory.getInstance(algorithm.getJcaName());
+        return Hex.encodeHexString(skf.generateSecret(spec).getEncoded());
+    }
+}
@@ -0,0 +1,122 @@
+package edu.stanford.protege.metaproject.benchmark;
+
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.UnknownRoleIdException;
+import edu.stanford.protege.metaproject.impl.ConfigurationBuilder;
+import edu.stanford.protege.metaproject.impl.ConfigurationUtils;
+import edu.stanford.protege.metaproject.impl.Operations;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares permission checks against the precompiled permission index with the role-by-role derivation
+ * (role identifiers of the user in the project, then each role's operations) on a configuration with 10k users
+ * and 1k projects. Run with {@code java -cp <test classpath> org.openjdk.jmh.Main PermissionCheckBenchmark}
+ *
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionCheckBenchmark {
+    private static final int NR_USERS = 10000, NR_PROJECTS = 1000, NR_ROLES = 20, PROJECTS_PER_USER = 5, NR_QUERIES = 1024;
+    private final PolicyFactory f = ConfigurationManager.getFactory();
+
+    private ServerConfiguration config;
+    private UserId[] queryUsers = new UserId[NR_QUERIES];
+    private ProjectId[] queryProjects = new ProjectId[NR_QUERIES];
+    private OperationId[] queryOperations = new OperationId[NR_QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<OperationId> operationIds = new ArrayList<>(Operations.getDefaultOperationsIds());
+
+        Set<Role> roles = new HashSet<>(ConfigurationUtils.getDefaultRoles());
+        List<RoleId> roleIds = new ArrayList<>();
+        for (int i = 0; i < NR_ROLES; i++) {
+            Set<OperationId> allowed = new HashSet<>();
+            for (OperationId operationId : operationIds) {
+                if (random.nextBoolean()) {
+                    allowed.add(operationId);
+                }
+            }
+            Role role = f.getRole(f.getRoleId("role-" + i), f.getName("Role " + i), f.getDescription(""), allowed);
+            roles.add(role);
+            roleIds.add(role.getId());
+        }
+
+        Set<User> users = new HashSet<>();
+        Set<Project> projects = new HashSet<>();
+        List<ProjectId> projectIds = new ArrayList<>();
+        for (int i = 0; i < NR_PROJECTS; i++) {
+            ProjectId projectId = f.getProjectId("project-" + i);
+            projects.add(f.getProject(projectId, f.getName("Project " + i), f.getDescription(""), new File("project-" + i),
+                    f.getUserId("user-0"), Optional.empty()));
+            projectIds.add(projectId);
+        }
+
+        Map<UserId, Map<ProjectId, Set<RoleId>>> policy = new HashMap<>();
+        List<UserId> userIds = new ArrayList<>();
+        for (int i = 0; i < NR_USERS; i++) {
+            UserId userId = f.getUserId("user-" + i);
+            users.add(f.getUser(userId, f.getName("User " + i), f.getEmailAddress("user" + i + "@example.org")));
+            userIds.add(userId);
+            Map<ProjectId, Set<RoleId>> assignments = new HashMap<>();
+            for (int j = 0; j < PROJECTS_PER_USER; j++) {
+                Set<RoleId> assigned = new HashSet<>();
+                assigned.add(roleIds.get(random.nextInt(NR_ROLES)));
+                assignments.put(projectIds.get(random.nextInt(NR_PROJECTS)), assigned);
+            }
+            if (i % 20 == 0) {
+                assignments.put(ConfigurationUtils.getUniversalProjectId(), new HashSet<>(Collections.singleton(ConfigurationUtils.getGuestRole().getId())));
+            }
+            policy.put(userId, assignments);
+        }
+
+        config = new ConfigurationBuilder()
+                .setUsers(users)
+                .setProjects(projects)
+                .setRoles(roles)
+                .setPolicyMap(policy)
+                .createServerConfiguration();
+
+        for (int i = 0; i < NR_QUERIES; i++) {
+            queryUsers[i] = userIds.get(random.nextInt(NR_USERS));
+            queryProjects[i] = projectIds.get(random.nextInt(NR_PROJECTS));
+            queryOperations[i] = operationIds.get(random.nextInt(operationIds.size()));
+        }
+    }
+
+    @Benchmark
+    public boolean indexed() {
+        int i = next++ & (NR_QUERIES - 1);
+        return config.isOperationAllowed(queryOperations[i], queryProjects[i], queryUsers[i]);
+    }
+
+    @Benchmark
+    public boolean roleDerivation() {
+        int i = next++ & (NR_QUERIES - 1);
+        try {
+            Set<RoleId> roleIds = new HashSet<>(config.getRoleIds(queryUsers[i], queryProjects[i], GlobalPermissions.INCLUDED));
+            for (RoleId roleId : roleIds) {
+                if (config.getRole(roleId).getOperations().contains(queryOperations[i])) {
+                    return true;
+                }
+            }
+        } catch (UnknownRoleIdException e) {
+            return false;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class AuthenticationStoreTest {
+    private static final String toStringHead = AuthenticationStore.class.getSimpleName();
+    private final PolicyFactory factory = ConfigurationManager.getFactory();
+    private final UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId(), legacyUserId = TestUtils.getUserId();
+    private final SaltedPasswordDigest password = TestUtils.getSaltedPassword();
+    private final SaltedPasswordDigest legacyPassword = factory.getSaltedPasswordDigest("not a hex digest", TestUtils.getSalt());
+    private final AuthenticationDetails details = TestUtils.getAuthenticationDetails(userId, password);
+
+    private AuthenticationStore store;
+
+    @Before
+    public void setUp() {
+        store = new AuthenticationStore(ImmutableSet.of(details, TestUtils.getAuthenticationDetails(legacyUserId, legacyPassword)));
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(store, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testFind() {
+        assertThat(store.find(userId), is(Optional.of(details)));
+        assertThat(store.find(otherUserId), is(Optional.empty()));
+    }
+
+    @Test
+    public void testContains() {
+        assertThat(store.contains(userId), is(true));
+        assertThat(store.contains(otherUserId), is(false));
+    }
+
+    @Test
+    public void testAsMap() {
+        assertThat(store.asMap().get(userId), is(details));
+        assertThat(store.asMap().containsKey(otherUserId), is(false));
+        assertThat(store.asMap().size(), is(2));
+        assertThat(store.asMap(), is(sameInstance(store.asMap())));
+    }
+
+    @Test
+    public void testStoresFirstDetailsOfUser() {
+        AuthenticationDetails otherDetails = TestUtils.getAuthenticationDetails(userId, TestUtils.getSaltedPassword());
+        AuthenticationStore store = new AuthenticationStore(Arrays.asList(details, otherDetails));
+        assertThat(store.find(userId), is(Optional.of(details)));
+        assertThat(store.size(), is(1));
+    }
+
+    @Test
+    public void testSize() {
+        assertThat(store.size(), is(2));
+    }
+
+    @Test
+    public void testHasValidCredentials() {
+        assertThat(store.hasValidCredentials(userId, password), is(true));
+        assertThat(store.hasValidCredentials(userId, TestUtils.getSaltedPassword()), is(false));
+        assertThat(store.hasValidCredentials(otherUserId, password), is(false));
+    }
+
+    @Test
+    public void testHasValidCredentialsWithMalformedDigest() {
+        String hex = password.getPassword();
+        assertThat(store.hasValidCredentials(userId, factory.getSaltedPasswordDigest("", password.getSalt())), is(false));
+        assertThat(store.hasValidCredentials(userId, factory.getSaltedPasswordDigest(hex.substring(1), password.getSalt())), is(false));
+        assertThat(store.hasValidCredentials(userId, factory.getSaltedPasswordDigest(hex + "0", password.getSalt())), is(false));
+        assertThat(store.hasValidCredentials(userId, factory.getSaltedPasswordDigest(hex.toUpperCase(), password.getSalt())), is(false));
+        assertThat(store.hasValidCredentials(userId, factory.getSaltedPasswordDigest("zz" + hex.substring(2), password.getSalt())), is(false));
+    }
+
+    @Test
+    public void testHasValidCredentialsWithNonHexDigest() {
+        assertThat(store.hasValidCredentials(legacyUserId, legacyPassword), is(true));
+        assertThat(store.hasValidCredentials(legacyUserId, password), is(false));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(store.toString(), startsWith(toStringHead));
+    }
+}
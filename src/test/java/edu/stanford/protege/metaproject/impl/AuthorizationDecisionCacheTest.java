@@ -0,0 +1,110 @@
+package edu.stanford.protege.metaproject.impl;
+
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class AuthorizationDecisionCacheTest {
+    private static final String toStringHead = AuthorizationDecisionCache.class.getSimpleName();
+    private final Operation operation = TestUtils.getCustomOperation(TestUtils.getOperationId(), TestUtils.getName(),
+            TestUtils.getDescription(), OperationType.WRITE, Operation.Scope.ONTOLOGY);
+    private final Role role = TestUtils.getRole(operation.getId());
+    private final UserId userId = TestUtils.getUserId();
+    private final ProjectId projectId = TestUtils.getProjectId();
+
+    private ServerConfiguration config, otherConfig;
+    private AtomicReference<ServerConfiguration> currentConfig;
+    private AuthorizationDecisionCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        config = ConfigurationBuilder.getEmptyBuilder()
+                .addOperation(operation)
+                .addRole(role)
+                .addPolicy(userId, projectId, role.getId())
+                .createServerConfiguration();
+        otherConfig = ConfigurationBuilder.getEmptyBuilder()
+                .addOperation(operation)
+                .addRole(role)
+                .createServerConfiguration();
+        currentConfig = new AtomicReference<>(config);
+        cache = new AuthorizationDecisionCache(currentConfig::get, 100);
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(cache, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testIsOperationAllowed() {
+        assertThat(cache.isOperationAllowed(operation.getId(), projectId, userId), is(true));
+        assertThat(cache.isOperationAllowed(operation.getId(), userId), is(true));
+        assertThat(cache.isOperationAllowed(operation.getId(), TestUtils.getProjectId(), userId), is(false));
+    }
+
+    @Test
+    public void testHasRole() {
+        assertThat(cache.hasRole(userId, projectId, role.getId()), is(true));
+        assertThat(cache.hasRole(userId, projectId), is(true));
+        assertThat(cache.hasRole(userId, TestUtils.getProjectId()), is(false));
+    }
+
+    @Test
+    public void testRecordsHitsAndMisses() {
+        cache.isOperationAllowed(operation.getId(), projectId, userId);
+        cache.isOperationAllowed(operation.getId(), projectId, userId);
+        cache.hasRole(userId, projectId, role.getId());
+        assertThat(cache.stats().missCount(), is(2L));
+        assertThat(cache.stats().hitCount(), is(1L));
+        assertThat(cache.size(), is(2L));
+    }
+
+    @Test
+    public void testOperationAndRoleDecisionsAreDistinct() {
+        cache.hasRole(userId, projectId);
+        cache.isOperationAllowed(operation.getId(), projectId, userId);
+        assertThat(cache.stats().hitCount(), is(0L));
+    }
+
+    @Test
+    public void testRecordsEvictions() {
+        AuthorizationDecisionCache smallCache = new AuthorizationDecisionCache(currentConfig::get, 1);
+        smallCache.isOperationAllowed(operation.getId(), projectId, userId);
+        smallCache.isOperationAllowed(operation.getId(), userId);
+        assertThat(smallCache.stats().evictionCount(), is(1L));
+        assertThat(smallCache.size(), is(1L));
+    }
+
+    @Test
+    public void testConfigurationChangeInvalidatesDecisions() {
+        assertThat(cache.isOperationAllowed(operation.getId(), projectId, userId), is(true));
+        currentConfig.set(otherConfig);
+        assertThat(cache.isOperationAllowed(operation.getId(), projectId, userId), is(false));
+        assertThat(cache.stats().hitCount(), is(0L));
+        assertThat(cache.size(), is(1L));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        cache.isOperationAllowed(operation.getId(), projectId, userId);
+        cache.invalidateAll();
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(cache.toString(), startsWith(toStringHead));
+    }
+}
@@ -0,0 +1,112 @@
+package edu.stanford.protege.metaproject.impl;
+
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class BoundedAsyncUserAuthenticatorTest {
+    private static final String toStringHead = BoundedAsyncUserAuthenticator.class.getSimpleName();
+    private static final long TIMEOUT = 5;
+    private final PolicyFactory factory = ConfigurationManager.getFactory();
+    private final User user = TestUtils.getUser();
+    private final PlainPassword password = TestUtils.getPlainPassword(), otherPassword = TestUtils.getPlainPassword();
+    private final AtomicInteger nrVerifications = new AtomicInteger();
+
+    private CountDownLatch release;
+    private BoundedAsyncUserAuthenticator authenticator;
+
+    @Before
+    public void setUp() {
+        release = new CountDownLatch(1);
+        UserAuthenticator delegate = (userId, plainPassword) -> {
+            nrVerifications.incrementAndGet();
+            try {
+                release.await(TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return plainPassword.equals(password) ? factory.getAuthorizedUserToken(user) : factory.getUnauthorizedUserToken(user);
+        };
+        authenticator = new BoundedAsyncUserAuthenticator(delegate, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        authenticator.close();
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(authenticator, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testHasValidCredentials() throws Exception {
+        release.countDown();
+        assertThat(authenticator.hasValidCredentials(user.getId(), password).get(TIMEOUT, TimeUnit.SECONDS).isAuthorized(), is(true));
+        assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword).get(TIMEOUT, TimeUnit.SECONDS).isAuthorized(), is(false));
+    }
+
+    @Test
+    public void testCoalescesIdenticalAttempts() throws Exception {
+        CompletableFuture<AuthToken> first = authenticator.hasValidCredentials(user.getId(), password);
+        CompletableFuture<AuthToken> second = authenticator.hasValidCredentials(user.getId(), TestUtils.getPlainPassword(password.getPassword()));
+        assertThat(authenticator.getPendingCount(), is(1));
+        release.countDown();
+        assertThat(first.get(TIMEOUT, TimeUnit.SECONDS), is(second.get(TIMEOUT, TimeUnit.SECONDS)));
+        assertThat(nrVerifications.get(), is(1));
+    }
+
+    @Test
+    public void testDoesNotCoalesceDifferentPasswords() throws Exception {
+        CompletableFuture<AuthToken> first = authenticator.hasValidCredentials(user.getId(), password);
+        CompletableFuture<AuthToken> second = authenticator.hasValidCredentials(user.getId(), otherPassword);
+        release.countDown();
+        assertThat(first.get(TIMEOUT, TimeUnit.SECONDS).isAuthorized(), is(true));
+        assertThat(second.get(TIMEOUT, TimeUnit.SECONDS).isAuthorized(), is(false));
+        assertThat(nrVerifications.get(), is(2));
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        authenticator.hasValidCredentials(user.getId(), password);
+        authenticator.hasValidCredentials(user.getId(), otherPassword);
+        CompletableFuture<AuthToken> rejected = authenticator.hasValidCredentials(TestUtils.getUserId(), password);
+        assertThat(rejected.isCompletedExceptionally(), is(true));
+        try {
+            rejected.join();
+        } catch (CompletionException e) {
+            assertThat(e.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        }
+        assertThat(authenticator.getPendingCount(), is(2));
+    }
+
+    @Test
+    public void testCancellingSharedAttemptDoesNotAffectOthers() throws Exception {
+        CompletableFuture<AuthToken> first = authenticator.hasValidCredentials(user.getId(), password);
+        CompletableFuture<AuthToken> second = authenticator.hasValidCredentials(user.getId(), password);
+        first.cancel(true);
+        release.countDown();
+        assertThat(second.get(TIMEOUT, TimeUnit.SECONDS).isAuthorized(), is(true));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(authenticator.toString(), startsWith(toStringHead));
+    }
+}
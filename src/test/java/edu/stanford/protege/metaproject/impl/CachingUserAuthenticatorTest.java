@@ -0,0 +1,173 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.Ticker;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class CachingUserAuthenticatorTest {
+    private static final String toStringHead = CachingUserAuthenticator.class.getSimpleName();
+    private static final Duration POSITIVE_TTL = Duration.ofMinutes(5), NEGATIVE_TTL = Duration.ofSeconds(10);
+    private static final long TIMEOUT = 5;
+    private final User user = TestUtils.getUser();
+    private final PlainPassword password = TestUtils.getPlainPassword(), otherPassword = TestUtils.getPlainPassword();
+    private final AtomicLong now = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return now.get();
+        }
+    };
+
+    private InMemoryUserAuthenticator backend;
+    private CachingUserAuthenticator authenticator;
+
+    @Before
+    public void setUp() {
+        backend = new InMemoryUserAuthenticator(TestUtils.getPasswordHasher(32, 1000)).register(user, password);
+        authenticator = new CachingUserAuthenticator(backend, POSITIVE_TTL, NEGATIVE_TTL, 100, ticker);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(authenticator, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testHasValidCredentials() {
+        assertThat(authenticator.hasValidCredentials(user.getId(), password).isAuthorized(), is(true));
+        assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword).isAuthorized(), is(false));
+        assertThat(authenticator.hasValidCredentials(TestUtils.getUserId(), password).isAuthorized(), is(false));
+    }
+
+    @Test
+    public void testCachesPositiveOutcome() {
+        AuthToken token = authenticator.hasValidCredentials(user.getId(), password);
+        advance(POSITIVE_TTL.minusSeconds(1));
+        assertThat(authenticator.hasValidCredentials(user.getId(), TestUtils.getPlainPassword(password.getPassword())), is(token));
+        assertThat(backend.getVerificationCount(), is(1L));
+        assertThat(authenticator.getHitCount(), is(1L));
+        assertThat(authenticator.getMissCount(), is(1L));
+        assertThat(authenticator.getHitRate(), is(0.5));
+    }
+
+    @Test
+    public void testPositiveOutcomeExpires() {
+        authenticator.hasValidCredentials(user.getId(), password);
+        advance(POSITIVE_TTL);
+        assertThat(authenticator.hasValidCredentials(user.getId(), password).isAuthorized(), is(true));
+        assertThat(backend.getVerificationCount(), is(2L));
+    }
+
+    @Test
+    public void testNegativeOutcomeExpiresSooner() {
+        authenticator.hasValidCredentials(user.getId(), otherPassword);
+        advance(NEGATIVE_TTL.minusSeconds(1));
+        assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword).isAuthorized(), is(false));
+        assertThat(backend.getVerificationCount(), is(1L));
+        advance(Duration.ofSeconds(1));
+        assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword).isAuthorized(), is(false));
+        assertThat(backend.getVerificationCount(), is(2L));
+    }
+
+    @Test
+    public void testInvalidate() {
+        authenticator.hasValidCredentials(user.getId(), password);
+        backend.register(user, otherPassword);
+        authenticator.invalidate(user.getId());
+        assertThat(authenticator.hasValidCredentials(user.getId(), password).isAuthorized(), is(false));
+        assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword).isAuthorized(), is(true));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        authenticator.hasValidCredentials(user.getId(), password);
+        authenticator.invalidateAll();
+        assertThat(authenticator.size(), is(0L));
+        authenticator.hasValidCredentials(user.getId(), password);
+        assertThat(backend.getVerificationCount(), is(2L));
+    }
+
+    @Test
+    public void testCoalescesConcurrentAttempts() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+        AtomicInteger nrCalls = new AtomicInteger();
+        UserAuthenticator slowBackend = (userId, plainPassword) -> {
+            nrCalls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return backend.hasValidCredentials(userId, plainPassword);
+        };
+        CachingUserAuthenticator caching = new CachingUserAuthenticator(slowBackend, POSITIVE_TTL, NEGATIVE_TTL, 100, ticker);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<AuthToken> first = executor.submit(() -> caching.hasValidCredentials(user.getId(), password));
+            entered.await(TIMEOUT, TimeUnit.SECONDS);
+            Future<AuthToken> second = executor.submit(() -> caching.hasValidCredentials(user.getId(), password));
+            Thread.sleep(100); // let the second attempt reach the cache; it either waits on the first or hits the cache
+            release.countDown();
+            assertThat(first.get(TIMEOUT, TimeUnit.SECONDS), is(second.get(TIMEOUT, TimeUnit.SECONDS)));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(nrCalls.get(), is(1));
+        assertThat(caching.getMissCount(), is(1L));
+        assertThat(caching.getHitCount() + caching.getCoalescedCount(), is(1L));
+    }
+
+    @Test
+    public void testDoesNotCacheFailures() {
+        AtomicInteger nrCalls = new AtomicInteger();
+        UserAuthenticator failingBackend = (userId, plainPassword) -> {
+            if (nrCalls.getAndIncrement() == 0) {
+                throw new IllegalStateException("Directory unavailable");
+            }
+            return backend.hasValidCredentials(userId, plainPassword);
+        };
+        CachingUserAuthenticator caching = new CachingUserAuthenticator(failingBackend, POSITIVE_TTL, NEGATIVE_TTL, 100, ticker);
+        try {
+            caching.hasValidCredentials(user.getId(), password);
+            throw new AssertionError("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("Directory unavailable"));
+        }
+        assertThat(caching.hasValidCredentials(user.getId(), password).isAuthorized(), is(true));
+    }
+
+    @Test
+    public void testHitRateWithoutRequests() {
+        assertThat(authenticator.getHitRate(), is(1.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTtl() {
+        new CachingUserAuthenticator(backend, POSITIVE_TTL, Duration.ofSeconds(-1));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(authenticator.toString(), startsWith(toStringHead));
+    }
+}
@@ -3,6 +3,7 @@ package edu.stanford.protege.metaproject.impl;
 import edu.stanford.protege.metaproject.ConfigurationManager;
 import edu.stanford.protege.metaproject.TestUtils;
 import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.IdAlreadyInUseException;
 import org.junit.Test;
 
 import java.io.File;
@@ -28,6 +29,22 @@ public class ConfigurationBuilderTest {
         assertThat(config, is(not(equalTo(null))));
     }
 
+    @Test
+    public void testCreateServerConfigurationFromEmptyBuilder() throws Exception {
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().createServerConfiguration();
+        assertThat(config.getUsers().isEmpty(), is(true));
+        assertThat(config.getRoles().isEmpty(), is(true));
+        assertThat(config.getAuthenticationDetails().isEmpty(), is(true));
+        assertThat(config.getPolicyMap().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDefaultAuthenticationDetailsAreReused() throws Exception {
+        ServerConfiguration config = new ConfigurationBuilder().createServerConfiguration();
+        ServerConfiguration otherConfig = new ConfigurationBuilder().createServerConfiguration();
+        assertThat(config.getAuthenticationDetails(), is(otherConfig.getAuthenticationDetails()));
+    }
+
     @Test
     public void testSetHost() throws Exception {
         Host host = factory.getHost(URI.create("http://protege.stanford.edu"), Optional.empty());
@@ -73,6 +90,27 @@ public class ConfigurationBuilderTest {
         assertThat(config.getUsers(), is(users));
     }
 
+    @Test
+    public void testSetUsersWithSharedIdKeepsFirst() throws Exception {
+        User user = TestUtils.getUser();
+        User other = TestUtils.getUser(user.getId(), TestUtils.getName(), TestUtils.getEmailAddress());
+        Set<User> users = new LinkedHashSet<>(Arrays.asList(user, other));
+        ServerConfiguration config = new ConfigurationBuilder().setUsers(users).createServerConfiguration();
+        assertThat(config.getUsers(), is(Collections.singleton(user)));
+        assertThat(config.getUser(user.getId()), is(user));
+    }
+
+    @Test
+    public void testSetAuthenticationDetailsWithSharedIdKeepsFirst() throws Exception {
+        UserId userId = TestUtils.getUserId();
+        AuthenticationDetails details = factory.getAuthenticationDetails(userId, TestUtils.getSaltedPassword());
+        AuthenticationDetails other = factory.getAuthenticationDetails(userId, TestUtils.getSaltedPassword());
+        Set<AuthenticationDetails> authDetails = new LinkedHashSet<>(Arrays.asList(details, other));
+        ServerConfiguration config = new ConfigurationBuilder().setAuthenticationDetails(authDetails).createServerConfiguration();
+        assertThat(config.getAuthenticationDetails(), is(Collections.singleton(details)));
+        assertThat(config.hasValidCredentials(userId, details.getPassword()), is(true));
+    }
+
     @Test
     public void testSetProjects() throws Exception {
         Set<Project> projects = TestUtils.getProjectSet();
@@ -437,6 +475,30 @@ public class ConfigurationBuilderTest {
         assertThat(configAlt.hasRole(user.getId(), project.getId(), roleAlt.getId()), is(true));
     }
 
+    @Test
+    public void testRemoveOperationFromPolicy() throws Exception {
+        OperationId operationId = TestUtils.getOperationId(), operationIdAlt = TestUtils.getOperationId();
+        Role role = TestUtils.getRole(operationId, operationIdAlt);
+        ServerConfiguration config = new ConfigurationBuilder().addRole(role).createServerConfiguration();
+        ServerConfiguration configAlt = new ConfigurationBuilder(config).removePolicy(operationId).createServerConfiguration();
+        assertThat(configAlt.getRole(role.getId()).getOperations().contains(operationId), is(false));
+        assertThat(configAlt.getRole(role.getId()).getOperations().contains(operationIdAlt), is(true));
+    }
+
+    @Test
+    public void testGetUserIdsAfterPolicyChanges() throws Exception {
+        UserId userId = TestUtils.getUserId(), userIdAlt = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId();
+        RoleId roleId = TestUtils.getRoleId();
+        ServerConfiguration config = new ConfigurationBuilder()
+                .addPolicy(userId, projectId, roleId)
+                .addPolicy(userIdAlt, projectId, roleId)
+                .removePolicy(userId, projectId, roleId)
+                .createServerConfiguration();
+        assertThat(config.getUserIds(projectId), is(Collections.singleton(userIdAlt)));
+        assertThat(config.hasRole(userId), is(false));
+    }
+
     @Test
     public void testRegisterUser() throws Exception {
         UserId userId = TestUtils.getUserId();
@@ -468,4 +530,325 @@ public class ConfigurationBuilderTest {
         assertThat(configAlt.hasValidCredentials(userId, pwd), is(false));
         assertThat(configAlt.hasValidCredentials(userId, pwdAlt), is(true));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddRegisteredUsers() throws Exception {
+        User user = TestUtils.getUser(), otherUser = TestUtils.getUser();
+        SaltedPasswordDigest pwd = TestUtils.getSaltedPassword(), otherPwd = TestUtils.getSaltedPassword();
+        Map<User, SaltedPasswordDigest> registrations = new LinkedHashMap<>();
+        registrations.put(user, pwd);
+        registrations.put(otherUser, otherPwd);
+        ServerConfiguration config = new ConfigurationBuilder().addRegisteredUsers(registrations).createServerConfiguration();
+        assertThat(config.containsUser(user), is(true));
+        assertThat(config.containsUser(otherUser), is(true));
+        assertThat(config.hasValidCredentials(user.getId(), pwd), is(true));
+        assertThat(config.hasValidCredentials(otherUser.getId(), otherPwd), is(true));
+    }
+
+    @Test(expected = IdAlreadyInUseException.class)
+    public void testAddRegisteredUsersWithDuplicateEmailAddress() throws Exception {
+        User user = TestUtils.getUser();
+        User otherUser = TestUtils.getUser(TestUtils.getUserId(), TestUtils.getName(),
+                TestUtils.getEmailAddress(user.getEmailAddress().get().toUpperCase(Locale.ROOT)));
+        ConfigurationBuilder builder = new ConfigurationBuilder().addUser(user);
+        builder.addRegisteredUsers(Collections.singletonMap(otherUser, TestUtils.getSaltedPassword()));
+    }
+
+    @Test
+    public void testDerivedConfigurationSharesUnchangedCollections() throws Exception {
+        ServerConfiguration config = new ConfigurationBuilder().createServerConfiguration();
+        User user = TestUtils.getUser();
+        ServerConfiguration derived = new ConfigurationBuilder(config).addUser(user).createServerConfiguration();
+        assertThat(derived.getProjects() == config.getProjects(), is(true));
+        assertThat(derived.getRoles() == config.getRoles(), is(true));
+        assertThat(derived.getPolicyMap() == config.getPolicyMap(), is(true));
+        assertThat(derived.getUsers() == config.getUsers(), is(false));
+        assertThat(derived.containsUser(user.getId()), is(true));
+        assertThat(derived.getUsers(user.getEmailAddress()).contains(user), is(true));
+        assertThat(config.containsUser(user.getId()), is(false));
+    }
+
+    @Test
+    public void testDerivedConfigurationSharesUnchangedAuthenticationDetails() throws Exception {
+        UserId userId = TestUtils.getUserId();
+        SaltedPasswordDigest pwd = TestUtils.getSaltedPassword(), pwdAlt = TestUtils.getSaltedPassword();
+        ServerConfiguration config = new ConfigurationBuilder().registerUser(userId, pwd).createServerConfiguration();
+        ServerConfiguration derived = new ConfigurationBuilder(config).addUser(TestUtils.getUser()).createServerConfiguration();
+        assertThat(derived.getAuthenticationDetails() == config.getAuthenticationDetails(), is(true));
+        ServerConfiguration changed = new ConfigurationBuilder(derived).changePassword(userId, pwdAlt).createServerConfiguration();
+        assertThat(changed.hasValidCredentials(userId, pwdAlt), is(true));
+        assertThat(derived.hasValidCredentials(userId, pwd), is(true));
+        assertThat(derived.hasValidCredentials(userId, pwdAlt), is(false));
+    }
+
+    @Test
+    public void testBuilderChangesAfterCreationDoNotAffectConfiguration() throws Exception {
+        ConfigurationBuilder builder = new ConfigurationBuilder();
+        ServerConfiguration config = builder.createServerConfiguration();
+        User user = TestUtils.getUser();
+        ServerConfiguration derived = builder.addUser(user).addProperty("key", "value").createServerConfiguration();
+        assertThat(config.containsUser(user.getId()), is(false));
+        assertThat(config.getProperty("key"), is(equalTo(null)));
+        assertThat(derived.containsUser(user.getId()), is(true));
+        assertThat(derived.getProperty("key"), is("value"));
+        assertThat(derived.getOperations() == config.getOperations(), is(true));
+    }
+
+    @Test
+    public void testDerivedConfigurationReindexesChangedRoles() throws Exception {
+        ServerConfiguration config = new ConfigurationBuilder().createServerConfiguration();
+        Role role = TestUtils.getRole();
+        UserId userId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId();
+        ServerConfiguration derived = new ConfigurationBuilder(config).addRole(role)
+                .addPolicy(userId, projectId, role.getId()).createServerConfiguration();
+        assertThat(derived.getRole(role.getId()), is(role));
+        assertThat(derived.getUserIds(projectId).contains(userId), is(true));
+        assertThat(config.getUserIds(projectId).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDerivedConfigurationRebuildsPermissionsWhenOnlyRolesChange() throws Exception {
+        Operation operation = TestUtils.getCustomOperation();
+        Role role = TestUtils.getRole();
+        UserId userId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addOperation(operation).addRole(role)
+                .addPolicy(userId, projectId, role.getId()).createServerConfiguration();
+        ServerConfiguration derived = new ConfigurationBuilder(config).addOperationToRole(role.getId(), operation.getId())
+                .createServerConfiguration();
+        assertThat(derived.getPolicyMap() == config.getPolicyMap(), is(true));
+        assertThat(derived.getOperations() == config.getOperations(), is(true));
+        assertThat(derived.isOperationAllowed(operation.getId(), projectId, userId), is(true));
+        assertThat(derived.getEffectivePermissions(userId, projectId).allows(operation.getId()), is(true));
+        assertThat(config.isOperationAllowed(operation.getId(), projectId, userId), is(false));
+    }
+
+    @Test
+    public void testDerivedConfigurationRebuildsPermissionsWhenOnlyOperationsChange() throws Exception {
+        Operation operation = TestUtils.getCustomOperation(TestUtils.getOperationId(), TestUtils.getName(),
+                TestUtils.getDescription(), OperationType.READ, Operation.Scope.ONTOLOGY);
+        Operation writeOperation = TestUtils.getCustomOperation(operation.getId(), operation.getName(),
+                operation.getDescription(), OperationType.WRITE, Operation.Scope.POLICY);
+        Role role = TestUtils.getRole(operation.getId());
+        UserId userId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addOperation(operation).addRole(role)
+                .addPolicy(userId, projectId, role.getId()).createServerConfiguration();
+        ServerConfiguration derived = new ConfigurationBuilder(config).setOperation(operation.getId(), writeOperation)
+                .createServerConfiguration();
+        assertThat(derived.getPolicyMap() == config.getPolicyMap(), is(true));
+        assertThat(derived.getRoles() == config.getRoles(), is(true));
+        PermissionSet permissions = derived.getEffectivePermissions(userId, projectId);
+        assertThat(permissions.allowsAny(OperationType.WRITE), is(true));
+        assertThat(permissions.allowsAny(Operation.Scope.POLICY), is(true));
+        assertThat(permissions.allowsAny(OperationType.READ), is(false));
+        assertThat(config.getEffectivePermissions(userId, projectId).allowsAny(OperationType.WRITE), is(false));
+    }
+
+    @Test
+    public void testDerivedConfigurationReindexesUsersAfterEmailAddressChange() throws Exception {
+        User user = TestUtils.getUser();
+        EmailAddress emailAddress = TestUtils.getEmailAddress();
+        User changedUser = TestUtils.getUser(user.getId(), user.getName(), emailAddress);
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addUser(user).createServerConfiguration();
+        ServerConfiguration derived = new ConfigurationBuilder(config).setUserEmailAddress(user.getId(), emailAddress)
+                .createServerConfiguration();
+        assertThat(derived.getUser(user.getId()), is(changedUser));
+        assertThat(derived.getUsers(emailAddress), is(Collections.singleton(changedUser)));
+        assertThat(derived.getUsers(user.getEmailAddress()).isEmpty(), is(true));
+        assertThat(derived.getUsers(user.getName()), is(Collections.singleton(changedUser)));
+        assertThat(config.getUser(user.getId()), is(user));
+        assertThat(config.getUsers(user.getEmailAddress()), is(Collections.singleton(user)));
+        assertThat(config.getUsers(emailAddress).isEmpty(), is(true));
+        assertThat(config.getUsers(user.getName()), is(Collections.singleton(user)));
+    }
+
+    @Test
+    public void testBuilderEditsAfterCreationDoNotShowThroughConfiguration() throws Exception {
+        Operation operation = TestUtils.getCustomOperation();
+        Role role = TestUtils.getRole(operation.getId());
+        User user = TestUtils.getUser();
+        ProjectId projectId = TestUtils.getProjectId();
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder().addOperation(operation).addRole(role)
+                .addUser(user).addPolicy(user.getId(), projectId, role.getId());
+        ServerConfiguration config = builder.createServerConfiguration();
+        Set<Role> roles = new HashSet<>(config.getRoles());
+        Map<UserId, Map<ProjectId, Set<RoleId>>> policyMap = new HashMap<>(config.getPolicyMap());
+        EmailAddress emailAddress = TestUtils.getEmailAddress();
+        Role otherRole = TestUtils.getRole();
+        ServerConfiguration derived = builder.setUserEmailAddress(user.getId(), emailAddress)
+                .removeOperationFromRole(role.getId(), operation.getId())
+                .addRole(otherRole)
+                .addPolicy(user.getId(), projectId, otherRole.getId())
+                .removePolicy(user.getId(), projectId, role.getId())
+                .createServerConfiguration();
+        assertThat(config.getUser(user.getId()), is(user));
+        assertThat(config.getUsers(user.getEmailAddress()), is(Collections.singleton(user)));
+        assertThat(config.getUsers(emailAddress).isEmpty(), is(true));
+        assertThat(config.getRoles(), is(roles));
+        assertThat(config.getPolicyMap(), is(policyMap));
+        assertThat(config.getRoles(user.getId(), projectId, GlobalPermissions.EXCLUDED), is(Collections.singleton(role)));
+        assertThat(config.isOperationAllowed(operation.getId(), projectId, user.getId()), is(true));
+        assertThat(derived.getUsers(emailAddress).size(), is(1));
+        assertThat(derived.getRoles(user.getId(), projectId, GlobalPermissions.EXCLUDED),
+                is(Collections.singleton(otherRole)));
+        assertThat(derived.isOperationAllowed(operation.getId(), projectId, user.getId()), is(false));
+    }
+
+    @Test
+    public void testSetUserKeepsOrder() throws Exception {
+        User user = TestUtils.getUser(), otherUser = TestUtils.getUser();
+        User renamedUser = TestUtils.getUser(user.getId(), TestUtils.getName(), user.getEmailAddress());
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder().addUser(user).addUser(otherUser)
+                .setUser(user.getId(), renamedUser);
+        ServerConfiguration config = builder.createServerConfiguration();
+        assertThat(new ArrayList<>(config.getUsers()), is(Arrays.asList(renamedUser, otherUser)));
+    }
+
+    @Test
+    public void testSetUserWithIdInUseIsIgnored() throws Exception {
+        User user = TestUtils.getUser(), otherUser = TestUtils.getUser();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addUser(user).addUser(otherUser)
+                .setUser(user.getId(), otherUser).createServerConfiguration();
+        assertThat(config.getUsers(), is(new HashSet<>(Arrays.asList(user, otherUser))));
+    }
+
+    @Test
+    public void testRemoveStaleUserIsIgnored() throws Exception {
+        User user = TestUtils.getUser();
+        User staleUser = TestUtils.getUser(user.getId(), TestUtils.getName(), user.getEmailAddress());
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addUser(user).removeUser(staleUser)
+                .createServerConfiguration();
+        assertThat(config.getUsers().contains(user), is(true));
+    }
+
+    @Test
+    public void testSetRoleReindexesOperations() throws Exception {
+        OperationId operationId = TestUtils.getOperationId(), otherOperationId = TestUtils.getOperationId();
+        Role role = TestUtils.getRole(operationId);
+        Role otherRole = factory.getRole(role.getId(), role.getName(), role.getDescription(), Collections.singleton(otherOperationId));
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder().addRole(role).setRole(role.getId(), otherRole);
+        assertThat(builder.removePolicy(operationId).createServerConfiguration().getRole(role.getId()), is(otherRole));
+        Role role2 = builder.removePolicy(otherOperationId).createServerConfiguration().getRole(role.getId());
+        assertThat(role2.getOperations().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testDerivedBuilderPolicyChangesDoNotAffectConfiguration() throws Exception {
+        UserId userId = ConfigurationUtils.getRootUser().getId();
+        ProjectId projectId = ConfigurationUtils.getUniversalProjectId();
+        RoleId roleId = TestUtils.getRoleId();
+        ServerConfiguration config = new ConfigurationBuilder().createServerConfiguration();
+        Map<ProjectId, Set<RoleId>> assignments = new HashMap<>(config.getUserRoleMap(userId));
+        new ConfigurationBuilder(config).addPolicy(userId, projectId, roleId).removePolicy(userId, projectId,
+                ConfigurationUtils.getAdminRole().getId());
+        assertThat(config.getUserRoleMap(userId), is(assignments));
+        assertThat(config.getPolicyMap().get(userId), is(assignments));
+    }
+
+    @Test
+    public void testRemoveProjectPolicyAfterDerivedBuilderChanges() throws Exception {
+        UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId();
+        RoleId roleId = TestUtils.getRoleId();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addPolicy(userId, projectId, roleId)
+                .createServerConfiguration();
+        ServerConfiguration derived = new ConfigurationBuilder(config).addPolicy(otherUserId, projectId, roleId)
+                .removePolicy(userId).removePolicy(projectId).createServerConfiguration();
+        assertThat(derived.getPolicyMap().isEmpty(), is(true));
+        assertThat(config.getUserIds(projectId), is(Collections.singleton(userId)));
+    }
+
+    @Test
+    public void testRemoveUserCascading() throws Exception {
+        User user = TestUtils.getUser();
+        ProjectId projectId = TestUtils.getProjectId();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addUser(user)
+                .registerUser(user.getId(), TestUtils.getSaltedPassword())
+                .addPolicy(user.getId(), projectId, TestUtils.getRoleId())
+                .removeUserCascading(user.getId()).createServerConfiguration();
+        assertThat(config.getUsers().isEmpty(), is(true));
+        assertThat(config.isRegistered(user.getId()), is(false));
+        assertThat(config.getPolicyMap().isEmpty(), is(true));
+        assertThat(config.getUserIds(projectId).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRemoveProjectCascading() throws Exception {
+        UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId();
+        Project project = TestUtils.getProject(TestUtils.getProjectId(), TestUtils.getName(), TestUtils.getDescription(),
+                TestUtils.getFile(), userId, Optional.empty());
+        ProjectId otherProjectId = TestUtils.getProjectId();
+        RoleId roleId = TestUtils.getRoleId();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addProject(project)
+                .addPolicy(otherUserId, project.getId(), roleId).addPolicy(otherUserId, otherProjectId, roleId)
+                .createServerConfiguration();
+        ServerConfiguration derived = new ConfigurationBuilder(config).removeProjectCascading(project.getId())
+                .createServerConfiguration();
+        assertThat(derived.getProjects().isEmpty(), is(true));
+        assertThat(derived.getPolicyMap().containsKey(userId), is(false));
+        assertThat(derived.getProjectIds(otherUserId), is(Collections.singleton(otherProjectId)));
+    }
+
+    @Test
+    public void testRemoveRoleCascading() throws Exception {
+        Role role = TestUtils.getRole();
+        UserId userId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId();
+        RoleId otherRoleId = TestUtils.getRoleId();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addRole(role)
+                .addPolicy(userId, projectId, role.getId(), otherRoleId)
+                .removeRoleCascading(role.getId()).createServerConfiguration();
+        assertThat(config.getRoles().isEmpty(), is(true));
+        assertThat(config.getRoleIds(userId, projectId, GlobalPermissions.EXCLUDED), is(Collections.singleton(otherRoleId)));
+    }
+
+    @Test
+    public void testRemoveRoleCascadingFromDerivedBuilder() throws Exception {
+        Role role = TestUtils.getRole();
+        UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId(), newUserId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId(), otherProjectId = TestUtils.getProjectId();
+        RoleId otherRoleId = TestUtils.getRoleId();
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addRole(role)
+                .addPolicy(userId, projectId, role.getId())
+                .addPolicy(userId, otherProjectId, role.getId(), otherRoleId)
+                .addPolicy(otherUserId, projectId, role.getId())
+                .createServerConfiguration();
+        ServerConfiguration derived = new ConfigurationBuilder(config)
+                .addPolicy(otherUserId, otherProjectId, otherRoleId)
+                .addPolicy(newUserId, otherProjectId, role.getId())
+                .removeRoleCascading(role.getId())
+                .createServerConfiguration();
+        assertThat(derived.getRoles().isEmpty(), is(true));
+        assertThat(derived.getUserRoleMap(userId), is(Collections.singletonMap(otherProjectId, Collections.singleton(otherRoleId))));
+        assertThat(derived.getUserRoleMap(otherUserId), is(Collections.singletonMap(otherProjectId, Collections.singleton(otherRoleId))));
+        assertThat(derived.getPolicyMap().containsKey(newUserId), is(false));
+        assertThat(derived.getUserIds(projectId).isEmpty(), is(true));
+        assertThat(config.getUserIds(projectId), is(new HashSet<>(Arrays.asList(userId, otherUserId))));
+    }
+
+    @Test
+    public void testRemoveOperationCascading() throws Exception {
+        Operation operation = TestUtils.getSystemOperation();
+        Role role = TestUtils.getRole(TestUtils.getRoleId(), TestUtils.getName(), TestUtils.getDescription(),
+                Collections.singleton(operation.getId()));
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addOperation(operation).addRole(role)
+                .removeOperationCascading(operation.getId()).createServerConfiguration();
+        assertThat(config.getOperations().isEmpty(), is(true));
+        assertThat(config.getRole(role.getId()).getOperations().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testSetPolicyMapCopiesNestedCollections() throws Exception {
+        UserId userId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId();
+        Set<RoleId> roleIds = new HashSet<>(Collections.singleton(TestUtils.getRoleId()));
+        Map<ProjectId, Set<RoleId>> assignments = new HashMap<>();
+        assignments.put(projectId, roleIds);
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder()
+                .setPolicyMap(Collections.singletonMap(userId, assignments)).createServerConfiguration();
+        roleIds.add(TestUtils.getRoleId());
+        assertThat(config.getRoleIds(userId, projectId, GlobalPermissions.EXCLUDED).size(), is(1));
+    }
+}
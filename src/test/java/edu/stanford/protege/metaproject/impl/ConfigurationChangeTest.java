@@ -0,0 +1,201 @@
+package edu.stanford.protege.metaproject.impl;
+
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.IdAlreadyInUseException;
+import edu.stanford.protege.metaproject.api.exception.UnknownRoleIdException;
+import edu.stanford.protege.metaproject.api.exception.UnknownUserIdException;
+import edu.stanford.protege.metaproject.api.exception.UserNotRegisteredException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class ConfigurationChangeTest {
+    private static final String toStringHead = ConfigurationChange.class.getSimpleName();
+    private final User user = TestUtils.getUser(), otherUser = TestUtils.getUser();
+    private final Project project = TestUtils.getProject(TestUtils.getProjectId(), TestUtils.getName(), TestUtils.getDescription(),
+            TestUtils.getFile(), user.getId(), Optional.empty());
+    private final Role role = TestUtils.getRole();
+    private final SaltedPasswordDigest password = TestUtils.getSaltedPassword();
+
+    @Test
+    public void testNotNull() {
+        assertThat(ConfigurationChange.addUser(user), is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testGetActionAndTarget() {
+        ConfigurationChange change = ConfigurationChange.removePolicy(user.getId(), project.getId(), role.getId());
+        assertThat(change.getAction(), is(ConfigurationChange.Action.REMOVE));
+        assertThat(change.getTarget(), is(ConfigurationChange.Target.POLICY));
+        assertThat(ConfigurationChange.changePassword(user.getId(), password).getTarget(),
+                is(ConfigurationChange.Target.AUTHENTICATION_DETAILS));
+    }
+
+    @Test
+    public void testEquals() {
+        assertThat(ConfigurationChange.addUser(user), is(ConfigurationChange.addUser(user)));
+        assertThat(ConfigurationChange.addUser(user).hashCode(), is(ConfigurationChange.addUser(user).hashCode()));
+        assertThat(ConfigurationChange.addUser(user), is(not(ConfigurationChange.addUser(otherUser))));
+        assertThat(ConfigurationChange.addUser(user), is(not(ConfigurationChange.modifyUser(user.getId(), user))));
+    }
+
+    @Test
+    public void testApplyAll() throws Exception {
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().applyAll(Arrays.asList(
+                ConfigurationChange.addUser(user),
+                ConfigurationChange.registerUser(user.getId(), password),
+                ConfigurationChange.addRole(role),
+                ConfigurationChange.addProject(project),
+                ConfigurationChange.addPolicy(user.getId(), project.getId(), role.getId())))
+                .createServerConfiguration();
+        assertThat(config.getUsers(), is(Collections.singleton(user)));
+        assertThat(config.isRegistered(user.getId()), is(true));
+        assertThat(config.getProjects(), is(Collections.singleton(project)));
+        assertThat(config.getUserRoleMap(user.getId()).get(project.getId()).contains(role.getId()), is(true));
+    }
+
+    @Test
+    public void testApplyAllSeesEarlierChanges() throws Exception {
+        User renamedUser = TestUtils.getUser(user.getId(), TestUtils.getName(), user.getEmailAddress());
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().applyAll(Arrays.asList(
+                ConfigurationChange.addUser(user),
+                ConfigurationChange.modifyUser(user.getId(), renamedUser),
+                ConfigurationChange.addUser(otherUser),
+                ConfigurationChange.removeUser(otherUser.getId())))
+                .createServerConfiguration();
+        assertThat(config.getUsers(), is(Collections.singleton(renamedUser)));
+    }
+
+    @Test
+    public void testFailedBatchLeavesBuilderUnchanged() throws Exception {
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder().addUser(user);
+        try {
+            builder.applyAll(Arrays.asList(
+                    ConfigurationChange.addUser(otherUser),
+                    ConfigurationChange.addRole(role),
+                    ConfigurationChange.addUser(user)));
+        } catch (IdAlreadyInUseException e) {
+            ServerConfiguration config = builder.createServerConfiguration();
+            assertThat(config.getUsers(), is(Collections.singleton(user)));
+            assertThat(config.getRoles().isEmpty(), is(true));
+            return;
+        }
+        throw new AssertionError("The batch should have been rejected");
+    }
+
+    @Test
+    public void testRemoveUserCascades() throws Exception {
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder().addUser(user)
+                .registerUser(user.getId(), password).addRole(role).addProject(project)
+                .addPolicy(user.getId(), project.getId(), role.getId());
+        ServerConfiguration config = builder.applyAll(Arrays.asList(
+                ConfigurationChange.removeUser(user.getId()),
+                ConfigurationChange.removeRole(role.getId()),
+                ConfigurationChange.addUser(user),
+                ConfigurationChange.registerUser(user.getId(), password)))
+                .createServerConfiguration();
+        assertThat(config.getUsers(), is(Collections.singleton(user)));
+        assertThat(config.isRegistered(user.getId()), is(true));
+        assertThat(config.getRoleIds(user.getId(), project.getId(), GlobalPermissions.EXCLUDED).isEmpty(), is(true));
+    }
+
+    @Test(expected = UnknownUserIdException.class)
+    public void testModifyRemovedUser() throws Exception {
+        ConfigurationBuilder.getEmptyBuilder().addUser(user).applyAll(Arrays.asList(
+                ConfigurationChange.removeUser(user.getId()),
+                ConfigurationChange.modifyUser(user.getId(), user)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testModifyUserChangingId() throws Exception {
+        ConfigurationChange.modifyUser(user.getId(), otherUser);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testModifyProjectChangingId() throws Exception {
+        ConfigurationChange.modifyProject(TestUtils.getProjectId(), project);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testModifyRoleChangingId() throws Exception {
+        ConfigurationChange.modifyRole(TestUtils.getRoleId(), role);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testModifyOperationChangingId() throws Exception {
+        ConfigurationChange.modifyOperation(TestUtils.getOperationId(), TestUtils.getCustomOperation());
+    }
+
+    @Test
+    public void testModifyUserKeepsRegistrationAndPolicy() throws Exception {
+        User renamedUser = TestUtils.getUser(user.getId(), TestUtils.getName(), user.getEmailAddress());
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addUser(user)
+                .registerUser(user.getId(), password).addRole(role).addProject(project)
+                .addPolicy(user.getId(), project.getId(), role.getId())
+                .applyAll(Arrays.asList(
+                        ConfigurationChange.modifyUser(user.getId(), renamedUser),
+                        ConfigurationChange.changePassword(user.getId(), TestUtils.getSaltedPassword())))
+                .createServerConfiguration();
+        assertThat(config.getUsers(), is(Collections.singleton(renamedUser)));
+        assertThat(config.isRegistered(user.getId()), is(true));
+        assertThat(config.getRoleIds(user.getId(), project.getId(), GlobalPermissions.EXCLUDED).contains(role.getId()),
+                is(true));
+    }
+
+    @Test(expected = IdAlreadyInUseException.class)
+    public void testRegisterModifiedUser() throws Exception {
+        User renamedUser = TestUtils.getUser(user.getId(), TestUtils.getName(), user.getEmailAddress());
+        ConfigurationBuilder.getEmptyBuilder().addUser(user).registerUser(user.getId(), password).applyAll(Arrays.asList(
+                ConfigurationChange.modifyUser(user.getId(), renamedUser),
+                ConfigurationChange.registerUser(user.getId(), password)));
+    }
+
+    @Test
+    public void testChangeUserIdByRemoveAndAdd() throws Exception {
+        User movedUser = TestUtils.getUser(TestUtils.getUserId(), user.getName(), user.getEmailAddress());
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder().addUser(user)
+                .registerUser(user.getId(), password).addRole(role).addProject(project)
+                .addPolicy(user.getId(), project.getId(), role.getId())
+                .applyAll(Arrays.asList(
+                        ConfigurationChange.removeUser(user.getId()),
+                        ConfigurationChange.addUser(movedUser),
+                        ConfigurationChange.registerUser(movedUser.getId(), password),
+                        ConfigurationChange.addPolicy(movedUser.getId(), project.getId(), role.getId())))
+                .createServerConfiguration();
+        assertThat(config.getUsers(), is(Collections.singleton(movedUser)));
+        assertThat(config.isRegistered(movedUser.getId()), is(true));
+        assertThat(config.isRegistered(user.getId()), is(false));
+        assertThat(config.getPolicyMap().containsKey(user.getId()), is(false));
+        assertThat(config.getRoleIds(movedUser.getId(), project.getId(), GlobalPermissions.EXCLUDED).contains(role.getId()),
+                is(true));
+    }
+
+    @Test(expected = UnknownRoleIdException.class)
+    public void testAddPolicyWithUnknownRole() throws Exception {
+        ConfigurationBuilder.getEmptyBuilder().addUser(user).addProject(project).applyAll(Collections.singletonList(
+                ConfigurationChange.addPolicy(user.getId(), project.getId(), role.getId())));
+    }
+
+    @Test(expected = UserNotRegisteredException.class)
+    public void testChangePasswordOfUnregisteredUser() throws Exception {
+        ConfigurationBuilder.getEmptyBuilder().addUser(user).applyAll(Collections.singletonList(
+                ConfigurationChange.changePassword(user.getId(), password)));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(ConfigurationChange.addUser(user).toString(), startsWith(toStringHead));
+        assertThat(ConfigurationChange.registerUser(user.getId(), password).toString(), not(containsString("password")));
+    }
+}
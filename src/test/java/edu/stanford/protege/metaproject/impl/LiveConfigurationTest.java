@@ -0,0 +1,159 @@
+package edu.stanford.protege.metaproject.impl;
+
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.IdAlreadyInUseException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class LiveConfigurationTest {
+    private final User user = TestUtils.getUser();
+    private ServerConfiguration config;
+    private LiveConfiguration live;
+
+    @Before
+    public void setUp() {
+        config = ConfigurationBuilder.getEmptyBuilder().createServerConfiguration();
+        live = new LiveConfiguration(config);
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(live, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testGetConfiguration() {
+        assertThat(live.getConfiguration(), is(sameInstance(config)));
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        ServerConfiguration updated = live.update(builder -> builder.setUser(user.getId(), user));
+        assertThat(live.getConfiguration(), is(sameInstance(updated)));
+        assertThat(updated.getUsers(), is(Collections.singleton(user)));
+        assertThat(config.getUsers().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testUpdateWithChanges() throws Exception {
+        ServerConfiguration updated = live.update(Collections.singletonList(ConfigurationChange.addUser(user)));
+        assertThat(live.getConfiguration(), is(sameInstance(updated)));
+        assertThat(updated.getUsers(), is(Collections.singleton(user)));
+    }
+
+    @Test
+    public void testUpdateWithThrowingEdit() throws Exception {
+        ServerConfiguration updated = live.update(builder -> builder.addUser(user));
+        assertThat(live.getConfiguration(), is(sameInstance(updated)));
+        assertThat(updated.getUsers(), is(Collections.singleton(user)));
+    }
+
+    @Test(expected = IdAlreadyInUseException.class)
+    public void testFailedEditLeavesConfiguration() throws Exception {
+        ServerConfiguration current = live.update(builder -> builder.addUser(user));
+        long version = live.getVersion();
+        try {
+            live.update(builder -> builder.addUser(user));
+        } catch (IdAlreadyInUseException e) {
+            assertThat(live.getConfiguration(), is(sameInstance(current)));
+            assertThat(live.getVersion(), is(version));
+            throw e;
+        }
+    }
+
+    @Test(expected = IdAlreadyInUseException.class)
+    public void testRejectedChangesLeaveConfiguration() throws Exception {
+        ServerConfiguration current = live.update(Collections.singletonList(ConfigurationChange.addUser(user)));
+        try {
+            live.update(Collections.singletonList(ConfigurationChange.addUser(user)));
+        } catch (IdAlreadyInUseException e) {
+            assertThat(live.getConfiguration(), is(sameInstance(current)));
+            throw e;
+        }
+    }
+
+    @Test
+    public void testSet() {
+        ServerConfiguration other = ConfigurationBuilder.getEmptyBuilder().createServerConfiguration();
+        assertThat(live.set(other), is(sameInstance(config)));
+        assertThat(live.getConfiguration(), is(sameInstance(other)));
+    }
+
+    @Test
+    public void testUpgradePassword() throws Exception {
+        PasswordHasher weakerHasher = TestUtils.getPasswordHasher(16, 1000);
+        PasswordHasher strongerHasher = TestUtils.getPasswordHasher(PasswordHashAlgorithm.PBKDF2_HMAC_SHA256, 16, 2000);
+        SaltedPasswordDigest digest = weakerHasher.hash(TestUtils.getPlainPassword("testPassword"), TestUtils.getSalt());
+        live.update(builder -> builder.addUser(user).registerUser(user.getId(), digest));
+        long version = live.getVersion();
+        assertThat(live.upgradePassword(user.getId(), "otherPassword".toCharArray(), strongerHasher), is(false));
+        assertThat(live.getVersion(), is(version));
+        assertThat(live.upgradePassword(user.getId(), "testPassword".toCharArray(), strongerHasher), is(true));
+        assertThat(live.getVersion(), is(version));
+        SaltedPasswordDigest upgraded = live.getConfiguration().getAuthenticationDetails(user.getId()).getPassword();
+        assertThat(upgraded.getAlgorithm(), is(PasswordHashAlgorithm.PBKDF2_HMAC_SHA256));
+        assertThat(strongerHasher.matches("testPassword".toCharArray(), upgraded), is(true));
+        assertThat(live.upgradePassword(user.getId(), "testPassword".toCharArray(), strongerHasher), is(false));
+        assertThat(live.getVersion(), is(version));
+    }
+
+    @Test
+    public void testUpgradePasswordOfUnregisteredUser() {
+        assertThat(live.upgradePassword(user.getId(), "testPassword".toCharArray(), TestUtils.getPasswordHasher()), is(false));
+    }
+
+    @Test
+    public void testVersionAdvancesOnInstall() throws Exception {
+        long version = live.getVersion();
+        live.update(builder -> builder.addUser(user));
+        assertThat(live.getVersion(), is(version + 1));
+        live.update(Collections.singletonList(ConfigurationChange.removeUser(user.getId())));
+        assertThat(live.getVersion(), is(version + 2));
+        live.set(config);
+        assertThat(live.getVersion(), is(version + 3));
+    }
+
+
+    @Test
+    public void testConcurrentUpdatesAreNotLost() throws Exception {
+        int nrWriters = 4, nrUpdates = 50;
+        long version = live.getVersion();
+        ExecutorService executor = Executors.newFixedThreadPool(nrWriters);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < nrWriters; i++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < nrUpdates; j++) {
+                        User newUser = TestUtils.getUser();
+                        live.update(builder -> builder.setUser(newUser.getId(), newUser));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(live.getConfiguration().getUsers().size(), is(nrWriters * nrUpdates));
+        assertThat(live.getVersion(), is(version + nrWriters * nrUpdates));
+    }
+}
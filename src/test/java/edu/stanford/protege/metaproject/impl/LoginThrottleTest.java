@@ -0,0 +1,185 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.Ticker;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.UserId;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class LoginThrottleTest {
+    private static final String toStringHead = LoginThrottle.class.getSimpleName();
+    private static final int BURST = 3;
+    private static final Duration REFILL_PERIOD = Duration.ofSeconds(1), BASE_DELAY = Duration.ofSeconds(2),
+            MAX_DELAY = Duration.ofSeconds(30), EXPIRY = Duration.ofMinutes(1);
+    private static final String source = "10.0.0.1", otherSource = "10.0.0.2";
+    private final UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId();
+    private final AtomicLong now = new AtomicLong(-1000); // nano times can be negative
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return now.get();
+        }
+    };
+    private final LoginThrottle throttle = new LoginThrottle(BURST, REFILL_PERIOD, BASE_DELAY, MAX_DELAY, EXPIRY, 64, ticker);
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(throttle, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testAllowsBurstThenRefills() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(throttle.tryAcquire(userId, source), is(0L));
+        }
+        assertThat(throttle.tryAcquire(userId, source), is(REFILL_PERIOD.toNanos()));
+        assertThat(throttle.tryAcquire(otherUserId, otherSource), is(0L));
+        advance(REFILL_PERIOD);
+        assertThat(throttle.tryAcquire(userId, source), is(0L));
+        assertThat(throttle.tryAcquire(userId, source) > 0, is(true));
+    }
+
+    @Test
+    public void testThrottlesSourceAcrossUsers() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(throttle.tryAcquire(TestUtils.getUserId(), source), is(0L));
+        }
+        assertThat(throttle.tryAcquire(userId, source) > 0, is(true));
+        assertThat(throttle.tryAcquire(userId, otherSource), is(0L));
+        assertThat(throttle.tryAcquire(otherUserId, null), is(0L));
+    }
+
+    @Test
+    public void testBlocksAfterFailureWithExponentialDelay() {
+        throttle.recordFailure(userId, source);
+        assertThat(throttle.tryAcquire(userId, source), is(BASE_DELAY.toNanos()));
+        advance(BASE_DELAY);
+        assertThat(throttle.tryAcquire(userId, source), is(0L));
+        throttle.recordFailure(userId, source);
+        assertThat(throttle.tryAcquire(userId, source), is(BASE_DELAY.multipliedBy(2).toNanos()));
+        throttle.recordFailure(userId, source);
+        assertThat(throttle.tryAcquire(userId, source), is(BASE_DELAY.multipliedBy(4).toNanos()));
+    }
+
+    @Test
+    public void testFailuresDoNotBlockUserFromOtherSources() {
+        for (int i = 0; i < 10; i++) {
+            throttle.recordFailure(userId, source);
+        }
+        assertThat(throttle.tryAcquire(userId, source) > 0, is(true));
+        assertThat(throttle.tryAcquire(otherUserId, source) > 0, is(true));
+        assertThat(throttle.tryAcquire(userId, otherSource), is(0L));
+        assertThat(throttle.tryAcquire(userId, null), is(0L));
+    }
+
+    @Test
+    public void testFailuresOfUnknownSourceDoNotBlockUser() {
+        for (int i = 0; i < 10; i++) {
+            throttle.recordFailure(userId, null);
+        }
+        assertThat(throttle.tryAcquire(userId, null), is(0L));
+        assertThat(throttle.tryAcquire(userId, source), is(0L));
+        assertThat(throttle.getUserSourceCount(), is(0));
+    }
+
+    @Test
+    public void testUserBucketIsSharedAcrossSources() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(throttle.tryAcquire(userId, "10.0.1." + i), is(0L));
+        }
+        assertThat(throttle.tryAcquire(userId, otherSource), is(REFILL_PERIOD.toNanos()));
+    }
+
+    @Test
+    public void testDelayIsCapped() {
+        assertThat(throttle.getDelay(1), is(BASE_DELAY.toNanos()));
+        assertThat(throttle.getDelay(4), is(BASE_DELAY.multipliedBy(8).toNanos()));
+        assertThat(throttle.getDelay(5), is(MAX_DELAY.toNanos()));
+        assertThat(throttle.getDelay(Integer.MAX_VALUE), is(MAX_DELAY.toNanos()));
+    }
+
+    @Test
+    public void testSuccessLiftsUserBlockOnly() {
+        throttle.recordFailure(userId, source);
+        throttle.recordSuccess(userId, source);
+        assertThat(throttle.tryAcquire(otherUserId, source) > 0, is(true));
+    }
+
+    @Test
+    public void testStateExpires() {
+        throttle.tryAcquire(userId, source);
+        throttle.recordFailure(userId, source);
+        assertThat(throttle.getUserCount(), is(1));
+        assertThat(throttle.getSourceCount(), is(1));
+        assertThat(throttle.getUserSourceCount(), is(1));
+        advance(BASE_DELAY.plus(EXPIRY).plusNanos(1));
+        assertThat(throttle.getUserCount(), is(0));
+        assertThat(throttle.getSourceCount(), is(0));
+        assertThat(throttle.getUserSourceCount(), is(0));
+        throttle.recordFailure(userId, source);
+        assertThat(throttle.tryAcquire(userId, source), is(BASE_DELAY.toNanos()));
+    }
+
+    @Test
+    public void testTableDoesNotGrow() {
+        for (int i = 0; i < 1000; i++) {
+            throttle.tryAcquire(TestUtils.getUserId(), null);
+        }
+        assertThat(throttle.getUserCount() <= 64, is(true));
+    }
+
+    @Test
+    public void testConcurrentAcquisitionsRespectBurst() throws Exception {
+        int nrThreads = 4;
+        LoginThrottle slowThrottle = new LoginThrottle(100, Duration.ofHours(1), BASE_DELAY, MAX_DELAY, Duration.ofHours(1), 64, ticker);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(nrThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < nrThreads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        if (slowThrottle.tryAcquire(userId, null) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // checks and updates are not atomic with each other, so a few racing attempts may get through
+        assertThat(allowed.get() >= 100 && allowed.get() < 100 + nrThreads, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExpiryShorterThanMaxDelay() {
+        new LoginThrottle(BURST, REFILL_PERIOD, BASE_DELAY, MAX_DELAY, Duration.ofSeconds(1), 64, ticker);
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(throttle.toString(), startsWith(toStringHead));
+    }
+}
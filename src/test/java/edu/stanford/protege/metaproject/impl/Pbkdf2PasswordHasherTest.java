@@ -9,6 +9,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.when;
@@ -51,6 +54,83 @@ public class Pbkdf2PasswordHasherTest {
         assertThat(hashedPassword, is(passwordHasher.hash(testPassword, salt)));
     }
 
+    @Test
+    public void testHashRecordsParameters() {
+        SaltedPasswordDigest hashedPassword = passwordHasher.hash(testPassword, saltGenerator.generate());
+        assertThat(hashedPassword.getAlgorithm(), is(ConfigurationUtils.getPasswordHashAlgorithm()));
+        assertThat(hashedPassword.getNumberOfIterations(), is(nrIterations));
+        assertThat(hashedPassword.getPassword().length(), is(hashByteSize * 2));
+    }
+
+    @Test
+    public void testHashCharacters() {
+        Salt salt = saltGenerator.generate();
+        assertThat(passwordHasher.hash("testPassword".toCharArray(), salt), is(passwordHasher.hash(testPassword, salt)));
+    }
+
+    @Test
+    public void testHashWithEachAlgorithm() {
+        Salt salt = saltGenerator.generate();
+        Set<String> hashes = new HashSet<>();
+        for (PasswordHashAlgorithm algorithm : PasswordHashAlgorithm.values()) {
+            SaltedPasswordDigest hashedPassword = TestUtils.getPasswordHasher(algorithm, hashByteSize, nrIterations).hash(testPassword, salt);
+            assertThat(hashedPassword.getAlgorithm(), is(algorithm));
+            hashes.add(hashedPassword.getPassword());
+        }
+        assertThat(hashes.size(), is(PasswordHashAlgorithm.values().length));
+    }
+
+    @Test
+    public void testMatches() {
+        SaltedPasswordDigest hashedPassword = passwordHasher.hash(testPassword, saltGenerator.generate());
+        assertThat(passwordHasher.matches("testPassword".toCharArray(), hashedPassword), is(true));
+        assertThat(passwordHasher.matches("otherPassword".toCharArray(), hashedPassword), is(false));
+    }
+
+    @Test
+    public void testMatchesDigestWithOtherParameters() {
+        SaltedPasswordDigest hashedPassword = TestUtils.getPasswordHasher(PasswordHashAlgorithm.PBKDF2_HMAC_SHA512, 32, 1000)
+                .hash(testPassword, saltGenerator.generate());
+        assertThat(passwordHasher.matches("testPassword".toCharArray(), hashedPassword), is(true));
+    }
+
+    @Test
+    public void testNeedsRehash() {
+        SaltedPasswordDigest hashedPassword = passwordHasher.hash(testPassword, saltGenerator.generate());
+        assertThat(passwordHasher.needsRehash(hashedPassword), is(false));
+        assertThat(TestUtils.getPasswordHasher(hashByteSize, nrIterations * 2).needsRehash(hashedPassword), is(true));
+        assertThat(TestUtils.getPasswordHasher(hashByteSize * 2, nrIterations).needsRehash(hashedPassword), is(true));
+        assertThat(TestUtils.getPasswordHasher(PasswordHashAlgorithm.PBKDF2_HMAC_SHA256, hashByteSize, nrIterations)
+                .needsRehash(hashedPassword), is(true));
+    }
+
+    @Test
+    public void testUpgrade() {
+        SaltedPasswordDigest hashedPassword = passwordHasher.hash(testPassword, saltGenerator.generate());
+        PasswordHasher strongerHasher = TestUtils.getPasswordHasher(PasswordHashAlgorithm.PBKDF2_HMAC_SHA256, hashByteSize, nrIterations * 2);
+        SaltedPasswordDigest upgradedPassword = strongerHasher.upgrade("testPassword".toCharArray(), hashedPassword).get();
+        assertThat(upgradedPassword.getAlgorithm(), is(PasswordHashAlgorithm.PBKDF2_HMAC_SHA256));
+        assertThat(upgradedPassword.getNumberOfIterations(), is(nrIterations * 2));
+        assertThat(strongerHasher.matches("testPassword".toCharArray(), upgradedPassword), is(true));
+        assertThat(strongerHasher.upgrade("testPassword".toCharArray(), upgradedPassword).isPresent(), is(false));
+    }
+
+    @Test
+    public void testUpgradeUsesFreshSalt() {
+        SaltedPasswordDigest hashedPassword = passwordHasher.hash(testPassword, saltGenerator.generate());
+        PasswordHasher strongerHasher = TestUtils.getPasswordHasher(hashByteSize, nrIterations * 2);
+        SaltedPasswordDigest upgradedPassword = strongerHasher.upgrade("testPassword".toCharArray(), hashedPassword).get();
+        assertThat(upgradedPassword.getSalt(), is(not(hashedPassword.getSalt())));
+        assertThat(strongerHasher.matches("testPassword".toCharArray(), upgradedPassword), is(true));
+    }
+
+    @Test
+    public void testUpgradeWithWrongPassword() {
+        SaltedPasswordDigest hashedPassword = passwordHasher.hash(testPassword, saltGenerator.generate());
+        PasswordHasher strongerHasher = TestUtils.getPasswordHasher(hashByteSize, nrIterations * 2);
+        assertThat(strongerHasher.upgrade("otherPassword".toCharArray(), hashedPassword).isPresent(), is(false));
+    }
+
     @Test
     public void testEqualToSelf() {
         assertThat(passwordHasher, is(passwordHasher));
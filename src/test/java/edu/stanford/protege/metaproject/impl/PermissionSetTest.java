@@ -0,0 +1,131 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class PermissionSetTest {
+    private static final String toStringHead = PermissionSetImpl.class.getSimpleName();
+    private final Operation readOperation = TestUtils.getCustomOperation(TestUtils.getOperationId(), TestUtils.getName(),
+            TestUtils.getDescription(), OperationType.READ, Operation.Scope.POLICY);
+    private final Operation writeOperation = TestUtils.getCustomOperation(TestUtils.getOperationId(), TestUtils.getName(),
+            TestUtils.getDescription(), OperationType.WRITE, Operation.Scope.ONTOLOGY);
+    private final Role projectRole = TestUtils.getRole(readOperation.getId());
+    private final Role globalRole = TestUtils.getRole(writeOperation.getId());
+    private final UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId();
+    private final ProjectId projectId = TestUtils.getProjectId(), otherProjectId = TestUtils.getProjectId();
+
+    private PermissionSet permissions, otherPermissions, globalPermissions, noPermissions;
+
+    @Before
+    public void setUp() throws Exception {
+        ServerConfiguration config = ConfigurationBuilder.getEmptyBuilder()
+                .addOperation(readOperation)
+                .addOperation(writeOperation)
+                .addRole(projectRole)
+                .addRole(globalRole)
+                .addPolicy(userId, projectId, projectRole.getId())
+                .addPolicy(userId, ConfigurationUtils.getUniversalProjectId(), globalRole.getId())
+                .addPolicy(otherUserId, projectId, projectRole.getId())
+                .addPolicy(otherUserId, ConfigurationUtils.getUniversalProjectId(), globalRole.getId())
+                .createServerConfiguration();
+        permissions = config.getEffectivePermissions(userId, projectId);
+        otherPermissions = config.getEffectivePermissions(otherUserId, projectId);
+        globalPermissions = config.getEffectivePermissions(userId, otherProjectId);
+        noPermissions = config.getEffectivePermissions(TestUtils.getUserId(), projectId);
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(permissions, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testAllows() {
+        assertThat(permissions.allows(readOperation.getId()), is(true));
+        assertThat(permissions.allows(writeOperation.getId()), is(true));
+        assertThat(permissions.allows(TestUtils.getOperationId()), is(false));
+    }
+
+    @Test
+    public void testAllowsGlobalOperationsOnly() {
+        assertThat(globalPermissions.allows(readOperation.getId()), is(false));
+        assertThat(globalPermissions.allows(writeOperation.getId()), is(true));
+    }
+
+    @Test
+    public void testAllowsAnyOperationType() {
+        assertThat(permissions.allowsAny(OperationType.READ), is(true));
+        assertThat(globalPermissions.allowsAny(OperationType.READ), is(false));
+        assertThat(permissions.allowsAny(OperationType.EXECUTE), is(false));
+    }
+
+    @Test
+    public void testAllowsAnyScope() {
+        assertThat(permissions.allowsAny(Operation.Scope.POLICY), is(true));
+        assertThat(globalPermissions.allowsAny(Operation.Scope.ONTOLOGY), is(true));
+        assertThat(globalPermissions.allowsAny(Operation.Scope.POLICY), is(false));
+    }
+
+    @Test
+    public void testGetDeniedOperations() {
+        OperationId unknownOperationId = TestUtils.getOperationId();
+        assertThat(globalPermissions.getDeniedOperations(Arrays.asList(readOperation.getId(), writeOperation.getId(),
+                readOperation.getId(), unknownOperationId)), is(ImmutableSet.of(readOperation.getId(), unknownOperationId)));
+    }
+
+    @Test
+    public void testGetDeniedOperationsWhenAllAllowed() {
+        assertThat(permissions.getDeniedOperations(Arrays.asList(readOperation.getId(), writeOperation.getId(),
+                writeOperation.getId())).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testIsEmpty() {
+        assertThat(permissions.isEmpty(), is(false));
+        assertThat(noPermissions.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testGetOperationIds() {
+        assertThat(globalPermissions.getOperationIds(), is(Collections.singleton(writeOperation.getId())));
+    }
+
+    @Test
+    public void testPermissionSetsAreShared() {
+        assertThat(permissions, is(sameInstance(otherPermissions)));
+    }
+
+    @Test
+    public void testEquals() {
+        assertThat(permissions, is(otherPermissions));
+    }
+
+    @Test
+    public void testNotEquals() {
+        assertThat(permissions, is(not(globalPermissions)));
+    }
+
+    @Test
+    public void testHashcode() {
+        assertThat(permissions.hashCode(), is(otherPermissions.hashCode()));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(permissions.toString(), startsWith(toStringHead));
+    }
+}
@@ -55,6 +55,17 @@ public class PolicyFactoryTest {
         assertThat(termId.get(), is(not(equalTo(""))));
     }
 
+    @Test
+    public void testGetCalibratedPasswordHasher() {
+        PasswordHasher hasher = gen.getCalibratedPasswordHasher(PasswordHashAlgorithm.PBKDF2_HMAC_SHA256, 16, 5);
+        int nrIterations = ((Pbkdf2PasswordHasher) hasher).getNumberOfIterations();
+        assertThat(nrIterations >= ConfigurationUtils.getMinimumKeyStretchingIterations(), is(true));
+        assertThat(nrIterations >= ConfigurationUtils.getKeyStretchingIterations(), is(true));
+        assertThat(nrIterations >= ConfigurationUtils.getLegacyKeyStretchingIterations(), is(true));
+        assertThat(nrIterations <= ConfigurationUtils.getMaximumKeyStretchingIterations(), is(true));
+        assertThat(nrIterations % 1000, is(0));
+    }
+
     @Test
     public void testEqualToSelf() {
         assertThat(gen, is(gen));
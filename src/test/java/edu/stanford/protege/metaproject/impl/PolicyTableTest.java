@@ -0,0 +1,129 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.ProjectId;
+import edu.stanford.protege.metaproject.api.RoleId;
+import edu.stanford.protege.metaproject.api.UserId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class PolicyTableTest {
+    private final UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId(), diffUserId = TestUtils.getUserId();
+    private final ProjectId projectId = TestUtils.getProjectId(), otherProjectId = TestUtils.getProjectId();
+    private final RoleId roleId = TestUtils.getRoleId(), otherRoleId = TestUtils.getRoleId();
+    private Map<UserId, Map<ProjectId, Set<RoleId>>> policyMap;
+    private PolicyTable table;
+
+    @Before
+    public void setUp() {
+        policyMap = new HashMap<>();
+        Map<ProjectId, Set<RoleId>> assignments = new HashMap<>();
+        assignments.put(projectId, new HashSet<>(Arrays.asList(roleId, otherRoleId)));
+        assignments.put(otherProjectId, new HashSet<>(Collections.singleton(roleId)));
+        policyMap.put(userId, assignments);
+        Map<ProjectId, Set<RoleId>> otherAssignments = new HashMap<>();
+        otherAssignments.put(otherProjectId, new HashSet<>(Collections.singleton(otherRoleId)));
+        otherAssignments.put(projectId, new HashSet<>());
+        policyMap.put(otherUserId, otherAssignments);
+        policyMap.put(diffUserId, new HashMap<>());
+        table = PolicyTable.of(policyMap);
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(table, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testSize() {
+        assertThat(table.size(), is(4));
+        assertThat(PolicyTable.EMPTY.size(), is(0));
+    }
+
+    @Test
+    public void testContains() {
+        assertThat(table.contains(userId), is(true));
+        assertThat(table.contains(diffUserId), is(false));
+        assertThat(table.contains(userId, otherProjectId), is(true));
+        assertThat(table.contains(otherUserId, projectId), is(false));
+        assertThat(table.contains(userId, projectId, otherRoleId), is(true));
+        assertThat(table.contains(userId, otherProjectId, otherRoleId), is(false));
+        assertThat(table.contains(TestUtils.getUserId(), projectId, roleId), is(false));
+    }
+
+    @Test
+    public void testGetRoleIds() {
+        assertThat(table.getRoleIds(userId, projectId), is(ImmutableSet.of(roleId, otherRoleId)));
+        assertThat(table.getRoleIds(otherUserId, projectId).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testGetProjectIds() {
+        assertThat(table.getProjectIds(userId), is(ImmutableSet.of(projectId, otherProjectId)));
+        assertThat(table.getProjectIds(diffUserId).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testGetUserIds() {
+        assertThat(table.getUserIds(otherProjectId), is(ImmutableSet.of(userId, otherUserId)));
+        assertThat(table.getUserIds(projectId), is(ImmutableSet.of(userId)));
+        assertThat(table.getUserIds(TestUtils.getProjectId()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testGetUserIdsOfRole() {
+        assertThat(table.getUserIds(roleId), is(ImmutableSet.of(userId)));
+        assertThat(table.getUserIds(otherRoleId), is(ImmutableSet.of(userId, otherUserId)));
+        assertThat(table.getUserIds(TestUtils.getRoleId()).isEmpty(), is(true));
+        assertThat(PolicyTable.EMPTY.getUserIds(roleId).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testToMapLeavesOutEmptyAssignments() {
+        policyMap.remove(diffUserId);
+        policyMap.get(otherUserId).remove(projectId);
+        assertThat(table.toMap(), is(policyMap));
+        assertThat(table.getAssignments(userId), is(policyMap.get(userId)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testToMapIsDeeplyImmutable() {
+        table.toMap().get(userId).get(projectId).add(TestUtils.getRoleId());
+    }
+
+    @Test
+    public void testModifiableAssignmentsAreIndependent() {
+        Map<ProjectId, Set<RoleId>> copy = table.getModifiableAssignments(userId);
+        copy.get(projectId).clear();
+        assertThat(table.contains(userId, projectId), is(true));
+        assertThat(table.toMap().get(userId).get(projectId).size(), is(2));
+    }
+
+    @Test
+    public void testWith() {
+        UserId newUserId = TestUtils.getUserId();
+        RoleId newRoleId = TestUtils.getRoleId();
+        Map<UserId, Map<ProjectId, Set<RoleId>>> changes = new HashMap<>();
+        changes.put(userId, new HashMap<>());
+        changes.put(newUserId, Collections.singletonMap(projectId, Collections.singleton(newRoleId)));
+        PolicyTable changed = table.with(changes);
+        assertThat(changed.contains(userId), is(false));
+        assertThat(changed.contains(newUserId, projectId, newRoleId), is(true));
+        assertThat(changed.getAssignments(otherUserId), is(table.getAssignments(otherUserId)));
+        assertThat(changed.getUserIds(projectId), is(ImmutableSet.of(newUserId)));
+        assertThat(changed.getUserIds(roleId), is(ImmutableSet.<UserId>of()));
+        assertThat(changed.getUserIds(newRoleId), is(ImmutableSet.of(newUserId)));
+        assertThat(table.contains(userId, projectId, roleId), is(true));
+    }
+}
@@ -1,9 +1,14 @@
 package edu.stanford.protege.metaproject.impl;
 
+import edu.stanford.protege.metaproject.api.Salt;
 import edu.stanford.protege.metaproject.api.SaltGenerator;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -37,6 +42,52 @@ public class SaltGeneratorTest {
         assertThat(saltGenerator.generate(), is(not(saltGenerator.generate())));
     }
 
+    @Test
+    public void testGenerateWithByteLength() {
+        assertThat(saltGenerator.generate(8).getString().length(), is(16));
+    }
+
+    @Test
+    public void testGenerateMany() {
+        List<Salt> salts = saltGenerator.generate(100, 16);
+        assertThat(salts.size(), is(100));
+        assertThat(new HashSet<>(salts).size(), is(100));
+        for (Salt salt : salts) {
+            assertThat(salt.getString().length(), is(32));
+        }
+    }
+
+    @Test
+    public void testGenerateManyByDefault() {
+        SaltGenerator generator = new SaltGenerator() {
+            @Override
+            @Nonnull
+            public Salt generate() {
+                return saltGenerator.generate();
+            }
+
+            @Override
+            @Nonnull
+            public Salt generate(int nrBytes) {
+                return saltGenerator.generate(nrBytes);
+            }
+
+            @Override
+            public int getByteLength() {
+                return saltGenerator.getByteLength();
+            }
+        };
+        List<Salt> salts = generator.generate(10, 16);
+        assertThat(salts.size(), is(10));
+        assertThat(new HashSet<>(salts).size(), is(10));
+        assertThat(salts.get(0).getString().length(), is(32));
+    }
+
+    @Test
+    public void testGenerateNone() {
+        assertThat(saltGenerator.generate(0, 16).isEmpty(), is(true));
+    }
+
     @Test
     public void testGetByteLength() {
         assertThat(saltGenerator.getByteLength(), is(otherSaltGenerator.getByteLength()));
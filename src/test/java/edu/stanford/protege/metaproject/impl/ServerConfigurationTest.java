@@ -167,6 +167,36 @@ public class ServerConfigurationTest {
         }
     }
 
+    @Test
+    public void testIsOperationAllowedThroughGlobalPermissions() throws Exception {
+        UserId userId = users.iterator().next().getId();
+        ProjectId unassignedProject = factory.getProjectId("testIsOperationAllowedThroughGlobalPermissions");
+        Set<RoleId> globalRoleIds = policyMap.get(userId).get(ConfigurationUtils.getUniversalProjectId());
+        for(RoleId roleId : globalRoleIds) {
+            if(config.containsRole(roleId)) {
+                for (OperationId opid : config.getRole(roleId).getOperations()) {
+                    assertThat(config.isOperationAllowed(opid, unassignedProject, userId), is(true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIsOperationAllowedForUnknownUser() throws Exception {
+        UserId userId = factory.getUserId("testIsOperationAllowedForUnknownUser");
+        OperationId operationId = operations.iterator().next().getId();
+        assertThat(config.isOperationAllowed(operationId, userId), is(false));
+        assertThat(config.isOperationAllowed(operationId, projects.iterator().next().getId(), userId), is(false));
+    }
+
+    @Test
+    public void testGetDeniedOperationsForUnknownUser() throws Exception {
+        UserId userId = factory.getUserId("testGetDeniedOperationsForUnknownUser");
+        OperationId operationId = operations.iterator().next().getId();
+        assertThat(config.getDeniedOperations(userId, projects.iterator().next().getId(),
+                Arrays.asList(operationId, operationId)), is(Collections.singleton(operationId)));
+    }
+
     @Test
     public void testGetUserRoleMap() throws Exception {
         UserId userId = policyMap.keySet().iterator().next();
@@ -193,6 +223,40 @@ public class ServerConfigurationTest {
         assertThat(config.getUser(factory.getUserId("testGetUserFail")), is(not(equalTo(null))));
     }
 
+    @Test
+    public void testFindUser() throws Exception {
+        User user1 = users.iterator().next();
+        assertThat(config.findUser(user1.getId()), is(Optional.of(user1)));
+        assertThat(config.findUser(factory.getUserId("testFindUser")), is(Optional.empty()));
+    }
+
+    @Test(expected=UnknownUserIdException.class)
+    public void testGetUserFailHasNoStackTrace() throws Exception {
+        try {
+            config.getUser(factory.getUserId("testGetUserFailHasNoStackTrace"));
+        } catch (UnknownUserIdException e) {
+            assertThat(e.getStackTrace().length, is(0));
+            throw e;
+        }
+    }
+
+    @Test
+    public void testGetUserFailCauseCanBeInitialized() throws Exception {
+        try {
+            config.getUser(factory.getUserId("testGetUserFailCauseCanBeInitialized"));
+            throw new AssertionError("Lookup did not fail");
+        } catch (UnknownUserIdException e) {
+            IllegalStateException cause = new IllegalStateException();
+            e.initCause(cause);
+            assertThat(e.getCause(), is(cause));
+        }
+    }
+
+    @Test
+    public void testExceptionWithCauseHasStackTrace() {
+        assertThat(new UnknownUserIdException("message", new IllegalStateException()).getStackTrace().length > 0, is(true));
+    }
+
     @Test
     public void testGetUsersByName() throws Exception {
         User user1 = users.iterator().next();
@@ -205,6 +269,21 @@ public class ServerConfigurationTest {
         assertThat(config.getUsers(user1.getEmailAddress()).contains(user1), is(true));
     }
 
+    @Test
+    public void testGetUsersByEmailIgnoresCase() throws Exception {
+        User user1 = users.iterator().next();
+        EmailAddress upperCase = factory.getEmailAddress(user1.getEmailAddress().get().toUpperCase());
+        assertThat(config.getUsers(upperCase).contains(user1), is(true));
+        assertThat(config.isEmailAddressInUse(upperCase), is(true));
+    }
+
+    @Test
+    public void testGetUsersByUnknownEmail() throws Exception {
+        EmailAddress address = factory.getEmailAddress("testGetUsersByUnknownEmail@example.org");
+        assertThat(config.getUsers(address).isEmpty(), is(true));
+        assertThat(config.isEmailAddressInUse(address), is(false));
+    }
+
     @Test
     public void testContainsUser() throws Exception {
         User user1 = users.iterator().next();
@@ -237,6 +316,14 @@ public class ServerConfigurationTest {
         assertThat(config.getProject(project.getId()), is(project));
     }
 
+    @Test
+    public void testFindProject() throws Exception {
+        Project project = projects.iterator().next();
+        assertThat(config.findProject(project.getId()), is(Optional.of(project)));
+        assertThat(config.findProject(ConfigurationUtils.getUniversalProjectId()), is(Optional.of(ConfigurationUtils.getUniversalProject())));
+        assertThat(config.findProject(factory.getProjectId("testFindProject")), is(Optional.empty()));
+    }
+
     @Test
     public void testGetProjectsByName() throws Exception {
         Project project = projects.iterator().next();
@@ -277,6 +364,13 @@ public class ServerConfigurationTest {
         assertThat(config.getRole(role.getId()), is(role));
     }
 
+    @Test
+    public void testFindRole() throws Exception {
+        Role role = roles.iterator().next();
+        assertThat(config.findRole(role.getId()), is(Optional.of(role)));
+        assertThat(config.findRole(factory.getRoleId("testFindRole")), is(Optional.empty()));
+    }
+
     @Test
     public void testGetRolesForUser() throws Exception {
         UserId userId = policyMap.keySet().iterator().next();
@@ -350,6 +444,13 @@ public class ServerConfigurationTest {
         assertThat(config.getOperation(operation.getId()), is(operation));
     }
 
+    @Test
+    public void testFindOperation() throws Exception {
+        Operation operation = operations.iterator().next();
+        assertThat(config.findOperation(operation.getId()), is(Optional.of(operation)));
+        assertThat(config.findOperation(factory.getOperationId("testFindOperation")), is(Optional.empty()));
+    }
+
     @Test
     public void testGetOperationsForUser() throws Exception {
         UserId userId = policyMap.keySet().iterator().next();
@@ -448,6 +549,15 @@ public class ServerConfigurationTest {
         assertThat(config.containsOperation(operation.getId()), is(true));
     }
 
+    @Test
+    public void testDoesNotContainUnknownIds() throws Exception {
+        assertThat(config.containsUser(factory.getUserId("testDoesNotContainUnknownIds")), is(false));
+        assertThat(config.containsProject(factory.getProjectId("testDoesNotContainUnknownIds")), is(false));
+        assertThat(config.containsRole(factory.getRoleId("testDoesNotContainUnknownIds")), is(false));
+        assertThat(config.containsOperation(factory.getOperationId("testDoesNotContainUnknownIds")), is(false));
+        assertThat(config.isRegistered(factory.getUserId("testDoesNotContainUnknownIds")), is(false));
+    }
+
 
     /* authentication */
 
@@ -462,6 +572,13 @@ public class ServerConfigurationTest {
         assertThat(config.getAuthenticationDetails(details.getUserId()), is(details));
     }
 
+    @Test
+    public void testFindAuthenticationDetails() throws Exception {
+        AuthenticationDetails details = authDetails.iterator().next();
+        assertThat(config.findAuthenticationDetails(details.getUserId()), is(Optional.of(details)));
+        assertThat(config.findAuthenticationDetails(factory.getUserId("testFindAuthenticationDetails")), is(Optional.empty()));
+    }
+
     @Test
     public void testGetSalt() throws Exception {
         AuthenticationDetails details = authDetails.iterator().next();
@@ -0,0 +1,176 @@
+package edu.stanford.protege.metaproject.impl;
+
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class SessionTokenIssuerTest {
+    private static final String toStringHead = SessionTokenIssuer.class.getSimpleName();
+    private static final Duration timeToLive = Duration.ofMinutes(30);
+    private final PolicyFactory factory = ConfigurationManager.getFactory();
+    private final User user = TestUtils.getUser();
+    private final Instant now = Instant.parse("2016-05-01T10:00:00Z");
+    private final byte[] key = new byte[32];
+
+    private LiveConfiguration live;
+    private SessionTokenIssuer issuer;
+    private SessionToken token;
+
+    @Before
+    public void setUp() {
+        Arrays.fill(key, (byte) 1);
+        live = new LiveConfiguration(ConfigurationBuilder.getEmptyBuilder().createServerConfiguration());
+        issuer = new SessionTokenIssuer(key, timeToLive, Clock.fixed(now, ZoneOffset.UTC), live);
+        token = issuer.issue(factory.getAuthorizedUserToken(user));
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(issuer, is(not(equalTo(null))));
+        assertThat(token, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testIssue() {
+        assertThat(token.getUser(), is(user));
+        assertThat(token.getIssuedAt(), is(now.toEpochMilli()));
+        assertThat(token.getExpiresAt(), is(now.plus(timeToLive).toEpochMilli()));
+        assertThat(token.getConfigurationVersion(), is(live.getVersion()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIssueForUnauthorizedUser() {
+        issuer.issue(factory.getUnauthorizedUserToken(user));
+    }
+
+    @Test
+    public void testVerify() {
+        assertThat(issuer.verify(token), is(Optional.of(token)));
+    }
+
+    @Test
+    public void testVerifyWithOtherIssuerWithSameKey() {
+        SessionTokenIssuer otherIssuer = new SessionTokenIssuer(key, timeToLive, Clock.fixed(now.plusSeconds(60), ZoneOffset.UTC), live);
+        assertThat(otherIssuer.verify(token).isPresent(), is(true));
+    }
+
+    @Test
+    public void testVerifyExpiredToken() {
+        SessionTokenIssuer laterIssuer = new SessionTokenIssuer(key, timeToLive, Clock.fixed(now.plus(timeToLive), ZoneOffset.UTC), live);
+        assertThat(laterIssuer.verify(token).isPresent(), is(false));
+    }
+
+    @Test
+    public void testVerifyAfterConfigurationChange() throws Exception {
+        live.update(builder -> builder.addUser(TestUtils.getUser()));
+        assertThat(issuer.verify(token).isPresent(), is(false));
+        assertThat(issuer.verify(issuer.issue(factory.getAuthorizedUserToken(user))).isPresent(), is(true));
+    }
+
+    @Test
+    public void testVerifyAfterPasswordUpgradeOfOtherUser() throws Exception {
+        User otherUser = TestUtils.getUser();
+        SaltedPasswordDigest digest = TestUtils.getPasswordHasher(16, 1000)
+                .hash(TestUtils.getPlainPassword("testPassword"), TestUtils.getSalt());
+        live.update(builder -> builder.addUser(otherUser).registerUser(otherUser.getId(), digest));
+        SessionToken sessionToken = issuer.issue(factory.getAuthorizedUserToken(user));
+        PasswordHasher strongerHasher = TestUtils.getPasswordHasher(PasswordHashAlgorithm.PBKDF2_HMAC_SHA256, 16, 2000);
+        assertThat(live.upgradePassword(otherUser.getId(), "testPassword".toCharArray(), strongerHasher), is(true));
+        assertThat(issuer.verify(sessionToken), is(Optional.of(sessionToken)));
+    }
+
+    @Test
+    public void testVerifyWithOtherKey() {
+        byte[] otherKey = new byte[32];
+        SessionTokenIssuer otherIssuer = new SessionTokenIssuer(otherKey, timeToLive, Clock.fixed(now, ZoneOffset.UTC), live);
+        assertThat(otherIssuer.verify(token).isPresent(), is(false));
+    }
+
+    @Test
+    public void testVerifyTamperedToken() {
+        SessionToken forged = new SessionToken(TestUtils.getUser(), token.getIssuedAt(), token.getExpiresAt(),
+                token.getConfigurationVersion(), token.getSignature());
+        SessionToken extended = new SessionToken(user, token.getIssuedAt(), token.getExpiresAt() + 1,
+                token.getConfigurationVersion(), token.getSignature());
+        assertThat(issuer.verify(forged).isPresent(), is(false));
+        assertThat(issuer.verify(extended).isPresent(), is(false));
+        assertThat(forged.isAuthorized(), is(false));
+    }
+
+    @Test
+    public void testVerifyTokenWithTamperedUserDetails() {
+        User renamedUser = TestUtils.getUser(user.getId(), TestUtils.getName(), user.getEmailAddress());
+        SessionToken renamed = new SessionToken(renamedUser, token.getIssuedAt(), token.getExpiresAt(),
+                token.getConfigurationVersion(), token.getSignature());
+        assertThat(issuer.verify(renamed).isPresent(), is(false));
+    }
+
+    @Test
+    public void testIsAuthorized() {
+        // the token is authorized according to the issuer's clock, although it expired long ago in real time
+        assertThat(token.isAuthorized(), is(true));
+        SessionTokenIssuer laterIssuer = new SessionTokenIssuer(key, timeToLive, Clock.fixed(now.plus(timeToLive), ZoneOffset.UTC), live);
+        assertThat(laterIssuer.issue(factory.getAuthorizedUserToken(user)).isAuthorized(), is(true));
+    }
+
+    @Test
+    public void testUnverifiedTokenIsNotAuthorized() {
+        SessionToken copy = new SessionToken(user, token.getIssuedAt(), token.getExpiresAt(),
+                token.getConfigurationVersion(), token.getSignature());
+        assertThat(copy.isAuthorized(), is(false));
+        assertThat(issuer.verify(copy).get().isAuthorized(), is(true));
+    }
+
+    @Test
+    public void testDeserializedTokenIsNotAuthorized() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(token);
+        }
+        SessionToken deserialized;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = (SessionToken) in.readObject();
+        }
+        assertThat(deserialized, is(token));
+        assertThat(deserialized.isAuthorized(), is(false));
+        assertThat(issuer.verify(deserialized).get().isAuthorized(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortKey() {
+        new SessionTokenIssuer(new byte[16], timeToLive, Clock.systemUTC(), live);
+    }
+
+    @Test
+    public void testTokenEquals() {
+        assertThat(token, is(issuer.issue(factory.getAuthorizedUserToken(user))));
+        assertThat(token.hashCode(), is(issuer.issue(factory.getAuthorizedUserToken(user)).hashCode()));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(issuer.toString(), startsWith(toStringHead));
+        assertThat(token.toString(), startsWith(SessionToken.class.getSimpleName()));
+    }
+}
@@ -0,0 +1,117 @@
+package edu.stanford.protege.metaproject.impl;
+
+import com.google.common.base.Ticker;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.PlainPassword;
+import edu.stanford.protege.metaproject.api.User;
+import edu.stanford.protege.metaproject.api.exception.LoginThrottledException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class ThrottlingUserAuthenticatorTest {
+    private static final String toStringHead = ThrottlingUserAuthenticator.class.getSimpleName();
+    private static final Duration BASE_DELAY = Duration.ofSeconds(1);
+    private static final String source = "10.0.0.1";
+    private final User user = TestUtils.getUser();
+    private final PlainPassword password = TestUtils.getPlainPassword(), otherPassword = TestUtils.getPlainPassword();
+    private final AtomicLong now = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return now.get();
+        }
+    };
+
+    private InMemoryUserAuthenticator backend;
+    private ThrottlingUserAuthenticator authenticator;
+
+    @Before
+    public void setUp() {
+        backend = new InMemoryUserAuthenticator(TestUtils.getPasswordHasher(32, 1000)).register(user, password);
+        LoginThrottle throttle = new LoginThrottle(5, Duration.ofSeconds(1), BASE_DELAY, Duration.ofMinutes(1), Duration.ofMinutes(5), 64, ticker);
+        authenticator = new ThrottlingUserAuthenticator(backend, throttle);
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(authenticator, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testHasValidCredentials() {
+        assertThat(authenticator.hasValidCredentials(user.getId(), password, source).isAuthorized(), is(true));
+        assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword, source).isAuthorized(), is(false));
+    }
+
+    @Test
+    public void testThrottledAttemptsDoNotReachBackend() {
+        authenticator.hasValidCredentials(user.getId(), otherPassword, source);
+        for (int i = 0; i < 100; i++) {
+            try {
+                authenticator.hasValidCredentials(user.getId(), password, source);
+                throw new AssertionError("Attempt was not throttled");
+            } catch (LoginThrottledException e) {
+                assertThat(e.getRetryAfter().compareTo(BASE_DELAY) <= 0, is(true));
+            }
+        }
+        assertThat(backend.getVerificationCount(), is(1L));
+        now.addAndGet(BASE_DELAY.toNanos());
+        assertThat(authenticator.hasValidCredentials(user.getId(), password, source).isAuthorized(), is(true));
+        assertThat(backend.getVerificationCount(), is(2L));
+    }
+
+    @Test
+    public void testFailuresDoNotLockUserOutOfOtherSources() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword, "10.0.0.2").isAuthorized(), is(false));
+            now.addAndGet(BASE_DELAY.toNanos() << i); // wait out the block on the source
+        }
+        assertThat(authenticator.hasValidCredentials(user.getId(), password, source).isAuthorized(), is(true));
+        assertThat(backend.getVerificationCount(), is(4L));
+    }
+
+    @Test
+    public void testFailuresWithoutSourceDoNotLockUserOut() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(authenticator.hasValidCredentials(user.getId(), otherPassword).isAuthorized(), is(false));
+        }
+        assertThat(authenticator.hasValidCredentials(user.getId(), password).isAuthorized(), is(true));
+        assertThat(backend.getVerificationCount(), is(4L));
+    }
+
+    @Test
+    public void testThrottlesWithoutSource() {
+        for (int i = 0; i < 5; i++) {
+            authenticator.hasValidCredentials(user.getId(), otherPassword);
+        }
+        try {
+            authenticator.hasValidCredentials(user.getId(), password);
+            throw new AssertionError("Attempt was not throttled");
+        } catch (LoginThrottledException e) {
+            assertThat(e.getRetryAfter().isZero(), is(false));
+        }
+        assertThat(backend.getVerificationCount(), is(5L));
+    }
+
+    @Test(expected = LoginThrottledException.class)
+    public void testThrottledAttemptThrows() {
+        authenticator.hasValidCredentials(user.getId(), otherPassword, source);
+        authenticator.hasValidCredentials(user.getId(), password, source);
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(authenticator.toString(), startsWith(toStringHead));
+    }
+}
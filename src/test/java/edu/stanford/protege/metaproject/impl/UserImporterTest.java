@@ -0,0 +1,119 @@
+package edu.stanford.protege.metaproject.impl;
+
+import edu.stanford.protege.metaproject.ConfigurationManager;
+import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.*;
+import edu.stanford.protege.metaproject.api.exception.IdAlreadyInUseException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Rafael Gonçalves <br>
+ * Center for Biomedical Informatics Research <br>
+ * Stanford University
+ */
+public class UserImporterTest {
+    private static final String toStringHead = UserImporter.class.getSimpleName();
+    private static final int NR_USERS = 200;
+    private final PolicyFactory factory = ConfigurationManager.getFactory();
+    private final PasswordHasher hasher = TestUtils.getPasswordHasher(32, 1000);
+    private final UserImporter importer = new UserImporter(hasher, TestUtils.getSaltGenerator(), 2);
+
+    private List<UserImporter.Record> getRecords(int size) {
+        List<UserImporter.Record> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(new UserImporter.Record(TestUtils.getUser(), TestUtils.getPlainPassword()));
+        }
+        return records;
+    }
+
+    @Test
+    public void testNotNull() {
+        assertThat(importer, is(not(equalTo(null))));
+    }
+
+    @Test
+    public void testImportUsers() throws Exception {
+        List<UserImporter.Record> records = getRecords(NR_USERS);
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder();
+        UserImporter.Report report = importer.importUsers(builder, records.stream());
+        assertThat(report.getNumberOfUsers(), is(NR_USERS));
+
+        ServerConfiguration config = builder.createServerConfiguration();
+        assertThat(config.getUsers().size(), is(NR_USERS));
+        for (UserImporter.Record record : records) {
+            UserId userId = record.getUser().getId();
+            assertThat(config.containsUser(userId), is(true));
+            SaltedPasswordDigest digest = config.getAuthenticationDetails(userId).getPassword();
+            assertThat(hasher.matches(record.getPassword().getPassword().toCharArray(), digest), is(true));
+        }
+    }
+
+    @Test
+    public void testImportUsersWithDistinctSalts() throws Exception {
+        PlainPassword password = TestUtils.getPlainPassword();
+        UserImporter.Record first = new UserImporter.Record(TestUtils.getUser(), password);
+        UserImporter.Record second = new UserImporter.Record(TestUtils.getUser(), password);
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder();
+        importer.importUsers(builder, Stream.of(first, second));
+        ServerConfiguration config = builder.createServerConfiguration();
+        assertThat(config.getAuthenticationDetails(first.getUser().getId()).getPassword(),
+                is(not(equalTo(config.getAuthenticationDetails(second.getUser().getId()).getPassword()))));
+    }
+
+    @Test
+    public void testImportNoUsers() throws Exception {
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder();
+        UserImporter.Report report = importer.importUsers(builder, Stream.empty());
+        assertThat(report.getNumberOfUsers(), is(0));
+        assertThat(builder.createServerConfiguration().getUsers().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testImportDuplicateUserIdAppliesNothing() throws Exception {
+        User existing = TestUtils.getUser();
+        ConfigurationBuilder builder = ConfigurationBuilder.getEmptyBuilder().addUser(existing);
+        List<UserImporter.Record> records = getRecords(10);
+        records.add(new UserImporter.Record(TestUtils.getUser(existing.getId(), TestUtils.getName(), TestUtils.getEmailAddress()),
+                TestUtils.getPlainPassword()));
+        try {
+            importer.importUsers(builder, records.stream());
+            throw new AssertionError("Expected an IdAlreadyInUseException");
+        } catch (IdAlreadyInUseException e) {
+            assertThat(builder.createServerConfiguration().getUsers().size(), is(1));
+        }
+    }
+
+    @Test(expected = IdAlreadyInUseException.class)
+    public void testImportDuplicateEmailAddress() throws Exception {
+        EmailAddress emailAddress = TestUtils.getEmailAddress();
+        User user = TestUtils.getUser(TestUtils.getUserId(), TestUtils.getName(), emailAddress);
+        User otherUser = TestUtils.getUser(TestUtils.getUserId(), TestUtils.getName(), factory.getEmailAddress(emailAddress.get()));
+        importer.importUsers(ConfigurationBuilder.getEmptyBuilder(), Stream.of(
+                new UserImporter.Record(user, TestUtils.getPlainPassword()),
+                new UserImporter.Record(otherUser, TestUtils.getPlainPassword())));
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        UserImporter.Report report = importer.importUsers(ConfigurationBuilder.getEmptyBuilder(), getRecords(10).stream());
+        assertThat(report.getUsersPerSecond() > 0, is(true));
+        assertThat(report.getElapsedMillis() >= 0, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveParallelism() {
+        new UserImporter(hasher, TestUtils.getSaltGenerator(), 0);
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(importer.toString(), startsWith(toStringHead));
+    }
+}
@@ -1,10 +1,12 @@
 package edu.stanford.protege.metaproject.serialization;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import edu.stanford.protege.metaproject.TestUtils;
 import edu.stanford.protege.metaproject.api.AuthenticationDetails;
 import edu.stanford.protege.metaproject.api.SaltedPasswordDigest;
 import edu.stanford.protege.metaproject.api.UserId;
+import edu.stanford.protege.metaproject.impl.ConfigurationUtils;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -83,4 +85,47 @@ public class AuthenticationDetailsSerializerTest {
     public void testGetPassword() {
         assertThat(gson.fromJson(jsonAuthenticationDetails, AuthenticationDetails.class).getPassword(), is(password));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetPasswordParameters() {
+        SaltedPasswordDigest deserializedPassword = gson.fromJson(jsonAuthenticationDetails, AuthenticationDetails.class).getPassword();
+        assertThat(deserializedPassword.getAlgorithm(), is(password.getAlgorithm()));
+        assertThat(deserializedPassword.getNumberOfIterations(), is(password.getNumberOfIterations()));
+    }
+
+    @Test
+    public void testDeserializeLegacyDetails() {
+        String json = "{\"userId\":\"" + userId.get() + "\",\"password\":\"" + password.getPassword() +
+                "\",\"salt\":\"" + password.getSalt().getString() + "\"}";
+        SaltedPasswordDigest deserializedPassword = gson.fromJson(json, AuthenticationDetails.class).getPassword();
+        assertThat(deserializedPassword.getAlgorithm(), is(ConfigurationUtils.getLegacyPasswordHashAlgorithm()));
+        assertThat(deserializedPassword.getNumberOfIterations(), is(ConfigurationUtils.getLegacyKeyStretchingIterations()));
+    }
+
+    private String getJson(String parameters) {
+        return "{\"userId\":\"" + userId.get() + "\",\"password\":\"" + password.getPassword() +
+                "\",\"salt\":\"" + password.getSalt().getString() + "\"" + parameters + "}";
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testDeserializeNonPositiveIterations() {
+        gson.fromJson(getJson(",\"algorithm\":\"" + password.getAlgorithm().name() + "\",\"iterations\":0"),
+                AuthenticationDetails.class);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testDeserializeNonNumericIterations() {
+        gson.fromJson(getJson(",\"algorithm\":\"" + password.getAlgorithm().name() + "\",\"iterations\":\"many\""),
+                AuthenticationDetails.class);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testDeserializeAlgorithmWithoutIterations() {
+        gson.fromJson(getJson(",\"algorithm\":\"" + password.getAlgorithm().name() + "\""), AuthenticationDetails.class);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testDeserializeIterationsWithoutAlgorithm() {
+        gson.fromJson(getJson(",\"iterations\":" + password.getNumberOfIterations()), AuthenticationDetails.class);
+    }
+}
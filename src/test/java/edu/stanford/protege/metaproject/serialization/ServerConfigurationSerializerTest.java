@@ -1,8 +1,13 @@
 package edu.stanford.protege.metaproject.serialization;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import edu.stanford.protege.metaproject.TestUtils;
+import edu.stanford.protege.metaproject.api.ProjectId;
+import edu.stanford.protege.metaproject.api.RoleId;
 import edu.stanford.protege.metaproject.api.ServerConfiguration;
+import edu.stanford.protege.metaproject.api.UserId;
 import edu.stanford.protege.metaproject.impl.ConfigurationBuilder;
 import org.junit.Before;
 import org.junit.Test;
@@ -48,6 +53,27 @@ public class ServerConfigurationSerializerTest {
         assertThat(config, is(gson.fromJson(jsonServerConfiguration, ServerConfiguration.class)));
     }
 
+    @Test
+    public void testRoundTripWithEmptyPolicyEntries() {
+        UserId userId = TestUtils.getUserId(), otherUserId = TestUtils.getUserId();
+        ProjectId projectId = TestUtils.getProjectId(), otherProjectId = TestUtils.getProjectId();
+        RoleId roleId = TestUtils.getRoleId();
+        ServerConfiguration withPolicy = new ConfigurationBuilder(config).addPolicy(userId, projectId, roleId).createServerConfiguration();
+        JsonObject json = gson.toJsonTree(withPolicy, ServerConfiguration.class).getAsJsonObject();
+        JsonObject policy = json.getAsJsonObject("policy");
+        policy.getAsJsonObject(userId.get()).add(otherProjectId.get(), new JsonArray());
+        policy.add(otherUserId.get(), new JsonObject());
+
+        // users with no role assignments, and projects with no roles, are not kept
+        ServerConfiguration loaded = gson.fromJson(json, ServerConfiguration.class);
+        assertThat(loaded.hasRole(otherUserId), is(false));
+        assertThat(loaded.hasRole(userId, otherProjectId), is(false));
+        assertThat(loaded.hasRole(userId, projectId, roleId), is(true));
+        assertThat(loaded.getPolicyMap(), is(withPolicy.getPolicyMap()));
+        assertThat(loaded, is(withPolicy));
+        assertThat(gson.fromJson(gson.toJson(loaded, ServerConfiguration.class), ServerConfiguration.class), is(loaded));
+    }
+
     @Test
     public void testSerializationOfEqualObjects() {
         assertThat(config, is(otherServerConfiguration));